@@ -0,0 +1,21 @@
+package com.shykhmat.vcsstatistics.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary benchmark result that reports processed commits per second.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class CommitCounter {
+    public long commits;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        commits = 0;
+    }
+}
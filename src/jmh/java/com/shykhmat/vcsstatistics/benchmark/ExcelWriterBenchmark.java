@@ -0,0 +1,80 @@
+package com.shykhmat.vcsstatistics.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.shykhmat.vcsstatistics.domain.LinesOfCodeStatusResolver;
+import com.shykhmat.vcsstatistics.domain.ProjectReport;
+import com.shykhmat.vcsstatistics.domain.StatisticsMatrix;
+import com.shykhmat.vcsstatistics.excel.ExcelWriter;
+
+/**
+ * Throughput of {@link ExcelWriter#writeMetricsToExcel} for a synthetic
+ * report. The "rows" secondary result is author rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExcelWriterBenchmark {
+    @Param("200")
+    private int authorCount;
+    @Param("365")
+    private int dayCount;
+    @Param("0.3")
+    private double activeDaysShare;
+
+    private ProjectReport projectReport;
+    private ExcelWriter excelWriter;
+    private File reportFile;
+
+    @Setup(Level.Trial)
+    public void createReport() throws IOException {
+        Random random = new Random(authorCount * 31L + dayCount);
+        LocalDate dateFrom = LocalDate.of(2017, 1, 1);
+        LocalDate dateTo = dateFrom.plusDays(dayCount - 1);
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        for (int author = 0; author < authorCount; author++) {
+            int authorId = statistics.internAuthor("Author " + author);
+            for (int day = 0; day < dayCount; day++) {
+                if (random.nextDouble() < activeDaysShare) {
+                    statistics.add(authorId, dateFrom.toEpochDay() + day, random.nextInt(500));
+                }
+            }
+        }
+        projectReport = new ProjectReport("benchmark", dateFrom, dateTo, statistics);
+        excelWriter = new ExcelWriter(new LinesOfCodeStatusResolver());
+        reportFile = File.createTempFile("vcsstatistics-benchmark", ".xlsx");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteReport() {
+        reportFile.delete();
+    }
+
+    @Benchmark
+    public boolean writeMetricsToExcel(RowCounter counter) {
+        boolean written = excelWriter.writeMetricsToExcel(reportFile.getPath(), projectReport);
+        counter.rows += authorCount;
+        return written;
+    }
+}
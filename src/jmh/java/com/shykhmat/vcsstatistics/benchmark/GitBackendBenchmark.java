@@ -0,0 +1,77 @@
+package com.shykhmat.vcsstatistics.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.collector.GitBackend;
+import com.shykhmat.vcsstatistics.collector.VCSStatisticsCollectorException;
+import com.shykhmat.vcsstatistics.collector.git.GitStatisticsCollector;
+import com.shykhmat.vcsstatistics.domain.ProjectReport;
+
+/**
+ * End-to-end throughput of {@link GitStatisticsCollector#collectStatistics}
+ * per Git backend with all caches disabled. NATIVE backend needs git on the
+ * system path. The "commits" secondary result is commits per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GitBackendBenchmark {
+    @Param("2000")
+    private int commitCount;
+    @Param("200")
+    private int fileCount;
+    @Param("500")
+    private int fileLines;
+    @Param("20")
+    private int authorCount;
+    @Param("1")
+    private int parallelism;
+    @Param({ "JGIT", "NATIVE" })
+    private GitBackend backend;
+
+    private File projectFolder;
+    private GitStatisticsCollector collector;
+
+    @Setup(Level.Trial)
+    public void createRepository() throws IOException {
+        projectFolder = new SyntheticRepository(commitCount, fileCount, fileLines, authorCount).create(true);
+        CollectorSettings settings = new CollectorSettings();
+        settings.setParallelism(parallelism);
+        settings.setCommitCacheEnabled(false);
+        settings.setBlobDiffCacheSize(0);
+        settings.setGitBackend(backend);
+        collector = new GitStatisticsCollector(settings);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRepository() throws IOException {
+        SyntheticRepository.delete(projectFolder);
+    }
+
+    @Benchmark
+    public ProjectReport collectStatistics(CommitCounter counter) throws VCSStatisticsCollectorException {
+        ProjectReport projectReport = collector.collectStatistics(projectFolder.getPath(), null, null);
+        counter.commits += commitCount;
+        return projectReport;
+    }
+}
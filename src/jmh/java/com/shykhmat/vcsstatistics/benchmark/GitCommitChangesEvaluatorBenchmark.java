@@ -0,0 +1,81 @@
+package com.shykhmat.vcsstatistics.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.shykhmat.vcsstatistics.collector.git.GitCommitChangesEvaluator;
+
+/**
+ * Throughput of {@link GitCommitChangesEvaluator#evaluateChangedLines} in a
+ * single thread. The "commits" secondary result is commits per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GitCommitChangesEvaluatorBenchmark {
+    @Param("2000")
+    private int commitCount;
+    @Param("200")
+    private int fileCount;
+    @Param("500")
+    private int fileLines;
+    @Param("20")
+    private int authorCount;
+
+    private File projectFolder;
+    private Repository repository;
+    private List<RevCommit> commits;
+
+    @Setup(Level.Trial)
+    public void createRepository() throws IOException {
+        projectFolder = new SyntheticRepository(commitCount, fileCount, fileLines, authorCount).create(true);
+        repository = new FileRepositoryBuilder().setGitDir(new File(projectFolder, Constants.DOT_GIT)).build();
+        commits = new ArrayList<>(commitCount);
+        try (RevWalk walker = new RevWalk(repository)) {
+            walker.markStart(walker.parseCommit(repository.resolve(Constants.HEAD)));
+            walker.forEach(commits::add);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRepository() throws IOException {
+        repository.close();
+        SyntheticRepository.delete(projectFolder);
+    }
+
+    @Benchmark
+    public void evaluateChangedLines(CommitCounter counter, Blackhole blackhole) {
+        try (GitCommitChangesEvaluator evaluator = new GitCommitChangesEvaluator(repository)) {
+            for (RevCommit commit : commits) {
+                blackhole.consume(evaluator.evaluateChangedLines(commit));
+            }
+        }
+        counter.commits += commits.size();
+    }
+}
@@ -0,0 +1,84 @@
+package com.shykhmat.vcsstatistics.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.collector.VCSStatisticsCollectorException;
+import com.shykhmat.vcsstatistics.collector.git.GitCommitCollector;
+
+/**
+ * Time to enumerate whole history of a packed repository with
+ * {@link GitCommitCollector#openWalk}, with and without bitmap traversal. The
+ * "commits" secondary result is commits per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GitCommitWalkBenchmark {
+    @Param("500000")
+    private int commitCount;
+    @Param("10")
+    private int fileCount;
+    @Param("5")
+    private int fileLines;
+    @Param("20")
+    private int authorCount;
+    @Param({ "false", "true" })
+    private boolean bitmapTraversal;
+
+    private File projectFolder;
+    private Repository repository;
+    private GitCommitCollector commitCollector;
+
+    @Setup(Level.Trial)
+    public void createRepository() throws IOException {
+        projectFolder = new SyntheticRepository(commitCount, fileCount, fileLines, authorCount).create(true);
+        repository = new FileRepositoryBuilder().setGitDir(new File(projectFolder, Constants.DOT_GIT)).build();
+        CollectorSettings settings = new CollectorSettings();
+        settings.setBitmapTraversal(bitmapTraversal);
+        commitCollector = new GitCommitCollector(settings);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRepository() throws IOException {
+        repository.close();
+        SyntheticRepository.delete(projectFolder);
+    }
+
+    @Benchmark
+    public int walkCommits(CommitCounter counter) throws VCSStatisticsCollectorException {
+        int parentCount = 0;
+        try (RevWalk walk = commitCollector.openWalk(repository, commitCollector.resolveStarts(repository).values(), Collections.emptyList(), null, null)) {
+            for (RevCommit commit : walk) {
+                parentCount += commit.getParentCount();
+                counter.commits++;
+            }
+        }
+        return parentCount;
+    }
+}
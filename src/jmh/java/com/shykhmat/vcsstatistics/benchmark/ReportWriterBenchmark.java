@@ -0,0 +1,88 @@
+package com.shykhmat.vcsstatistics.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.shykhmat.vcsstatistics.api.VCSStatisticsApi;
+import com.shykhmat.vcsstatistics.domain.ProjectReport;
+import com.shykhmat.vcsstatistics.domain.StatisticsMatrix;
+import com.shykhmat.vcsstatistics.report.ReportFormat;
+
+/**
+ * Time to write a synthetic report of several million cells with
+ * {@link VCSStatisticsApi#writeReport} in every format. The "rows" secondary
+ * result is author rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class ReportWriterBenchmark {
+    @Param("1000")
+    private int authorCount;
+    @Param("3650")
+    private int dayCount;
+    @Param("0.3")
+    private double activeDaysShare;
+    @Param({ "XLSX", "CSV", "NDJSON", "COLUMNAR" })
+    private ReportFormat format;
+
+    private ProjectReport projectReport;
+    private VCSStatisticsApi vcsStatisticsApi;
+    private File reportFile;
+
+    @Setup(Level.Trial)
+    public void createReport() throws IOException {
+        Random random = new Random(authorCount * 31L + dayCount);
+        LocalDate dateFrom = LocalDate.of(2010, 1, 1);
+        LocalDate dateTo = dateFrom.plusDays(dayCount);
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        for (int author = 0; author < authorCount; author++) {
+            int authorId = statistics.internAuthor("Author " + author);
+            for (int day = 0; day < dayCount; day++) {
+                if (random.nextDouble() < activeDaysShare) {
+                    statistics.add(authorId, dateFrom.toEpochDay() + day, random.nextInt(500));
+                }
+            }
+        }
+        projectReport = new ProjectReport("benchmark", dateFrom, dateTo, statistics);
+        vcsStatisticsApi = new VCSStatisticsApi();
+        reportFile = File.createTempFile("vcsstatistics-benchmark", "." + format.getFileExtension());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteReport() {
+        reportFile.delete();
+    }
+
+    @Benchmark
+    public long writeReport(RowCounter counter) throws IOException {
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(reportFile))) {
+            vcsStatisticsApi.writeReport(projectReport, format, output);
+        }
+        counter.rows += authorCount;
+        return reportFile.length();
+    }
+}
@@ -0,0 +1,178 @@
+package com.shykhmat.vcsstatistics.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+
+/**
+ * Generator of Git repositories with random linear history, used as input for
+ * benchmarks. Generation is deterministic for the same parameters.
+ */
+public class SyntheticRepository {
+    private static final long FIRST_COMMIT_TIME = 1500000000L;
+    private static final int MAX_COMMIT_INTERVAL = 4 * 60 * 60;
+    private static final int MAX_CHANGED_FILES = 3;
+    private static final int MAX_CHANGED_LINES = 20;
+
+    private final int commitCount;
+    private final int fileCount;
+    private final int fileLines;
+    private final int authorCount;
+    private final Random random;
+
+    /**
+     * @param commitCount
+     *            - amount of commits in generated history
+     * @param fileCount
+     *            - amount of files in repository
+     * @param fileLines
+     *            - initial amount of lines in every file
+     * @param authorCount
+     *            - amount of different commit authors
+     */
+    public SyntheticRepository(int commitCount, int fileCount, int fileLines, int authorCount) {
+        this.commitCount = commitCount;
+        this.fileCount = fileCount;
+        this.fileLines = fileLines;
+        this.authorCount = authorCount;
+        random = new Random(commitCount * 31L + fileCount);
+    }
+
+    /**
+     * Method to generate repository in a new temporary folder.
+     *
+     * @param packed
+     *            - true if generated objects should be packed with bitmap
+     *            index, false to keep them loose
+     * @return folder of generated project
+     * @throws IOException
+     *             if repository cannot be written
+     */
+    public File create(boolean packed) throws IOException {
+        File projectFolder = java.nio.file.Files.createTempDirectory("vcsstatistics-benchmark").toFile();
+        try (Repository repository = FileRepositoryBuilder.create(new File(projectFolder, Constants.DOT_GIT))) {
+            repository.create();
+            ObjectId head = writeHistory(repository, packed);
+            RefUpdate refUpdate = repository.updateRef(Constants.R_HEADS + Constants.MASTER);
+            refUpdate.setNewObjectId(head);
+            refUpdate.forceUpdate();
+            if (packed) {
+                try {
+                    new GC((FileRepository) repository).gc();
+                } catch (java.text.ParseException e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+        return projectFolder;
+    }
+
+    /**
+     * Method to remove generated project.
+     *
+     * @param projectFolder
+     *            - folder returned by {@link #create(boolean)}
+     * @throws IOException
+     *             if folder cannot be removed
+     */
+    public static void delete(File projectFolder) throws IOException {
+        MoreFiles.deleteRecursively(projectFolder.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    private ObjectId writeHistory(Repository repository, boolean packed) throws IOException {
+        List<List<String>> files = new ArrayList<>(fileCount);
+        ObjectId[] blobIds = new ObjectId[fileCount];
+        // objects that will be packed are inserted straight into a pack, so
+        // large histories do not produce millions of loose object files
+        try (ObjectInserter inserter = packed ? ((FileRepository) repository).getObjectDatabase().newPackInserter() : repository.newObjectInserter()) {
+            for (int i = 0; i < fileCount; i++) {
+                List<String> lines = new ArrayList<>(fileLines);
+                for (int j = 0; j < fileLines; j++) {
+                    lines.add(randomLine());
+                }
+                files.add(lines);
+                blobIds[i] = insertBlob(inserter, lines);
+            }
+            ObjectId parent = null;
+            long commitTime = FIRST_COMMIT_TIME;
+            for (int i = 0; i < commitCount; i++) {
+                if (i > 0) {
+                    int changedFiles = 1 + random.nextInt(Math.min(MAX_CHANGED_FILES, fileCount));
+                    for (int j = 0; j < changedFiles; j++) {
+                        int file = random.nextInt(fileCount);
+                        modify(files.get(file));
+                        blobIds[file] = insertBlob(inserter, files.get(file));
+                    }
+                }
+                commitTime += 1 + random.nextInt(MAX_COMMIT_INTERVAL);
+                parent = insertCommit(inserter, insertTree(inserter, blobIds), parent, commitTime);
+            }
+            inserter.flush();
+            return parent;
+        }
+    }
+
+    private void modify(List<String> lines) {
+        int changedLines = 1 + random.nextInt(MAX_CHANGED_LINES);
+        for (int i = 0; i < changedLines; i++) {
+            // lines are removed from files that doubled in size, so long
+            // histories do not grow blobs without limit
+            if (!lines.isEmpty() && (random.nextInt(3) == 0 || lines.size() >= 2 * fileLines)) {
+                lines.remove(random.nextInt(lines.size()));
+            } else {
+                lines.add(random.nextInt(lines.size() + 1), randomLine());
+            }
+        }
+    }
+
+    private String randomLine() {
+        return "line " + Long.toHexString(random.nextLong()) + " " + Integer.toHexString(random.nextInt());
+    }
+
+    private ObjectId insertBlob(ObjectInserter inserter, List<String> lines) throws IOException {
+        return inserter.insert(Constants.OBJ_BLOB, String.join("\n", lines).concat("\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ObjectId insertTree(ObjectInserter inserter, ObjectId[] blobIds) throws IOException {
+        TreeFormatter tree = new TreeFormatter();
+        for (int i = 0; i < blobIds.length; i++) {
+            tree.append(String.format("file-%06d.txt", i), FileMode.REGULAR_FILE, blobIds[i]);
+        }
+        return inserter.insert(tree);
+    }
+
+    private ObjectId insertCommit(ObjectInserter inserter, ObjectId tree, ObjectId parent, long commitTime) throws IOException {
+        int author = random.nextInt(authorCount);
+        PersonIdent person = new PersonIdent("Author " + author, "author" + author + "@example.com", new Date(commitTime * 1000), TimeZone.getTimeZone("UTC"));
+        CommitBuilder commit = new CommitBuilder();
+        commit.setTreeId(tree);
+        if (parent != null) {
+            commit.setParentId(parent);
+        }
+        commit.setAuthor(person);
+        commit.setCommitter(person);
+        commit.setMessage("Synthetic commit at " + commitTime);
+        return inserter.insert(commit);
+    }
+}
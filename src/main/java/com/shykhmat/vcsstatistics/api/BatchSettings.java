@@ -0,0 +1,60 @@
+package com.shykhmat.vcsstatistics.api;
+
+/**
+ * Settings that control how several projects are analyzed in a single batch.
+ */
+public class BatchSettings {
+    private static final int DEFAULT_PROJECT_CONCURRENCY = 2;
+
+    private int projectConcurrency;
+    private int workerThreads;
+    private boolean combinedReport;
+
+    public BatchSettings() {
+        projectConcurrency = DEFAULT_PROJECT_CONCURRENCY;
+        workerThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return amount of projects analyzed at the same time
+     */
+    public int getProjectConcurrency() {
+        return projectConcurrency;
+    }
+
+    public void setProjectConcurrency(int projectConcurrency) {
+        if (projectConcurrency < 1) {
+            throw new IllegalArgumentException("Project concurrency should be positive, but was " + projectConcurrency);
+        }
+        this.projectConcurrency = projectConcurrency;
+    }
+
+    /**
+     * @return total amount of worker threads used to evaluate commits of all
+     *         projects, amount of workers of a single project is additionally
+     *         limited by collector parallelism
+     */
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        if (workerThreads < 1) {
+            throw new IllegalArgumentException("Amount of worker threads should be positive, but was " + workerThreads);
+        }
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * @return true if all projects should be written into a single workbook
+     *         with a sheet per project and a sheet with author totals, false
+     *         to write a separate report for every project
+     */
+    public boolean isCombinedReport() {
+        return combinedReport;
+    }
+
+    public void setCombinedReport(boolean combinedReport) {
+        this.combinedReport = combinedReport;
+    }
+}
@@ -1,19 +1,51 @@
 package com.shykhmat.vcsstatistics.api;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.eclipse.jgit.lib.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorMetrics;
+import com.shykhmat.vcsstatistics.collector.CollectorPhase;
+import com.shykhmat.vcsstatistics.collector.CollectorProgress;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
 import com.shykhmat.vcsstatistics.collector.VCSStatisticsCollector;
 import com.shykhmat.vcsstatistics.collector.VCSStatisticsCollectorException;
+import com.shykhmat.vcsstatistics.collector.git.GitParallelCommitEvaluator;
 import com.shykhmat.vcsstatistics.collector.git.GitStatisticsCollector;
+import com.shykhmat.vcsstatistics.columnar.ColumnarReportWriter;
+import com.shykhmat.vcsstatistics.csv.CsvReportWriter;
 import com.shykhmat.vcsstatistics.domain.LinesOfCodeStatusResolver;
 import com.shykhmat.vcsstatistics.domain.ProjectReport;
 import com.shykhmat.vcsstatistics.domain.VCSType;
 import com.shykhmat.vcsstatistics.excel.ExcelWriter;
+import com.shykhmat.vcsstatistics.excel.ExcelWriterSettings;
+import com.shykhmat.vcsstatistics.json.JsonReportWriter;
+import com.shykhmat.vcsstatistics.json.NdjsonReportWriter;
+import com.shykhmat.vcsstatistics.report.ReportFormat;
+import com.shykhmat.vcsstatistics.report.ReportWriter;
 
 /**
  * Public API for statistics calculation and report generation functionality.
@@ -22,14 +54,72 @@ public class VCSStatisticsApi {
     private static final Logger LOGGER = LoggerFactory.getLogger(VCSStatisticsApi.class);
 
     private final Map<VCSType, VCSStatisticsCollector> vcsStatisticsCollectors;
+    private final CollectorSettings collectorSettings;
+    private CollectorListener collectorListener;
+    private long progressLogIntervalSeconds;
     private LinesOfCodeStatusResolver linesOfCodeStatusResolver;
     private ExcelWriter excelWriter;
+    private JsonReportWriter jsonReportWriter;
+    private ReportWriter[] reportWriters;
 
     public VCSStatisticsApi() {
-        vcsStatisticsCollectors = new HashMap<>();
-        vcsStatisticsCollectors.put(VCSType.GIT, new GitStatisticsCollector());
+        this(new CollectorSettings());
+    }
+
+    /**
+     * @param collectorSettings
+     *            - settings to be used by statistics collectors, e.g. amount
+     *            of worker threads to evaluate commits in parallel
+     */
+    public VCSStatisticsApi(CollectorSettings collectorSettings) {
+        this(collectorSettings, new ExcelWriterSettings());
+    }
+
+    /**
+     * @param collectorSettings
+     *            - settings to be used by statistics collectors
+     * @param excelWriterSettings
+     *            - settings to be used to write Excel reports
+     */
+    public VCSStatisticsApi(CollectorSettings collectorSettings, ExcelWriterSettings excelWriterSettings) {
+        this.collectorSettings = collectorSettings;
+        collectorListener = CollectorListener.NONE;
+        vcsStatisticsCollectors = createCollectors(null);
         linesOfCodeStatusResolver = new LinesOfCodeStatusResolver();
-        excelWriter = new ExcelWriter(linesOfCodeStatusResolver);
+        excelWriter = new ExcelWriter(linesOfCodeStatusResolver, excelWriterSettings);
+        jsonReportWriter = new JsonReportWriter();
+        reportWriters = new ReportWriter[ReportFormat.values().length];
+        reportWriters[ReportFormat.XLSX.ordinal()] = excelWriter;
+        reportWriters[ReportFormat.JSON.ordinal()] = jsonReportWriter;
+        reportWriters[ReportFormat.NDJSON.ordinal()] = new NdjsonReportWriter();
+        reportWriters[ReportFormat.CSV.ordinal()] = new CsvReportWriter();
+        reportWriters[ReportFormat.COLUMNAR.ordinal()] = new ColumnarReportWriter();
+    }
+
+    /**
+     * Method to set listener notified about progress of statistics collection
+     * and report generation, e.g. {@link CollectorMetrics}.
+     *
+     * @param collectorListener
+     *            - thread safe listener
+     */
+    public void setCollectorListener(CollectorListener collectorListener) {
+        this.collectorListener = collectorListener;
+        vcsStatisticsCollectors.values().forEach(collector -> collector.setCollectorListener(collectorListener));
+    }
+
+    /**
+     * Method to enable logging of progress of every statistics collection.
+     *
+     * @param progressLogIntervalSeconds
+     *            - interval between progress messages in seconds, 0 to
+     *            disable progress logging
+     */
+    public void setProgressLogInterval(long progressLogIntervalSeconds) {
+        if (progressLogIntervalSeconds < 0) {
+            throw new IllegalArgumentException("Progress log interval should not be negative, but was " + progressLogIntervalSeconds);
+        }
+        this.progressLogIntervalSeconds = progressLogIntervalSeconds;
     }
 
     /**
@@ -48,14 +138,31 @@ public class VCSStatisticsApi {
      *             if any error occurred
      */
     public ProjectReport calculateStatistics(String projectPath, VCSType vcsType, LocalDate dateFrom, LocalDate dateTo) throws VCSStatisticsCollectorException {
-        LOGGER.info("Calculating commit statistics for project {}", projectPath);
-        VCSStatisticsCollector vcsStatisticsCollector = vcsStatisticsCollectors.get(vcsType);
-        if (vcsStatisticsCollectors == null) {
-            LOGGER.error("Unsupported Version Control System type {}", vcsType);
-        } else {
-            return vcsStatisticsCollector.collectStatistics(projectPath, dateFrom, dateTo);
-        }
-        return null;
+        return calculateStatistics(vcsStatisticsCollectors, projectPath, vcsType, dateFrom, dateTo);
+    }
+
+    /**
+     * Method to calculate statistics for a project, that can be watched and
+     * cancelled from another thread.
+     *
+     * @param projectPath
+     *            - location of a project on a hard drive
+     * @param vcsType
+     *            - type of repository to be analyzed
+     * @param dateFrom
+     *            - first date in range to be analyzed
+     * @param dateTo
+     *            - last date in range to be analyzed
+     * @param progress
+     *            - handle to watch progress and to cancel collection
+     * @return - commit statistics for users for specific date range
+     * @throws VCSStatisticsCollectorException
+     *             if any error occurred, e.g.
+     *             {@link com.shykhmat.vcsstatistics.collector.CollectionCancelledException}
+     *             if collection was cancelled
+     */
+    public ProjectReport calculateStatistics(String projectPath, VCSType vcsType, LocalDate dateFrom, LocalDate dateTo, CollectorProgress progress) throws VCSStatisticsCollectorException {
+        return calculateStatistics(vcsStatisticsCollectors, projectPath, vcsType, dateFrom, dateTo, progress);
     }
 
     /**
@@ -74,9 +181,31 @@ public class VCSStatisticsApi {
      * @return true if metrics were written successfully, false in another case
      */
     public boolean writeMetricsToExcel(String projectPath, String reportPath, VCSType vcsType, LocalDate dateFrom, LocalDate dateTo) {
+        return writeMetrics(projectPath, reportPath, vcsType, dateFrom, dateTo, ReportFormat.XLSX);
+    }
+
+    /**
+     * Method to calculate metrics for project and write them into a report.
+     *
+     * @param projectPath
+     *            - location of a project to calculate metrics
+     * @param reportPath
+     *            - location of a report file with extension of the format, or
+     *            of a folder to write report named after the project
+     * @param vcsType
+     *            - type of repository to be analyzed
+     * @param dateFrom
+     *            - first date in range to be analyzed
+     * @param dateTo
+     *            - last date in range to be analyzed
+     * @param reportFormat
+     *            - format of the report
+     * @return true if metrics were written successfully, false in another case
+     */
+    public boolean writeMetrics(String projectPath, String reportPath, VCSType vcsType, LocalDate dateFrom, LocalDate dateTo, ReportFormat reportFormat) {
         try {
             ProjectReport projectReport = calculateStatistics(projectPath, vcsType, dateFrom, dateTo);
-            if (excelWriter.writeMetricsToExcel(reportPath, projectReport)) {
+            if (writeReport(reportPath, projectReport, reportFormat)) {
                 LOGGER.info("Statistics were written successfully");
                 return true;
             }
@@ -86,4 +215,283 @@ public class VCSStatisticsApi {
         return false;
     }
 
+    /**
+     * Method to write calculated report as Excel workbook into a stream.
+     *
+     * @param projectReport
+     *            - report with project commit statistics
+     * @param output
+     *            - destination of the workbook, it is not closed
+     * @throws IOException
+     *             if report cannot be written
+     */
+    public void writeMetricsToExcel(ProjectReport projectReport, OutputStream output) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            excelWriter.writeMetricsToExcel(output, projectReport);
+        } finally {
+            collectorListener.phaseCompleted(CollectorPhase.WRITE_REPORT, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Method to write calculated report in specified format into a stream.
+     *
+     * @param projectReport
+     *            - report with project commit statistics
+     * @param reportFormat
+     *            - format of the report
+     * @param output
+     *            - destination of the report, it is not closed
+     * @throws IOException
+     *             if report cannot be written
+     */
+    public void writeReport(ProjectReport projectReport, ReportFormat reportFormat, OutputStream output) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            reportWriters[reportFormat.ordinal()].writeReport(output, projectReport);
+        } finally {
+            collectorListener.phaseCompleted(CollectorPhase.WRITE_REPORT, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Method to write calculated report as JSON document.
+     *
+     * @param projectReport
+     *            - report with project commit statistics
+     * @param writer
+     *            - destination of the document, it is not closed
+     * @throws IOException
+     *             if report cannot be written
+     */
+    public void writeMetricsToJson(ProjectReport projectReport, Writer writer) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            jsonReportWriter.writeMetrics(writer, projectReport);
+        } finally {
+            collectorListener.phaseCompleted(CollectorPhase.WRITE_REPORT, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Method to calculate statistics for several projects. Projects are
+     * analyzed concurrently and their commits are evaluated on a worker pool
+     * shared between all projects, so the whole batch uses a single JVM.
+     * Projects that cannot be analyzed are logged and skipped.
+     *
+     * @param projectPaths
+     *            - locations of projects on a hard drive
+     * @param vcsType
+     *            - type of repositories to be analyzed
+     * @param dateFrom
+     *            - first date in range to be analyzed
+     * @param dateTo
+     *            - last date in range to be analyzed
+     * @param batchSettings
+     *            - concurrency limits of the batch
+     * @return commit statistics of analyzed projects in the same order as
+     *         specified project paths
+     */
+    public List<ProjectReport> calculateStatistics(List<String> projectPaths, VCSType vcsType, LocalDate dateFrom, LocalDate dateTo, BatchSettings batchSettings) {
+        return runBatch(projectPaths, batchSettings, (collectors, projectPath) -> calculateStatistics(collectors, projectPath, vcsType, dateFrom, dateTo));
+    }
+
+    /**
+     * Method to calculate metrics for several projects and write them into
+     * Excel reports, see
+     * {@link #calculateStatistics(List, VCSType, LocalDate, LocalDate, BatchSettings)}.
+     *
+     * @param projectPaths
+     *            - locations of projects to calculate metrics
+     * @param reportPath
+     *            - location of the combined report file, or of a folder for
+     *            separate reports of every project
+     * @param vcsType
+     *            - type of repositories to be analyzed
+     * @param dateFrom
+     *            - first date in range to be analyzed
+     * @param dateTo
+     *            - last date in range to be analyzed
+     * @param batchSettings
+     *            - concurrency limits of the batch and report layout
+     * @return true if metrics of all projects were written successfully,
+     *         false in another case
+     */
+    public boolean writeMetricsToExcel(List<String> projectPaths, String reportPath, VCSType vcsType, LocalDate dateFrom, LocalDate dateTo, BatchSettings batchSettings) {
+        return writeMetrics(projectPaths, reportPath, vcsType, dateFrom, dateTo, batchSettings, ReportFormat.XLSX);
+    }
+
+    /**
+     * Method to calculate metrics for several projects and write them into
+     * reports, see
+     * {@link #calculateStatistics(List, VCSType, LocalDate, LocalDate, BatchSettings)}.
+     * Combined report of all projects is supported only in
+     * {@link ReportFormat#XLSX} format.
+     *
+     * @param projectPaths
+     *            - locations of projects to calculate metrics
+     * @param reportPath
+     *            - location of the combined report file, or of a folder for
+     *            separate reports of every project
+     * @param vcsType
+     *            - type of repositories to be analyzed
+     * @param dateFrom
+     *            - first date in range to be analyzed
+     * @param dateTo
+     *            - last date in range to be analyzed
+     * @param batchSettings
+     *            - concurrency limits of the batch and report layout
+     * @param reportFormat
+     *            - format of reports
+     * @return true if metrics of all projects were written successfully,
+     *         false in another case
+     */
+    public boolean writeMetrics(List<String> projectPaths, String reportPath, VCSType vcsType, LocalDate dateFrom, LocalDate dateTo, BatchSettings batchSettings, ReportFormat reportFormat) {
+        if (batchSettings.isCombinedReport()) {
+            if (reportFormat != ReportFormat.XLSX) {
+                LOGGER.error("Combined report cannot be written in {} format", reportFormat);
+                return false;
+            }
+            List<ProjectReport> projectReports = calculateStatistics(projectPaths, vcsType, dateFrom, dateTo, batchSettings);
+            long startTime = System.nanoTime();
+            boolean written = excelWriter.writeMetricsToExcel(reportPath, projectReports);
+            collectorListener.phaseCompleted(CollectorPhase.WRITE_REPORT, System.nanoTime() - startTime);
+            if (written) {
+                LOGGER.info("Statistics of {} project(s) were written successfully", projectReports.size());
+                return projectReports.size() == projectPaths.size();
+            }
+            return false;
+        }
+        // every report is written as soon as it is calculated, so that
+        // statistics of all projects are not kept in memory
+        List<String> writtenProjects = runBatch(projectPaths, batchSettings, (collectors, projectPath) -> {
+            ProjectReport projectReport = calculateStatistics(collectors, projectPath, vcsType, dateFrom, dateTo);
+            return projectReport != null && writeReport(reportPath, projectReport, reportFormat) ? projectReport.getProjectName() : null;
+        });
+        LOGGER.info("Statistics of {} project(s) were written successfully", writtenProjects.size());
+        return writtenProjects.size() == projectPaths.size();
+    }
+
+    /**
+     * Method to find projects to be analyzed in a batch.
+     *
+     * @param location
+     *            - folder with projects as subfolders, or text file with a
+     *            project path per line; empty lines and lines that start with
+     *            '#' are ignored
+     * @return paths of found projects
+     * @throws IOException
+     *             if location cannot be read
+     */
+    public static List<String> findProjects(String location) throws IOException {
+        File locationFile = new File(location);
+        if (locationFile.isFile()) {
+            return Files.readAllLines(locationFile.toPath()).stream().map(String::trim).filter(line -> !line.isEmpty() && !line.startsWith("#")).collect(Collectors.toList());
+        }
+        File[] projectFolders = locationFile.listFiles(folder -> new File(folder, Constants.DOT_GIT).exists());
+        if (projectFolders == null) {
+            throw new IOException("Cannot list projects in " + location);
+        }
+        return Stream.of(projectFolders).map(File::getPath).sorted().collect(Collectors.toList());
+    }
+
+    private ProjectReport calculateStatistics(Map<VCSType, VCSStatisticsCollector> collectors, String projectPath, VCSType vcsType, LocalDate dateFrom, LocalDate dateTo) throws VCSStatisticsCollectorException {
+        if (progressLogIntervalSeconds == 0) {
+            return calculateStatistics(collectors, projectPath, vcsType, dateFrom, dateTo, null);
+        }
+        CollectorProgress progress = new CollectorProgress();
+        ScheduledExecutorService progressLogger = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("progress-logger-%d").setDaemon(true).build());
+        try {
+            progressLogger.scheduleAtFixedRate(() -> {
+                if (progress.isRunning()) {
+                    LOGGER.info("Progress of project {}: {}", projectPath, progress);
+                }
+            }, progressLogIntervalSeconds, progressLogIntervalSeconds, TimeUnit.SECONDS);
+            return calculateStatistics(collectors, projectPath, vcsType, dateFrom, dateTo, progress);
+        } finally {
+            progressLogger.shutdownNow();
+        }
+    }
+
+    private ProjectReport calculateStatistics(Map<VCSType, VCSStatisticsCollector> collectors, String projectPath, VCSType vcsType, LocalDate dateFrom, LocalDate dateTo, CollectorProgress progress)
+            throws VCSStatisticsCollectorException {
+        LOGGER.info("Calculating commit statistics for project {}", projectPath);
+        VCSStatisticsCollector vcsStatisticsCollector = collectors.get(vcsType);
+        if (vcsStatisticsCollector == null) {
+            LOGGER.error("Unsupported Version Control System type {}", vcsType);
+        } else {
+            ProjectReport projectReport = vcsStatisticsCollector.collectStatistics(projectPath, dateFrom, dateTo, progress);
+            if (projectReport.isTruncated()) {
+                LOGGER.warn("Statistics of project {} are incomplete, because collection exceeded its time budget", projectPath);
+            }
+            return projectReport;
+        }
+        return null;
+    }
+
+    private boolean writeReport(String reportPath, ProjectReport projectReport, ReportFormat reportFormat) {
+        long startTime = System.nanoTime();
+        try {
+            if (reportFormat == ReportFormat.XLSX) {
+                return excelWriter.writeMetricsToExcel(reportPath, projectReport);
+            }
+            File reportFile = new File(reportFormat.resolveReportPath(projectReport.getProjectName(), reportPath));
+            LOGGER.info("Writing report file {}", reportFile);
+            Files.createDirectories(reportFile.getAbsoluteFile().getParentFile().toPath());
+            try (OutputStream output = new BufferedOutputStream(new FileOutputStream(reportFile))) {
+                reportWriters[reportFormat.ordinal()].writeReport(output, projectReport);
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Error during writing statistics to {} file: ", reportFormat, e);
+            return false;
+        } finally {
+            collectorListener.phaseCompleted(CollectorPhase.WRITE_REPORT, System.nanoTime() - startTime);
+        }
+    }
+
+    private <T> List<T> runBatch(List<String> projectPaths, BatchSettings batchSettings, ProjectTask<T> projectTask) {
+        ExecutorService workerPool = GitParallelCommitEvaluator.newWorkerPool(batchSettings.getWorkerThreads());
+        ExecutorService projectPool = Executors.newFixedThreadPool(batchSettings.getProjectConcurrency(), new ThreadFactoryBuilder().setNameFormat("project-collector-%d").setDaemon(true).build());
+        try {
+            Map<VCSType, VCSStatisticsCollector> collectors = createCollectors(workerPool);
+            List<Future<T>> projects = new ArrayList<>(projectPaths.size());
+            for (String projectPath : projectPaths) {
+                projects.add(projectPool.submit(() -> projectTask.run(collectors, projectPath)));
+            }
+            List<T> results = new ArrayList<>(projectPaths.size());
+            for (int i = 0; i < projects.size(); i++) {
+                try {
+                    T result = projects.get(i).get();
+                    if (result != null) {
+                        results.add(result);
+                    }
+                } catch (ExecutionException e) {
+                    LOGGER.error("Cannot process project {} because of {}", projectPaths.get(i), e.getCause());
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Batch processing was interrupted");
+            return new ArrayList<>();
+        } finally {
+            projectPool.shutdownNow();
+            workerPool.shutdownNow();
+        }
+    }
+
+    private Map<VCSType, VCSStatisticsCollector> createCollectors(ExecutorService sharedWorkerPool) {
+        Map<VCSType, VCSStatisticsCollector> collectors = new HashMap<>();
+        collectors.put(VCSType.GIT, new GitStatisticsCollector(collectorSettings, sharedWorkerPool));
+        collectors.values().forEach(collector -> collector.setCollectorListener(collectorListener));
+        return collectors;
+    }
+
+    @FunctionalInterface
+    private interface ProjectTask<T> {
+        T run(Map<VCSType, VCSStatisticsCollector> collectors, String projectPath) throws VCSStatisticsCollectorException;
+    }
+
 }
@@ -0,0 +1,13 @@
+package com.shykhmat.vcsstatistics.collector;
+
+/**
+ * Exception that occurs when statistics collection was cancelled through
+ * {@link CollectorProgress#cancel()}.
+ */
+public class CollectionCancelledException extends VCSStatisticsCollectorException {
+    private static final long serialVersionUID = -3790427035532163861L;
+
+    public CollectionCancelledException(String message) {
+        super(message);
+    }
+}
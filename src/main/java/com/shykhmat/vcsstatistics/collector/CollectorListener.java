@@ -0,0 +1,111 @@
+package com.shykhmat.vcsstatistics.collector;
+
+/**
+ * Listener notified about progress of statistics collection. Methods may be
+ * called concurrently from several worker threads, so implementations should
+ * be thread safe. All methods do nothing by default.
+ */
+public interface CollectorListener {
+    /**
+     * Listener that ignores all notifications.
+     */
+    CollectorListener NONE = new CollectorListener() {
+    };
+
+    /**
+     * Method called for every commit selected for analysis.
+     */
+    default void commitWalked() {
+    }
+
+    /**
+     * Method called when changes of a commit were evaluated.
+     *
+     * @param nanos
+     *            - time spent to evaluate the commit in nanoseconds
+     */
+    default void commitEvaluated(long nanos) {
+    }
+
+    /**
+     * Method called when evaluation of a commit was stopped, because it
+     * exceeded time budget of a commit.
+     */
+    default void commitSkipped() {
+    }
+
+    /**
+     * Method called when changes of a commit were taken from the commit
+     * cache instead of being evaluated.
+     */
+    default void commitCacheHit() {
+    }
+
+    /**
+     * Method called when a file content was loaded to be compared.
+     *
+     * @param bytes
+     *            - size of loaded content
+     */
+    default void blobLoaded(long bytes) {
+    }
+
+    /**
+     * Method called when a changed file was compared in memory.
+     */
+    default void fileCompared() {
+    }
+
+    /**
+     * Method called when a changed file was compared by line hashes read from
+     * a stream, because it is larger than streaming file size.
+     */
+    default void largeFileStreamed() {
+    }
+
+    /**
+     * Method called when a changed file was skipped because it is binary.
+     */
+    default void binaryFileSkipped() {
+    }
+
+    /**
+     * Method called when a changed file was skipped because it is larger
+     * than allowed file size.
+     */
+    default void oversizedFileSkipped() {
+    }
+
+    /**
+     * Method called when changes of a file were taken from the cache of diff
+     * results, because the same pair of contents was already compared. File
+     * is reported as compared, streamed or binary as well.
+     */
+    default void blobDiffCacheHit() {
+    }
+
+    /**
+     * Method called at the end of every collection with usage of the cache of
+     * pack files, that is shared by all collections.
+     *
+     * @param openFiles
+     *            - amount of open pack files
+     * @param openBytes
+     *            - amount of bytes of pack files held by the cache
+     * @param limitBytes
+     *            - maximal amount of bytes held by the cache
+     */
+    default void objectCacheMeasured(int openFiles, long openBytes, long limitBytes) {
+    }
+
+    /**
+     * Method called when a phase was completed.
+     *
+     * @param phase
+     *            - completed phase
+     * @param nanos
+     *            - duration of the phase in nanoseconds
+     */
+    default void phaseCompleted(CollectorPhase phase, long nanos) {
+    }
+}
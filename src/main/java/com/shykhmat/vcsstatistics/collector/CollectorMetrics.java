@@ -0,0 +1,265 @@
+package com.shykhmat.vcsstatistics.collector;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.Files;
+import com.shykhmat.vcsstatistics.utils.JsonWriter;
+
+/**
+ * Default {@link CollectorListener} that accumulates counters, duration of
+ * every phase and latency distribution of evaluated commits. Metrics of
+ * several runs, e.g. of all projects in a batch, are summed up.
+ */
+public class CollectorMetrics implements CollectorListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CollectorMetrics.class);
+    private static final double[] PERCENTILES = { 50, 90, 99, 100 };
+
+    private final LongAdder commitsWalked = new LongAdder();
+    private final LongAdder commitsEvaluated = new LongAdder();
+    private final LongAdder commitCacheHits = new LongAdder();
+    private final LongAdder commitsSkipped = new LongAdder();
+    private final LongAdder blobsLoaded = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder filesCompared = new LongAdder();
+    private final LongAdder largeFilesStreamed = new LongAdder();
+    private final LongAdder binaryFilesSkipped = new LongAdder();
+    private final LongAdder oversizedFilesSkipped = new LongAdder();
+    private final LongAdder blobDiffCacheHits = new LongAdder();
+    private final AtomicInteger objectCacheOpenFiles = new AtomicInteger();
+    private final AtomicLong objectCacheOpenBytes = new AtomicLong();
+    private final AtomicLong objectCacheLimitBytes = new AtomicLong();
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(CollectorPhase.values().length);
+    private final LatencyHistogram commitLatencyMicros = new LatencyHistogram();
+
+    @Override
+    public void commitWalked() {
+        commitsWalked.increment();
+    }
+
+    @Override
+    public void commitEvaluated(long nanos) {
+        commitsEvaluated.increment();
+        commitLatencyMicros.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    @Override
+    public void commitSkipped() {
+        commitsSkipped.increment();
+    }
+
+    @Override
+    public void commitCacheHit() {
+        commitCacheHits.increment();
+    }
+
+    @Override
+    public void blobLoaded(long bytes) {
+        blobsLoaded.increment();
+        bytesRead.add(bytes);
+    }
+
+    @Override
+    public void fileCompared() {
+        filesCompared.increment();
+    }
+
+    @Override
+    public void largeFileStreamed() {
+        largeFilesStreamed.increment();
+    }
+
+    @Override
+    public void binaryFileSkipped() {
+        binaryFilesSkipped.increment();
+    }
+
+    @Override
+    public void oversizedFileSkipped() {
+        oversizedFilesSkipped.increment();
+    }
+
+    @Override
+    public void blobDiffCacheHit() {
+        blobDiffCacheHits.increment();
+    }
+
+    @Override
+    public void objectCacheMeasured(int openFiles, long openBytes, long limitBytes) {
+        // cache is shared by all collections, so the largest usage is kept
+        objectCacheOpenFiles.accumulateAndGet(openFiles, Math::max);
+        objectCacheOpenBytes.accumulateAndGet(openBytes, Math::max);
+        objectCacheLimitBytes.set(limitBytes);
+    }
+
+    @Override
+    public void phaseCompleted(CollectorPhase phase, long nanos) {
+        phaseNanos.addAndGet(phase.ordinal(), nanos);
+    }
+
+    /**
+     * @return human readable summary of collected metrics
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("commits walked: %d, evaluated: %d, taken from cache: %d, skipped by time budget: %d%n", commitsWalked.sum(), commitsEvaluated.sum(), commitCacheHits.sum(),
+                commitsSkipped.sum()));
+        summary.append(String.format("blobs loaded: %d, bytes read: %d%n", blobsLoaded.sum(), bytesRead.sum()));
+        summary.append(String.format("files compared in memory: %d, streamed: %d, binary skipped: %d, oversized skipped: %d, taken from diff cache: %d%n", filesCompared.sum(),
+                largeFilesStreamed.sum(), binaryFilesSkipped.sum(), oversizedFilesSkipped.sum(), blobDiffCacheHits.sum()));
+        summary.append(String.format("object cache open files: %d, open bytes: %d of %d%n", objectCacheOpenFiles.get(), objectCacheOpenBytes.get(), objectCacheLimitBytes.get()));
+        summary.append("phases:");
+        for (CollectorPhase phase : CollectorPhase.values()) {
+            summary.append(String.format(" %s %d ms", phase, TimeUnit.NANOSECONDS.toMillis(phaseNanos.get(phase.ordinal()))));
+        }
+        summary.append(String.format("%ncommit latency:"));
+        for (double percentile : PERCENTILES) {
+            summary.append(String.format(" %s %d us", getPercentileName(percentile), commitLatencyMicros.getPercentile(percentile)));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Method to log summary of collected metrics.
+     */
+    public void logSummary() {
+        LOGGER.info("Collection metrics:{}{}", System.lineSeparator(), getSummary());
+    }
+
+    /**
+     * Method to write collected metrics into JSON file.
+     *
+     * @param file
+     *            - file to write metrics
+     * @throws IOException
+     *             if file cannot be written
+     */
+    public void writeJson(File file) throws IOException {
+        Files.createParentDirs(file);
+        try (Writer writer = Files.newWriter(file, StandardCharsets.UTF_8)) {
+            writeJson(writer);
+        }
+    }
+
+    /**
+     * Method to write collected metrics as JSON.
+     *
+     * @param writer
+     *            - destination of JSON document, it is flushed but not closed
+     * @throws IOException
+     *             if metrics cannot be written
+     */
+    public void writeJson(Writer writer) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        json.beginObject();
+        json.name("commitsWalked").value(commitsWalked.sum());
+        json.name("commitsEvaluated").value(commitsEvaluated.sum());
+        json.name("commitCacheHits").value(commitCacheHits.sum());
+        json.name("commitsSkipped").value(commitsSkipped.sum());
+        json.name("blobsLoaded").value(blobsLoaded.sum());
+        json.name("bytesRead").value(bytesRead.sum());
+        json.name("filesCompared").value(filesCompared.sum());
+        json.name("largeFilesStreamed").value(largeFilesStreamed.sum());
+        json.name("binaryFilesSkipped").value(binaryFilesSkipped.sum());
+        json.name("oversizedFilesSkipped").value(oversizedFilesSkipped.sum());
+        json.name("blobDiffCacheHits").value(blobDiffCacheHits.sum());
+        json.name("objectCacheOpenFiles").value(objectCacheOpenFiles.get());
+        json.name("objectCacheOpenBytes").value(objectCacheOpenBytes.get());
+        json.name("objectCacheLimitBytes").value(objectCacheLimitBytes.get());
+        json.name("phaseMillis").beginObject();
+        for (CollectorPhase phase : CollectorPhase.values()) {
+            json.name(phase.name()).value(TimeUnit.NANOSECONDS.toMillis(phaseNanos.get(phase.ordinal())));
+        }
+        json.endObject();
+        json.name("commitLatencyMicros").beginObject();
+        for (double percentile : PERCENTILES) {
+            json.name(getPercentileName(percentile)).value(commitLatencyMicros.getPercentile(percentile));
+        }
+        json.endObject();
+        json.endObject();
+        json.flush();
+    }
+
+    public long getCommitsWalked() {
+        return commitsWalked.sum();
+    }
+
+    public long getCommitsEvaluated() {
+        return commitsEvaluated.sum();
+    }
+
+    public long getCommitCacheHits() {
+        return commitCacheHits.sum();
+    }
+
+    public long getCommitsSkipped() {
+        return commitsSkipped.sum();
+    }
+
+    public long getBlobsLoaded() {
+        return blobsLoaded.sum();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getFilesCompared() {
+        return filesCompared.sum();
+    }
+
+    public long getLargeFilesStreamed() {
+        return largeFilesStreamed.sum();
+    }
+
+    public long getBinaryFilesSkipped() {
+        return binaryFilesSkipped.sum();
+    }
+
+    public long getOversizedFilesSkipped() {
+        return oversizedFilesSkipped.sum();
+    }
+
+    public long getBlobDiffCacheHits() {
+        return blobDiffCacheHits.sum();
+    }
+
+    public int getObjectCacheOpenFiles() {
+        return objectCacheOpenFiles.get();
+    }
+
+    public long getObjectCacheOpenBytes() {
+        return objectCacheOpenBytes.get();
+    }
+
+    public long getObjectCacheLimitBytes() {
+        return objectCacheLimitBytes.get();
+    }
+
+    /**
+     * @param phase
+     *            - phase of collection
+     * @return total duration of the phase in nanoseconds
+     */
+    public long getPhaseNanos(CollectorPhase phase) {
+        return phaseNanos.get(phase.ordinal());
+    }
+
+    public LatencyHistogram getCommitLatencyMicros() {
+        return commitLatencyMicros;
+    }
+
+    private String getPercentileName(double percentile) {
+        return percentile == 100 ? "max" : "p" + (int) percentile;
+    }
+}
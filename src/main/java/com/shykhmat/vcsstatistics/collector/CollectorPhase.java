@@ -0,0 +1,13 @@
+package com.shykhmat.vcsstatistics.collector;
+
+/**
+ * Phases of statistics collection and report generation. WALK, EVALUATE,
+ * AGGREGATE and WRITE_REPORT split time of the collecting thread, in parallel
+ * mode EVALUATE is the time it waits for workers. READ_BLOBS and DIFF are
+ * measured by every worker that compares file contents and are summed over
+ * workers, so they may exceed duration of the collection. READ_BLOBS also
+ * includes detection of binary files and splitting of contents into lines.
+ */
+public enum CollectorPhase {
+    WALK, EVALUATE, READ_BLOBS, DIFF, AGGREGATE, WRITE_REPORT
+}
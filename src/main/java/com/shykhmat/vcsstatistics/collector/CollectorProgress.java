@@ -0,0 +1,142 @@
+package com.shykhmat.vcsstatistics.collector;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handle of a single statistics collection, that reports its progress and
+ * allows to cancel it from another thread. Collection checks for
+ * cancellation before every commit and fails with
+ * {@link CollectionCancelledException} as soon as it notices it.
+ * <p>
+ * Instance is thread safe and should not be reused for several collections.
+ */
+public class CollectorProgress {
+    private static final long UNKNOWN = -1;
+
+    private final AtomicLong processedCommits;
+    private volatile long estimatedTotalCommits;
+    private volatile long startTime;
+    private volatile long finishTime;
+    private volatile boolean cancelled;
+
+    public CollectorProgress() {
+        processedCommits = new AtomicLong();
+        estimatedTotalCommits = UNKNOWN;
+        startTime = UNKNOWN;
+        finishTime = UNKNOWN;
+    }
+
+    /**
+     * Method to request cancellation of the collection. Commits that are
+     * already being evaluated are not interrupted.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if cancellation was requested
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true if collection has started and has not finished yet
+     */
+    public boolean isRunning() {
+        return startTime != UNKNOWN && finishTime == UNKNOWN;
+    }
+
+    /**
+     * @return amount of commits, which changes were evaluated or taken from
+     *         cache
+     */
+    public long getProcessedCommits() {
+        return processedCommits.get();
+    }
+
+    /**
+     * @return estimated amount of commits to be processed, -1 if it is not
+     *         known yet
+     */
+    public long getEstimatedTotalCommits() {
+        return estimatedTotalCommits;
+    }
+
+    /**
+     * @return time since start of the collection, or its whole duration if it
+     *         has finished
+     */
+    public Duration getElapsedTime() {
+        if (startTime == UNKNOWN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos((finishTime == UNKNOWN ? System.nanoTime() : finishTime) - startTime);
+    }
+
+    /**
+     * @return average amount of processed commits per second since start of
+     *         the collection
+     */
+    public double getCommitsPerSecond() {
+        long elapsedNanos = getElapsedTime().toNanos();
+        return elapsedNanos == 0 ? 0 : processedCommits.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @return estimated time to process remaining commits at the average
+     *         rate, null if it cannot be estimated yet
+     */
+    public Duration getEstimatedRemainingTime() {
+        double commitsPerSecond = getCommitsPerSecond();
+        long totalCommits = estimatedTotalCommits;
+        if (totalCommits == UNKNOWN || commitsPerSecond == 0) {
+            return null;
+        }
+        long remainingCommits = Math.max(0, totalCommits - processedCommits.get());
+        return Duration.ofMillis((long) (remainingCommits * TimeUnit.SECONDS.toMillis(1) / commitsPerSecond));
+    }
+
+    /**
+     * Method called by collector when collection starts.
+     */
+    public void started() {
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Method called by collector when amount of commits to be processed is
+     * known.
+     *
+     * @param totalCommits
+     *            - estimated amount of commits to be processed
+     */
+    public void estimated(long totalCommits) {
+        estimatedTotalCommits = totalCommits;
+    }
+
+    /**
+     * Method called by collector for every processed commit.
+     */
+    public void commitProcessed() {
+        processedCommits.incrementAndGet();
+    }
+
+    /**
+     * Method called by collector when collection finishes, successfully or
+     * not.
+     */
+    public void finished() {
+        finishTime = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        Duration remainingTime = getEstimatedRemainingTime();
+        return String.format("%d/%s commit(s), %.1f commit(s)/s, ETA %s", processedCommits.get(), estimatedTotalCommits == UNKNOWN ? "?" : String.valueOf(estimatedTotalCommits),
+                getCommitsPerSecond(), remainingTime == null ? "unknown" : remainingTime.getSeconds() + " s");
+    }
+}
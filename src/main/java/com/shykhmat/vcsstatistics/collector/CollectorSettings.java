@@ -0,0 +1,432 @@
+package com.shykhmat.vcsstatistics.collector;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.diff.DiffAlgorithm.SupportedAlgorithm;
+
+import com.shykhmat.vcsstatistics.domain.Granularity;
+
+/**
+ * Settings that control how {@link VCSStatisticsCollector} implementations
+ * collect statistics.
+ */
+public class CollectorSettings {
+    private static final long DEFAULT_MAX_BLOB_SIZE = 50 * 1024 * 1024;
+    private static final long DEFAULT_STREAMING_BLOB_SIZE = 8 * 1024 * 1024;
+    private static final long DEFAULT_BLOB_DIFF_CACHE_SIZE = 100_000;
+    private static final String DEFAULT_GIT_EXECUTABLE = "git";
+
+    private int parallelism;
+    private boolean commitCacheEnabled;
+    private String cacheDirectory;
+    private boolean incremental;
+    private SupportedAlgorithm diffAlgorithm;
+    private long maxBlobSize;
+    private long streamingBlobSize;
+    private boolean keepRepositoriesOpen;
+    private boolean bitmapTraversal;
+    private List<String> refs;
+    private boolean branchStatistics;
+    private List<String> pathFilters;
+    private boolean mailmapEnabled;
+    private String aliasFile;
+    private Granularity granularity;
+    private CommitDatePolicy commitDatePolicy;
+    private ZoneId commitDateZone;
+    private boolean directoryRollup;
+    private long timeBudgetMillis;
+    private long commitTimeBudgetMillis;
+    private ObjectDatabaseSettings objectDatabaseSettings;
+    private long blobDiffCacheSize;
+    private GitBackend gitBackend;
+    private String gitExecutable;
+    private int consistencyCheckCommits;
+
+    public CollectorSettings() {
+        parallelism = Runtime.getRuntime().availableProcessors();
+        commitCacheEnabled = true;
+        diffAlgorithm = SupportedAlgorithm.MYERS;
+        maxBlobSize = DEFAULT_MAX_BLOB_SIZE;
+        streamingBlobSize = DEFAULT_STREAMING_BLOB_SIZE;
+        refs = Collections.emptyList();
+        pathFilters = Collections.emptyList();
+        mailmapEnabled = true;
+        granularity = Granularity.DAY;
+        commitDatePolicy = CommitDatePolicy.AUTHOR;
+        commitDateZone = ZoneId.systemDefault();
+        objectDatabaseSettings = new ObjectDatabaseSettings();
+        blobDiffCacheSize = DEFAULT_BLOB_DIFF_CACHE_SIZE;
+        gitBackend = GitBackend.JGIT;
+        gitExecutable = DEFAULT_GIT_EXECUTABLE;
+    }
+
+    /**
+     * @return amount of worker threads used to evaluate commit changes
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism
+     *            - amount of worker threads used to evaluate commit changes,
+     *            1 means that commits are evaluated sequentially in the
+     *            calling thread
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive, but was " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return true if evaluated commits should be stored in a persistent cache
+     */
+    public boolean isCommitCacheEnabled() {
+        return commitCacheEnabled;
+    }
+
+    public void setCommitCacheEnabled(boolean commitCacheEnabled) {
+        this.commitCacheEnabled = commitCacheEnabled;
+    }
+
+    /**
+     * @return folder to store persistent caches, null means that caches are
+     *         stored inside repository configuration folder
+     */
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * @return true if aggregated statistics should be stored between runs, so
+     *         that only commits added after the previous run are processed
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * @return algorithm used to find changed lines
+     */
+    public SupportedAlgorithm getDiffAlgorithm() {
+        return diffAlgorithm;
+    }
+
+    public void setDiffAlgorithm(SupportedAlgorithm diffAlgorithm) {
+        this.diffAlgorithm = diffAlgorithm;
+    }
+
+    /**
+     * @return maximal size of a file in bytes, larger files are not analyzed
+     */
+    public long getMaxBlobSize() {
+        return maxBlobSize;
+    }
+
+    public void setMaxBlobSize(long maxBlobSize) {
+        if (maxBlobSize < 1) {
+            throw new IllegalArgumentException("Maximal file size should be positive, but was " + maxBlobSize);
+        }
+        this.maxBlobSize = maxBlobSize;
+    }
+
+    /**
+     * @return size of a file in bytes, larger files are compared by hashes of
+     *         their lines read from a stream instead of being loaded into
+     *         memory
+     */
+    public long getStreamingBlobSize() {
+        return streamingBlobSize;
+    }
+
+    public void setStreamingBlobSize(long streamingBlobSize) {
+        if (streamingBlobSize < 0) {
+            throw new IllegalArgumentException("Streaming file size should not be negative, but was " + streamingBlobSize);
+        }
+        this.streamingBlobSize = streamingBlobSize;
+    }
+
+    /**
+     * @return true if repositories and commit caches should be kept open
+     *         between collections, e.g. by a long running service
+     */
+    public boolean isKeepRepositoriesOpen() {
+        return keepRepositoriesOpen;
+    }
+
+    public void setKeepRepositoriesOpen(boolean keepRepositoriesOpen) {
+        this.keepRepositoriesOpen = keepRepositoriesOpen;
+    }
+
+    /**
+     * @return true if commits of the whole history should be enumerated using
+     *         reachability bitmaps of pack files when repository has them
+     */
+    public boolean isBitmapTraversal() {
+        return bitmapTraversal;
+    }
+
+    public void setBitmapTraversal(boolean bitmapTraversal) {
+        this.bitmapTraversal = bitmapTraversal;
+    }
+
+    /**
+     * @return names or glob patterns of refs, which history is analyzed in a
+     *         single walk; empty list means that only HEAD is analyzed
+     */
+    public List<String> getRefs() {
+        return refs;
+    }
+
+    /**
+     * @param refs
+     *            - names or glob patterns of refs, e.g. "main",
+     *            "refs/heads/*", "refs/heads/release/*"
+     */
+    public void setRefs(List<String> refs) {
+        for (String ref : refs) {
+            if (ref.trim().isEmpty()) {
+                throw new IllegalArgumentException("Ref should not be empty");
+            }
+        }
+        this.refs = Collections.unmodifiableList(new ArrayList<>(refs));
+    }
+
+    /**
+     * @return true if totals of commit metrics should be calculated for every
+     *         analyzed ref
+     */
+    public boolean isBranchStatistics() {
+        return branchStatistics;
+    }
+
+    public void setBranchStatistics(boolean branchStatistics) {
+        this.branchStatistics = branchStatistics;
+    }
+
+    /**
+     * @return glob patterns of paths, which changes are counted; patterns
+     *         prefixed with "!" exclude paths, empty list means that all
+     *         paths are counted
+     */
+    public List<String> getPathFilters() {
+        return pathFilters;
+    }
+
+    /**
+     * @param pathFilters
+     *            - glob patterns of paths, e.g. "src/**", "!**&#47;generated/**",
+     *            "!*.lock"
+     */
+    public void setPathFilters(List<String> pathFilters) {
+        for (String pathFilter : pathFilters) {
+            if (pathFilter.matches("!?/*")) {
+                throw new IllegalArgumentException("Path filter should contain a path pattern, but was '" + pathFilter + "'");
+            }
+        }
+        this.pathFilters = Collections.unmodifiableList(new ArrayList<>(pathFilters));
+    }
+
+    /**
+     * @return true if authors should be merged according to ".mailmap" file
+     *         of the repository
+     */
+    public boolean isMailmapEnabled() {
+        return mailmapEnabled;
+    }
+
+    public void setMailmapEnabled(boolean mailmapEnabled) {
+        this.mailmapEnabled = mailmapEnabled;
+    }
+
+    /**
+     * @return path to a file in mailmap format with additional author
+     *         aliases, that override repository mailmap; null if there is no
+     *         such file
+     */
+    public String getAliasFile() {
+        return aliasFile;
+    }
+
+    public void setAliasFile(String aliasFile) {
+        this.aliasFile = aliasFile;
+    }
+
+    /**
+     * @return size of periods, which changed lines are aggregated into
+     */
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        if (granularity == null) {
+            throw new IllegalArgumentException("Granularity should be specified");
+        }
+        this.granularity = granularity;
+    }
+
+    /**
+     * @return policy to choose the day a commit is counted in
+     */
+    public CommitDatePolicy getCommitDatePolicy() {
+        return commitDatePolicy;
+    }
+
+    public void setCommitDatePolicy(CommitDatePolicy commitDatePolicy) {
+        if (commitDatePolicy == null) {
+            throw new IllegalArgumentException("Commit date policy should not be null");
+        }
+        this.commitDatePolicy = commitDatePolicy;
+    }
+
+    /**
+     * @return time zone of commit days for {@link CommitDatePolicy#ZONE}
+     *         policy, system time zone by default
+     */
+    public ZoneId getCommitDateZone() {
+        return commitDateZone;
+    }
+
+    public void setCommitDateZone(ZoneId commitDateZone) {
+        if (commitDateZone == null) {
+            throw new IllegalArgumentException("Commit date zone should not be null");
+        }
+        this.commitDateZone = commitDateZone;
+    }
+
+    /**
+     * @return true if changed lines should also be aggregated per top-level
+     *         folder of the project
+     */
+    public boolean isDirectoryRollup() {
+        return directoryRollup;
+    }
+
+    public void setDirectoryRollup(boolean directoryRollup) {
+        this.directoryRollup = directoryRollup;
+    }
+
+    /**
+     * @return maximal duration of a single collection in milliseconds, after
+     *         that commits are no longer taken and statistics of already
+     *         taken commits are reported as incomplete; 0 if it is not
+     *         limited
+     */
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        if (timeBudgetMillis < 0) {
+            throw new IllegalArgumentException("Time budget should not be negative, but was " + timeBudgetMillis);
+        }
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * @return maximal duration of evaluation of a single commit in
+     *         milliseconds, after that remaining files of the commit are not
+     *         compared and the commit is reported as skipped; 0 if it is not
+     *         limited
+     */
+    public long getCommitTimeBudgetMillis() {
+        return commitTimeBudgetMillis;
+    }
+
+    public void setCommitTimeBudgetMillis(long commitTimeBudgetMillis) {
+        if (commitTimeBudgetMillis < 0) {
+            throw new IllegalArgumentException("Commit time budget should not be negative, but was " + commitTimeBudgetMillis);
+        }
+        this.commitTimeBudgetMillis = commitTimeBudgetMillis;
+    }
+
+    /**
+     * @return settings of caches used to read pack files, that are applied
+     *         once per JVM
+     */
+    public ObjectDatabaseSettings getObjectDatabaseSettings() {
+        return objectDatabaseSettings;
+    }
+
+    public void setObjectDatabaseSettings(ObjectDatabaseSettings objectDatabaseSettings) {
+        if (objectDatabaseSettings == null) {
+            throw new IllegalArgumentException("Object database settings should not be null");
+        }
+        this.objectDatabaseSettings = objectDatabaseSettings;
+    }
+
+    /**
+     * @return maximal amount of pairs of old and new file content, which diff
+     *         results are kept in memory and reused by other commits; 0 if
+     *         results are not cached
+     */
+    public long getBlobDiffCacheSize() {
+        return blobDiffCacheSize;
+    }
+
+    public void setBlobDiffCacheSize(long blobDiffCacheSize) {
+        if (blobDiffCacheSize < 0) {
+            throw new IllegalArgumentException("Blob diff cache size should not be negative, but was " + blobDiffCacheSize);
+        }
+        this.blobDiffCacheSize = blobDiffCacheSize;
+    }
+
+    /**
+     * @return engine used to compare file contents of Git commits
+     */
+    public GitBackend getGitBackend() {
+        return gitBackend;
+    }
+
+    public void setGitBackend(GitBackend gitBackend) {
+        if (gitBackend == null) {
+            throw new IllegalArgumentException("Git backend should not be null");
+        }
+        this.gitBackend = gitBackend;
+    }
+
+    /**
+     * @return path to git executable used by {@link GitBackend#NATIVE}
+     *         backend, or its name to be found on the system path
+     */
+    public String getGitExecutable() {
+        return gitExecutable;
+    }
+
+    public void setGitExecutable(String gitExecutable) {
+        if (gitExecutable == null || gitExecutable.isEmpty()) {
+            throw new IllegalArgumentException("Git executable should not be empty");
+        }
+        this.gitExecutable = gitExecutable;
+    }
+
+    /**
+     * @return amount of processed commits, that are evaluated again by the
+     *         other Git backend to report discrepancies between backends; 0
+     *         if backends are not compared
+     */
+    public int getConsistencyCheckCommits() {
+        return consistencyCheckCommits;
+    }
+
+    public void setConsistencyCheckCommits(int consistencyCheckCommits) {
+        if (consistencyCheckCommits < 0) {
+            throw new IllegalArgumentException("Amount of commits to check should not be negative, but was " + consistencyCheckCommits);
+        }
+        this.consistencyCheckCommits = consistencyCheckCommits;
+    }
+}
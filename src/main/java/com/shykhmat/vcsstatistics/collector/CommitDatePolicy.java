@@ -0,0 +1,11 @@
+package com.shykhmat.vcsstatistics.collector;
+
+/**
+ * Policies to choose the day a commit is counted in. AUTHOR uses the author
+ * date in the time zone of the author, COMMITTER uses the commit date in the
+ * time zone of the committer, ZONE uses the commit date in the time zone from
+ * {@link CollectorSettings#getCommitDateZone()}.
+ */
+public enum CommitDatePolicy {
+    AUTHOR, COMMITTER, ZONE
+}
@@ -0,0 +1,9 @@
+package com.shykhmat.vcsstatistics.collector;
+
+/**
+ * Engines used to compare file contents of Git commits. JGIT compares them in
+ * the JVM, NATIVE streams diffs computed by a local git executable.
+ */
+public enum GitBackend {
+    JGIT, NATIVE
+}
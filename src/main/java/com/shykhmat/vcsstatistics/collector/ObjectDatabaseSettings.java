@@ -0,0 +1,178 @@
+package com.shykhmat.vcsstatistics.collector;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Settings of caches used to read objects from pack files of repositories.
+ * Caches are shared by all repositories of the JVM, so settings are applied
+ * once, when the first repository is opened. Every value equal to 0, or null
+ * for memory mapping, is sized automatically according to available heap and
+ * size of pack files of the first repository.
+ */
+public class ObjectDatabaseSettings {
+    public static final String PACKED_GIT_LIMIT = "packedGitLimit";
+    public static final String PACKED_GIT_WINDOW_SIZE = "packedGitWindowSize";
+    public static final String PACKED_GIT_MMAP = "packedGitMmap";
+    public static final String PACKED_GIT_OPEN_FILES = "packedGitOpenFiles";
+    public static final String DELTA_BASE_CACHE_LIMIT = "deltaBaseCacheLimit";
+    public static final String STREAM_FILE_THRESHOLD = "streamFileThreshold";
+    private static final int MIN_WINDOW_SIZE = 4096;
+
+    private long packedGitLimit;
+    private int packedGitWindowSize;
+    private Boolean packedGitMmap;
+    private int packedGitOpenFiles;
+    private int deltaBaseCacheLimit;
+    private int streamFileThreshold;
+
+    /**
+     * Method to load settings from a properties file. Keys are names of
+     * settings, e.g. "packedGitLimit", sizes are specified in bytes, missing
+     * keys are sized automatically.
+     *
+     * @param file
+     *            - properties file
+     * @return loaded settings
+     * @throws IOException
+     *             if file cannot be read
+     * @throws IllegalArgumentException
+     *             if a value is invalid
+     */
+    public static ObjectDatabaseSettings load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(file)) {
+            properties.load(input);
+        }
+        ObjectDatabaseSettings settings = new ObjectDatabaseSettings();
+        if (properties.containsKey(PACKED_GIT_LIMIT)) {
+            settings.setPackedGitLimit(parseLong(properties, PACKED_GIT_LIMIT));
+        }
+        if (properties.containsKey(PACKED_GIT_WINDOW_SIZE)) {
+            settings.setPackedGitWindowSize(parseInt(properties, PACKED_GIT_WINDOW_SIZE));
+        }
+        if (properties.containsKey(PACKED_GIT_MMAP)) {
+            settings.setPackedGitMmap(Boolean.valueOf(properties.getProperty(PACKED_GIT_MMAP).trim()));
+        }
+        if (properties.containsKey(PACKED_GIT_OPEN_FILES)) {
+            settings.setPackedGitOpenFiles(parseInt(properties, PACKED_GIT_OPEN_FILES));
+        }
+        if (properties.containsKey(DELTA_BASE_CACHE_LIMIT)) {
+            settings.setDeltaBaseCacheLimit(parseInt(properties, DELTA_BASE_CACHE_LIMIT));
+        }
+        if (properties.containsKey(STREAM_FILE_THRESHOLD)) {
+            settings.setStreamFileThreshold(parseInt(properties, STREAM_FILE_THRESHOLD));
+        }
+        return settings;
+    }
+
+    /**
+     * @return maximal amount of bytes of pack files kept open in the window
+     *         cache, 0 means automatic size
+     */
+    public long getPackedGitLimit() {
+        return packedGitLimit;
+    }
+
+    public void setPackedGitLimit(long packedGitLimit) {
+        if (packedGitLimit < 0) {
+            throw new IllegalArgumentException("Packed Git limit should not be negative, but was " + packedGitLimit);
+        }
+        this.packedGitLimit = packedGitLimit;
+    }
+
+    /**
+     * @return size of a single window read from a pack file in bytes, 0 means
+     *         automatic size
+     */
+    public int getPackedGitWindowSize() {
+        return packedGitWindowSize;
+    }
+
+    /**
+     * @param packedGitWindowSize
+     *            - size of a window in bytes, power of 2 not less than 4096,
+     *            or 0 for automatic size
+     */
+    public void setPackedGitWindowSize(int packedGitWindowSize) {
+        if (packedGitWindowSize != 0 && (packedGitWindowSize < MIN_WINDOW_SIZE || Integer.bitCount(packedGitWindowSize) != 1)) {
+            throw new IllegalArgumentException("Packed Git window size should be a power of 2 not less than " + MIN_WINDOW_SIZE + ", but was " + packedGitWindowSize);
+        }
+        this.packedGitWindowSize = packedGitWindowSize;
+    }
+
+    /**
+     * @return true if pack files should be memory mapped instead of being read
+     *         into heap, null means automatic choice
+     */
+    public Boolean getPackedGitMmap() {
+        return packedGitMmap;
+    }
+
+    public void setPackedGitMmap(Boolean packedGitMmap) {
+        this.packedGitMmap = packedGitMmap;
+    }
+
+    /**
+     * @return maximal amount of pack files kept open, 0 means automatic amount
+     */
+    public int getPackedGitOpenFiles() {
+        return packedGitOpenFiles;
+    }
+
+    public void setPackedGitOpenFiles(int packedGitOpenFiles) {
+        if (packedGitOpenFiles < 0) {
+            throw new IllegalArgumentException("Packed Git open files should not be negative, but was " + packedGitOpenFiles);
+        }
+        this.packedGitOpenFiles = packedGitOpenFiles;
+    }
+
+    /**
+     * @return maximal amount of bytes of inflated delta bases cached by every
+     *         reader, that is by every worker thread; 0 means automatic size
+     */
+    public int getDeltaBaseCacheLimit() {
+        return deltaBaseCacheLimit;
+    }
+
+    public void setDeltaBaseCacheLimit(int deltaBaseCacheLimit) {
+        if (deltaBaseCacheLimit < 0) {
+            throw new IllegalArgumentException("Delta base cache limit should not be negative, but was " + deltaBaseCacheLimit);
+        }
+        this.deltaBaseCacheLimit = deltaBaseCacheLimit;
+    }
+
+    /**
+     * @return size of an object in bytes, larger objects are streamed instead
+     *         of being inflated into memory; 0 means automatic size
+     */
+    public int getStreamFileThreshold() {
+        return streamFileThreshold;
+    }
+
+    public void setStreamFileThreshold(int streamFileThreshold) {
+        if (streamFileThreshold < 0) {
+            throw new IllegalArgumentException("Stream file threshold should not be negative, but was " + streamFileThreshold);
+        }
+        this.streamFileThreshold = streamFileThreshold;
+    }
+
+    private static long parseLong(Properties properties, String key) {
+        try {
+            return Long.parseLong(properties.getProperty(key).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Setting " + key + " should be a number, but was " + properties.getProperty(key));
+        }
+    }
+
+    private static int parseInt(Properties properties, String key) {
+        long value = parseLong(properties, key);
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Setting " + key + " should not be greater than " + Integer.MAX_VALUE + ", but was " + value);
+        }
+        return (int) value;
+    }
+}
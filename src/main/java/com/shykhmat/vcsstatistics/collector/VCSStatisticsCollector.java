@@ -21,5 +21,38 @@ public interface VCSStatisticsCollector {
      * @throws VCSStatisticsCollectorException
      *             in case of any error occurred during statistics collection
      */
-    ProjectReport collectStatistics(String projectPath, LocalDate dateFrom, LocalDate dateTo) throws VCSStatisticsCollectorException;
+    default ProjectReport collectStatistics(String projectPath, LocalDate dateFrom, LocalDate dateTo) throws VCSStatisticsCollectorException {
+        return collectStatistics(projectPath, dateFrom, dateTo, null);
+    }
+
+    /**
+     * Method to calculate statistics for a project, that reports progress and
+     * can be cancelled through a handle.
+     *
+     * @param projectPath
+     *            - location of a project on a hard drive
+     * @param dateFrom
+     *            - first date in range to be analyzed
+     * @param dateTo
+     *            - last date in range to be analyzed
+     * @param progress
+     *            - handle to report progress and to check for cancellation,
+     *            null if progress is not needed
+     * @return - commit statistics for users for specific date range
+     * @throws CollectionCancelledException
+     *             if collection was cancelled through the handle
+     * @throws VCSStatisticsCollectorException
+     *             in case of any error occurred during statistics collection
+     */
+    ProjectReport collectStatistics(String projectPath, LocalDate dateFrom, LocalDate dateTo, CollectorProgress progress) throws VCSStatisticsCollectorException;
+
+    /**
+     * Method to set listener notified about progress of statistics
+     * collection.
+     *
+     * @param listener
+     *            - thread safe listener, {@link CollectorListener#NONE} to
+     *            disable notifications
+     */
+    void setCollectorListener(CollectorListener listener);
 }
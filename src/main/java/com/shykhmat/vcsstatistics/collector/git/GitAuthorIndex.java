@@ -0,0 +1,127 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.util.RawParseUtils;
+
+import com.shykhmat.vcsstatistics.domain.StatisticsMatrix;
+
+/**
+ * Index of commit authors, that maps author identity of a commit to an author
+ * id of {@link StatisticsMatrix}. Every distinct identity ("Name &lt;email&gt;"
+ * bytes of the raw commit) is resolved with mailmap only once, later commits
+ * of the same identity are mapped by a lookup of raw bytes without parsing or
+ * creating strings. Instance is not thread safe.
+ */
+class GitAuthorIndex {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final StatisticsMatrix statistics;
+    private final GitMailmap mailmap;
+    private byte[][] identities;
+    private int[] identityHashes;
+    private int[] authorIds;
+    private int size;
+
+    /**
+     * @param statistics
+     *            - statistics which author ids are returned
+     * @param mailmap
+     *            - mapping of identities to canonical author names
+     */
+    GitAuthorIndex(StatisticsMatrix statistics, GitMailmap mailmap) {
+        this.statistics = statistics;
+        this.mailmap = mailmap;
+        identities = new byte[INITIAL_CAPACITY][];
+        identityHashes = new int[INITIAL_CAPACITY];
+        authorIds = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Method to find author of a commit. Committer is used if commit has no
+     * author.
+     *
+     * @param rawCommit
+     *            - raw commit
+     * @return author id in statistics
+     */
+    int resolve(byte[] rawCommit) {
+        int identityStart = RawParseUtils.author(rawCommit, 0);
+        if (identityStart < 0) {
+            identityStart = RawParseUtils.committer(rawCommit, 0);
+        }
+        int identityEnd = findIdentityEnd(rawCommit, identityStart);
+        int hash = hash(rawCommit, identityStart, identityEnd);
+        int mask = identities.length - 1;
+        int slot = hash & mask;
+        while (identities[slot] != null) {
+            if (identityHashes[slot] == hash && matches(identities[slot], rawCommit, identityStart, identityEnd)) {
+                return authorIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        PersonIdent person = RawParseUtils.parsePersonIdent(rawCommit, identityStart);
+        int authorId = statistics.internAuthor(mailmap.resolveName(person.getName(), person.getEmailAddress()));
+        byte[] identity = new byte[identityEnd - identityStart];
+        System.arraycopy(rawCommit, identityStart, identity, 0, identity.length);
+        identities[slot] = identity;
+        identityHashes[slot] = hash;
+        authorIds[slot] = authorId;
+        if (++size * 2 > identities.length) {
+            grow();
+        }
+        return authorId;
+    }
+
+    private static int findIdentityEnd(byte[] rawCommit, int identityStart) {
+        // identity is followed by time and time zone of the commit, which are
+        // not a part of the key
+        int lineEnd = RawParseUtils.nextLF(rawCommit, identityStart);
+        for (int i = lineEnd - 1; i >= identityStart; i--) {
+            if (rawCommit[i] == '>') {
+                return i + 1;
+            }
+        }
+        return lineEnd;
+    }
+
+    private static int hash(byte[] bytes, int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(byte[] identity, byte[] bytes, int start, int end) {
+        if (identity.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < identity.length; i++) {
+            if (identity[i] != bytes[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        byte[][] oldIdentities = identities;
+        int[] oldHashes = identityHashes;
+        int[] oldAuthorIds = authorIds;
+        identities = new byte[oldIdentities.length * 2][];
+        identityHashes = new int[identities.length];
+        authorIds = new int[identities.length];
+        int mask = identities.length - 1;
+        for (int i = 0; i < oldIdentities.length; i++) {
+            if (oldIdentities[i] != null) {
+                int slot = oldHashes[i] & mask;
+                while (identities[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                identities[slot] = oldIdentities[i];
+                identityHashes[slot] = oldHashes[i];
+                authorIds[slot] = oldAuthorIds[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.collector.GitBackend;
+import com.shykhmat.vcsstatistics.collector.VCSStatisticsCollectorException;
+import com.shykhmat.vcsstatistics.collector.git.GitParallelCommitEvaluator.CommitMetricsConsumer;
+import com.shykhmat.vcsstatistics.domain.CommitMetric;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+
+/**
+ * Comparison of metrics evaluated by both Git backends. Commits processed by
+ * the configured backend are sampled uniformly by reservoir sampling with a
+ * fixed seed, so the same history gives the same sample, and sampled commits
+ * are evaluated again by the other backend without any cache.
+ */
+class GitBackendConsistencyCheck {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitBackendConsistencyCheck.class);
+    private static final CommitMetric[] METRICS = CommitMetric.values();
+    private static final long SEED = 0x5eed;
+
+    private final CollectorSettings settings;
+    private final ExecutorService sharedWorkerPool;
+    private final int sampleSize;
+    private final List<RevCommit> commits;
+    private final List<CommitMetrics> metrics;
+    private final Random random;
+    private long sampledCommits;
+
+    /**
+     * @param settings
+     *            - collector settings, including size of the sample and the
+     *            configured backend
+     * @param sharedWorkerPool
+     *            - pool to evaluate commits by JGit, null to create a pool
+     */
+    GitBackendConsistencyCheck(CollectorSettings settings, ExecutorService sharedWorkerPool) {
+        this.settings = settings;
+        this.sharedWorkerPool = sharedWorkerPool;
+        sampleSize = settings.getConsistencyCheckCommits();
+        commits = new ArrayList<>(sampleSize);
+        metrics = new ArrayList<>(sampleSize);
+        random = new Random(SEED);
+    }
+
+    /**
+     * Method to offer an evaluated commit to the sample. Commits skipped by
+     * time budget are not sampled.
+     *
+     * @param commit
+     *            - evaluated commit
+     * @param commitMetrics
+     *            - metrics of the commit, they are copied
+     */
+    void sample(RevCommit commit, CommitMetrics commitMetrics) {
+        if (commitMetrics.isSkipped()) {
+            return;
+        }
+        sampledCommits++;
+        int index = sampledCommits <= sampleSize ? commits.size() : (int) (random.nextDouble() * sampledCommits);
+        if (index >= sampleSize) {
+            return;
+        }
+        CommitMetrics copy = new CommitMetrics();
+        copy.add(commitMetrics);
+        if (index == commits.size()) {
+            commits.add(commit);
+            metrics.add(copy);
+        } else {
+            commits.set(index, commit);
+            metrics.set(index, copy);
+        }
+    }
+
+    /**
+     * Method to evaluate sampled commits by the other backend and to log every
+     * commit with different metrics.
+     *
+     * @param repository
+     *            - Git repository that contains commits
+     * @return amount of commits with different metrics
+     * @throws VCSStatisticsCollectorException
+     *             if commits cannot be evaluated
+     */
+    int check(Repository repository) throws VCSStatisticsCollectorException {
+        GitBackend backend = settings.getGitBackend();
+        GitBackend otherBackend = backend == GitBackend.NATIVE ? GitBackend.JGIT : GitBackend.NATIVE;
+        int[] index = new int[1];
+        int[] discrepancies = new int[1];
+        CommitMetricsConsumer consumer = (commit, otherMetrics, directoryChanges) -> {
+            CommitMetrics expectedMetrics = metrics.get(index[0]++);
+            if (!otherMetrics.isSkipped() && !equal(expectedMetrics, otherMetrics)) {
+                discrepancies[0]++;
+                LOGGER.warn("Metrics of commit {} differ between backends, {}: {}, {}: {}", commit.getId().name(), backend, expectedMetrics, otherBackend, otherMetrics);
+            }
+        };
+        if (otherBackend == GitBackend.NATIVE) {
+            new GitNativeCommitEvaluator(settings, CollectorListener.NONE).evaluateCommits(repository, commits.iterator(), consumer);
+        } else {
+            new GitParallelCommitEvaluator(settings, GitCommitChangesCache.disabled(), GitBlobDiffCache.disabled(), sharedWorkerPool, CollectorListener.NONE).evaluateCommits(repository,
+                    commits.iterator(), consumer);
+        }
+        if (discrepancies[0] > 0) {
+            LOGGER.warn("Consistency check of {} commit(s) found {} commit(s) with different metrics", commits.size(), discrepancies[0]);
+        } else {
+            LOGGER.info("Consistency check of {} commit(s) found no differences between {} and {} backends", commits.size(), backend, otherBackend);
+        }
+        return discrepancies[0];
+    }
+
+    private static boolean equal(CommitMetrics first, CommitMetrics second) {
+        for (CommitMetric metric : METRICS) {
+            if (first.get(metric) != second.get(metric)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,99 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.eclipse.jgit.lib.BitmapIndex;
+import org.eclipse.jgit.lib.BitmapIndex.BitmapBuilder;
+import org.eclipse.jgit.lib.BitmapObject;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.BitmapWalker;
+import org.eclipse.jgit.revwalk.ObjectWalk;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+
+/**
+ * Walk over commits, that enumerates them using reachability bitmaps of pack
+ * files instead of following parent links from commit to commit. Set of
+ * walked commits is computed with bitmap operations, so only headers of
+ * commits that are actually returned are parsed, and they are returned in
+ * pack order, which keeps reads from pack files mostly sequential. Commits
+ * are not sorted by time, so the walk is not suitable for filters that stop
+ * the walk at the first commit out of range.
+ */
+class GitBitmapRevWalk extends GitRevWalk {
+    private final RevFilter filter;
+    private Iterator<BitmapObject> objects;
+
+    /**
+     * @param repository
+     *            - Git repository
+     * @param filter
+     *            - filter of returned commits, it should not rely on commit
+     *            order
+     */
+    GitBitmapRevWalk(Repository repository, RevFilter filter) {
+        super(repository);
+        this.filter = filter;
+        objects = Collections.emptyIterator();
+    }
+
+    /**
+     * Method to mark commits that should be walked.
+     *
+     * @param starts
+     *            - commits which history should be walked
+     * @param uninteresting
+     *            - commits which history should be excluded
+     * @return false if repository has no bitmap index, so the walk cannot be
+     *         used
+     * @throws IOException
+     *             if commits cannot be read
+     */
+    boolean markReachable(Collection<? extends ObjectId> starts, Collection<? extends ObjectId> uninteresting) throws IOException {
+        BitmapIndex bitmapIndex = getObjectReader().getBitmapIndex();
+        if (bitmapIndex == null) {
+            return false;
+        }
+        // bitmaps of all starts are merged by the walker, so shared history
+        // is enumerated once
+        BitmapBuilder reachableObjects = findReachableObjects(bitmapIndex, starts);
+        if (!uninteresting.isEmpty()) {
+            reachableObjects.andNot(findReachableObjects(bitmapIndex, uninteresting));
+        }
+        objects = reachableObjects.iterator();
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RevCommit next() throws IOException {
+        while (objects.hasNext()) {
+            BitmapObject object = objects.next();
+            if (object.getType() != Constants.OBJ_COMMIT) {
+                continue;
+            }
+            RevCommit commit = lookupCommit(object.getObjectId());
+            parseHeaders(commit);
+            if (filter.include(this, commit)) {
+                return commit;
+            }
+        }
+        return null;
+    }
+
+    private BitmapBuilder findReachableObjects(BitmapIndex bitmapIndex, Collection<? extends ObjectId> starts) throws IOException {
+        // commits created after the last repack are not covered by bitmaps
+        // and are walked by the object walk
+        try (ObjectWalk objectWalk = new ObjectWalk(getObjectReader())) {
+            return new BitmapWalker(objectWalk, bitmapIndex, NullProgressMonitor.INSTANCE).findObjects(starts, null, false);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Bounded in-memory cache of diff results per pair of old and new file
+ * content. Content of a blob never changes, so the same pair produces the
+ * same insertions and deletions in any commit and any repository, e.g. when a
+ * change is cherry-picked, reverted twice or backported to several branches.
+ * Least recently used pairs are evicted when cache is full.
+ * <p>
+ * Results depend on diff algorithm and maximal file size, so a cache should
+ * be shared only by evaluators with the same settings. Instance is thread
+ * safe.
+ */
+public class GitBlobDiffCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitBlobDiffCache.class);
+
+    private final Cache<BlobPair, long[]> diffs;
+
+    private GitBlobDiffCache(Cache<BlobPair, long[]> diffs) {
+        this.diffs = diffs;
+    }
+
+    /**
+     * @param maximumSize
+     *            - maximal amount of cached pairs
+     * @return empty cache
+     */
+    public static GitBlobDiffCache create(long maximumSize) {
+        return new GitBlobDiffCache(CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build());
+    }
+
+    /**
+     * @return cache that neither stores nor returns any values
+     */
+    public static GitBlobDiffCache disabled() {
+        return new GitBlobDiffCache(null);
+    }
+
+    /**
+     * @param oldId
+     *            - id of old content, zero id for an added file
+     * @param newId
+     *            - id of new content, zero id for a deleted file
+     * @return cached insertions and deletions, empty array for binary content,
+     *         null if the pair was not evaluated yet; returned array must not
+     *         be changed
+     */
+    public long[] get(AnyObjectId oldId, AnyObjectId newId) {
+        if (diffs == null) {
+            return null;
+        }
+        return diffs.getIfPresent(new BlobPair(oldId, newId));
+    }
+
+    /**
+     * @param oldId
+     *            - id of old content, zero id for an added file
+     * @param newId
+     *            - id of new content, zero id for a deleted file
+     * @param counts
+     *            - insertions and deletions, empty array for binary content;
+     *            array must not be changed afterwards
+     */
+    public void put(AnyObjectId oldId, AnyObjectId newId, long[] counts) {
+        if (diffs != null) {
+            diffs.put(new BlobPair(oldId.copy(), newId.copy()), counts);
+        }
+    }
+
+    /**
+     * Method to log hit rate and size of the cache.
+     */
+    public void logStatistics() {
+        if (diffs == null) {
+            return;
+        }
+        CacheStats statistics = diffs.stats();
+        LOGGER.info("Blob diff cache: {} hit(s), {} miss(es), hit rate {}%, {} entries, {} eviction(s)", statistics.hitCount(), statistics.missCount(),
+                String.format("%.1f", statistics.hitRate() * 100), diffs.size(), statistics.evictionCount());
+    }
+
+    /**
+     * @return true if cache stores values
+     */
+    public boolean isEnabled() {
+        return diffs != null;
+    }
+
+    private static final class BlobPair {
+        private final ObjectId oldId;
+        private final ObjectId newId;
+
+        BlobPair(AnyObjectId oldId, AnyObjectId newId) {
+            this.oldId = oldId.toObjectId();
+            this.newId = newId.toObjectId();
+        }
+
+        @Override
+        public int hashCode() {
+            return oldId.hashCode() * 31 + newId.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof BlobPair)) {
+                return false;
+            }
+            BlobPair pair = (BlobPair) object;
+            return oldId.equals(pair.oldId) && newId.equals(pair.newId);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+
+/**
+ * Walk over commits, that knows which of the analyzed branches every commit
+ * is reachable from. Reachability is computed by a single walk over commit
+ * headers in topological order before the walk is used, every commit keeps a
+ * bitset with a bit per branch, so commits are neither walked once per branch
+ * nor counted once per branch.
+ * <p>
+ * Bitsets are never changed after they are assigned, so a commit with a
+ * single child shares the bitset of the child, and new bitset is allocated
+ * only where branches join.
+ */
+class GitBranchRevWalk extends GitRevWalk {
+    private static final long[] NO_BRANCHES = new long[0];
+
+    /**
+     * @param repository
+     *            - Git repository
+     */
+    GitBranchRevWalk(Repository repository) {
+        super(repository);
+    }
+
+    /**
+     * Method to compute branches every commit is reachable from. The walk is
+     * reset afterwards, so it should be configured only after this method.
+     *
+     * @param tips
+     *            - last commits of branches, index of a commit in the list is
+     *            the index of its bit
+     * @param uninteresting
+     *            - commits which history should be excluded
+     * @throws IOException
+     *             if commits cannot be read
+     */
+    void markBranches(List<? extends ObjectId> tips, Collection<? extends ObjectId> uninteresting) throws IOException {
+        int words = (tips.size() + Long.SIZE - 1) / Long.SIZE;
+        for (int branch = 0; branch < tips.size(); branch++) {
+            BranchCommit tip = (BranchCommit) parseCommit(tips.get(branch));
+            long[] branches = tip.branches == null ? new long[words] : tip.branches.clone();
+            branches[branch / Long.SIZE] |= 1L << branch;
+            tip.branches = branches;
+            markStart(tip);
+        }
+        for (ObjectId commit : uninteresting) {
+            markUninteresting(parseCommit(commit));
+        }
+        sort(RevSort.TOPO);
+        // children are returned before parents, so bitset of a commit is
+        // complete when it is returned
+        for (RevCommit commit = next(); commit != null; commit = next()) {
+            long[] branches = ((BranchCommit) commit).branches;
+            for (RevCommit parent : commit.getParents()) {
+                BranchCommit branchParent = (BranchCommit) parent;
+                branchParent.branches = union(branchParent.branches, branches);
+            }
+        }
+        reset();
+    }
+
+    /**
+     * @param commit
+     *            - commit returned by this walk
+     * @return bitset of branches the commit is reachable from, bit of a branch
+     *         is its index in the list of tips; returned array must not be
+     *         changed
+     */
+    long[] getBranches(RevCommit commit) {
+        long[] branches = ((BranchCommit) commit).branches;
+        return branches == null ? NO_BRANCHES : branches;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RevCommit createCommit(AnyObjectId id) {
+        return new BranchCommit(id);
+    }
+
+    private static long[] union(long[] target, long[] source) {
+        if (target == null || target == source) {
+            return source;
+        }
+        for (int i = 0; i < source.length; i++) {
+            if ((source[i] & ~target[i]) != 0) {
+                long[] union = Arrays.copyOf(target, target.length);
+                for (int j = i; j < source.length; j++) {
+                    union[j] |= source[j];
+                }
+                return union;
+            }
+        }
+        return target;
+    }
+
+    private static class BranchCommit extends DatedCommit {
+        private static final long serialVersionUID = -8020616410719513312L;
+
+        private long[] branches;
+
+        BranchCommit(AnyObjectId id) {
+            super(id);
+        }
+    }
+}
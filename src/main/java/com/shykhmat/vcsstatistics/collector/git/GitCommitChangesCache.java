@@ -0,0 +1,284 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.Files;
+import com.shykhmat.vcsstatistics.domain.CommitMetric;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+
+/**
+ * Persistent cache of {@link CommitMetrics} per commit. Metrics of an existing
+ * commit never change, so once evaluated they can be reused by all subsequent
+ * runs.
+ * <p>
+ * File layout: magic number, format version and a fingerprint of the diff
+ * settings that produced the values, followed by append-only fixed-size
+ * records of commit id (20 bytes), every {@link CommitMetric} in ordinal order
+ * (8 bytes each) and CRC32 of both (4 bytes). Cache is discarded when
+ * version or fingerprint do not match, records with wrong checksum or
+ * truncated records are skipped and the file is rewritten on close. Caches
+ * of the process, that share a file, write it one at a time, and a cache
+ * rewrites the file instead of appending to it when the file was rewritten
+ * with other settings in the meantime.
+ * <p>
+ * Instance is thread safe.
+ */
+public class GitCommitChangesCache implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitCommitChangesCache.class);
+    private static final int MAGIC = 0x56435343;
+    private static final int FORMAT_VERSION = 2;
+    private static final CommitMetric[] METRICS = CommitMetric.values();
+    private static final int RECORD_SIZE = Constants.OBJECT_ID_LENGTH + METRICS.length * Long.BYTES + Integer.BYTES;
+
+    private final File cacheFile;
+    private final String settingsFingerprint;
+    private final Map<ObjectId, long[]> commitMetrics;
+    private final Queue<ObjectId> pendingCommits;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private boolean rewriteRequired;
+
+    private GitCommitChangesCache(File cacheFile, String settingsFingerprint) {
+        this.cacheFile = cacheFile;
+        this.settingsFingerprint = settingsFingerprint;
+        commitMetrics = new ConcurrentHashMap<>();
+        pendingCommits = new ConcurrentLinkedQueue<>();
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+    }
+
+    /**
+     * Method to open cache stored in specified file.
+     *
+     * @param cacheFile
+     *            - file with cached values, created if it does not exist
+     * @param settingsFingerprint
+     *            - description of diff settings, cached values produced with
+     *            other settings are discarded
+     * @return opened cache
+     */
+    public static GitCommitChangesCache open(File cacheFile, String settingsFingerprint) {
+        GitCommitChangesCache cache = new GitCommitChangesCache(cacheFile, settingsFingerprint);
+        cache.load();
+        return cache;
+    }
+
+    /**
+     * @return cache that neither stores nor returns any values
+     */
+    public static GitCommitChangesCache disabled() {
+        return new GitCommitChangesCache(null, null);
+    }
+
+    /**
+     * @param commitId
+     *            - id of a commit
+     * @param metrics
+     *            - metrics to add cached values to
+     * @return true if cached values were added, false if commit was not
+     *         evaluated yet
+     */
+    public boolean get(AnyObjectId commitId, CommitMetrics metrics) {
+        if (cacheFile == null) {
+            return false;
+        }
+        long[] cachedMetrics = commitMetrics.get(commitId);
+        if (cachedMetrics == null) {
+            misses.incrementAndGet();
+            return false;
+        }
+        hits.incrementAndGet();
+        for (CommitMetric metric : METRICS) {
+            metrics.add(metric, cachedMetrics[metric.ordinal()]);
+        }
+        return true;
+    }
+
+    /**
+     * @param commitId
+     *            - id of a commit
+     * @param metrics
+     *            - evaluated metrics of the commit
+     */
+    public void put(AnyObjectId commitId, CommitMetrics metrics) {
+        if (cacheFile == null) {
+            return;
+        }
+        long[] values = new long[METRICS.length];
+        for (CommitMetric metric : METRICS) {
+            values[metric.ordinal()] = metrics.get(metric);
+        }
+        ObjectId id = commitId.copy();
+        if (commitMetrics.putIfAbsent(id, values) == null) {
+            pendingCommits.add(id);
+        }
+    }
+
+    /**
+     * Method to store new values into cache file.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Method to store new values into cache file, cache stays usable
+     * afterwards.
+     */
+    public synchronized void flush() {
+        if (cacheFile == null) {
+            return;
+        }
+        List<ObjectId> newCommits = new ArrayList<>();
+        for (ObjectId commitId = pendingCommits.poll(); commitId != null; commitId = pendingCommits.poll()) {
+            newCommits.add(commitId);
+        }
+        LOGGER.info("Commit cache {}: {} hit(s), {} miss(es), {} new entries", cacheFile, hits.getAndSet(0), misses.getAndSet(0), newCommits.size());
+        try {
+            synchronized (GitFileLocks.forFile(cacheFile)) {
+                // file may have been rewritten with other settings by another
+                // cache since it was loaded
+                if (rewriteRequired || !hasOwnHeader()) {
+                    rewrite();
+                } else if (!newCommits.isEmpty()) {
+                    try (OutputStream output = new FileOutputStream(cacheFile, true)) {
+                        output.write(toRecords(newCommits));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Cannot write commit cache {} because of {}", cacheFile, e);
+        }
+    }
+
+    private void load() {
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION || !settingsFingerprint.equals(input.readUTF())) {
+                LOGGER.info("Commit cache {} was created by other version or diff settings and will be rebuilt", cacheFile);
+                rewriteRequired = true;
+                return;
+            }
+            readRecords(input);
+        } catch (EOFException e) {
+            LOGGER.warn("Commit cache {} has corrupted header and will be rebuilt", cacheFile);
+            rewriteRequired = true;
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read commit cache {} because of {}, it will be rebuilt", cacheFile, e);
+            commitMetrics.clear();
+            rewriteRequired = true;
+        }
+        LOGGER.info("Loaded {} cached commit(s) from {}", commitMetrics.size(), cacheFile);
+    }
+
+    private void readRecords(InputStream input) throws IOException {
+        byte[] record = new byte[RECORD_SIZE];
+        ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+        CRC32 checksum = new CRC32();
+        int corruptedRecords = 0;
+        int read;
+        while ((read = readRecord(input, record)) == RECORD_SIZE) {
+            checksum.reset();
+            checksum.update(record, 0, RECORD_SIZE - Integer.BYTES);
+            if ((int) checksum.getValue() == recordBuffer.getInt(RECORD_SIZE - Integer.BYTES)) {
+                long[] values = new long[METRICS.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = recordBuffer.getLong(Constants.OBJECT_ID_LENGTH + i * Long.BYTES);
+                }
+                commitMetrics.put(ObjectId.fromRaw(record), values);
+            } else {
+                corruptedRecords++;
+            }
+        }
+        if (corruptedRecords > 0 || read > 0) {
+            LOGGER.warn("Commit cache {} contains {} corrupted and {} truncated record(s), they will be dropped", cacheFile, corruptedRecords, read > 0 ? 1 : 0);
+            rewriteRequired = true;
+        }
+    }
+
+    private int readRecord(InputStream input, byte[] record) throws IOException {
+        int read = 0;
+        while (read < record.length) {
+            int count = input.read(record, read, record.length - read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        return read;
+    }
+
+    private boolean hasOwnHeader() throws IOException {
+        if (!cacheFile.isFile()) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            return input.readInt() == MAGIC && input.readInt() == FORMAT_VERSION && settingsFingerprint.equals(input.readUTF());
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private void rewrite() throws IOException {
+        Files.createParentDirs(cacheFile);
+        File temporaryFile = GitFileLocks.createTemporaryFile(cacheFile);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new FileOutputStream(temporaryFile))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(settingsFingerprint);
+                output.write(toRecords(new ArrayList<>(commitMetrics.keySet())));
+            }
+            Files.move(temporaryFile, cacheFile);
+        } finally {
+            temporaryFile.delete();
+        }
+        rewriteRequired = false;
+    }
+
+    private byte[] toRecords(Collection<ObjectId> commitIds) {
+        ByteBuffer records = ByteBuffer.allocate(commitIds.size() * RECORD_SIZE);
+        byte[] recordBytes = records.array();
+        CRC32 checksum = new CRC32();
+        for (ObjectId commitId : commitIds) {
+            int recordOffset = records.position();
+            commitId.copyRawTo(recordBytes, recordOffset);
+            records.position(recordOffset + Constants.OBJECT_ID_LENGTH);
+            for (long value : commitMetrics.get(commitId)) {
+                records.putLong(value);
+            }
+            checksum.reset();
+            checksum.update(recordBytes, recordOffset, RECORD_SIZE - Integer.BYTES);
+            records.putInt((int) checksum.getValue());
+        }
+        return recordBytes;
+    }
+}
@@ -3,78 +3,363 @@ package com.shykhmat.vcsstatistics.collector.git;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffConfig;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.Edit;
-import org.eclipse.jgit.diff.MyersDiff;
-import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.EditList;
 import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.diff.SequenceComparator;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.patch.FileHeader;
+import org.eclipse.jgit.patch.FileHeader.PatchType;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorPhase;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.domain.CommitMetric;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+
 /**
- * Class to analyze commits and find differences.
+ * Class to analyze commits and find differences. Instance owns its own
+ * {@link ObjectReader} and {@link DiffFormatter}, so it should be confined to
+ * a single thread and closed after use. Time spent to read and to compare file
+ * contents is measured separately and reported when the instance is closed.
  */
-public class GitCommitChangesEvaluator {
+public class GitCommitChangesEvaluator implements AutoCloseable {
     private static final Logger LOGGER = LoggerFactory.getLogger(GitCommitChangesEvaluator.class);
+    private static final int TREE_ID_OFFSET = "tree ".length();
+    private static final CommitMetric[] FILE_METRICS = createFileMetrics();
+    private static final long[] BINARY = new long[0];
+
+    private final ObjectReader reader;
+    private final DiffFormatter diffFormatter;
+    private final GitCommitChangesCache commitChangesCache;
+    private final GitBlobDiffCache blobDiffCache;
+    private final CollectorListener listener;
+    private final long maxBlobSize;
+    private final long streamingBlobSize;
+    private final long commitTimeBudgetNanos;
+    private final TimedDiffAlgorithm diffAlgorithm;
+    private final CanonicalTreeParser oldTreeParser;
+    private final CanonicalTreeParser newTreeParser;
+    private long readBlobsNanos;
+
+    public GitCommitChangesEvaluator(Repository repository) {
+        this(repository, new CollectorSettings(), GitCommitChangesCache.disabled(), GitBlobDiffCache.disabled(), CollectorListener.NONE);
+    }
 
     /**
-     * Method to calculate amount of changed lines in commit.
-     * 
      * @param repository
-     *            - Git repository that contains commit
+     *            - Git repository to be analyzed
+     * @param settings
+     *            - collector settings
+     * @param commitChangesCache
+     *            - cache of already evaluated commits
+     * @param blobDiffCache
+     *            - cache of diff results per pair of blobs, it should be
+     *            shared only by evaluators with the same settings
+     * @param listener
+     *            - listener notified about evaluated commits and files
+     */
+    public GitCommitChangesEvaluator(Repository repository, CollectorSettings settings, GitCommitChangesCache commitChangesCache, GitBlobDiffCache blobDiffCache,
+            CollectorListener listener) {
+        this.commitChangesCache = commitChangesCache;
+        this.blobDiffCache = blobDiffCache;
+        this.listener = listener;
+        maxBlobSize = settings.getMaxBlobSize();
+        streamingBlobSize = settings.getStreamingBlobSize();
+        commitTimeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(settings.getCommitTimeBudgetMillis());
+        diffAlgorithm = new TimedDiffAlgorithm(DiffAlgorithm.getAlgorithm(settings.getDiffAlgorithm()));
+        reader = repository.newObjectReader();
+        diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
+        diffFormatter.setReader(reader, repository.getConfig());
+        diffFormatter.setDiffAlgorithm(diffAlgorithm);
+        diffFormatter.setDiffComparator(RawTextComparator.DEFAULT);
+        diffFormatter.setBinaryFileThreshold((int) Math.min(Integer.MAX_VALUE, maxBlobSize));
+        // filtered paths are pruned by the tree walk of the diff, so blobs of
+        // excluded files are never loaded
+        diffFormatter.setPathFilter(GitPathTreeFilter.create(settings.getPathFilters()));
+        oldTreeParser = new CanonicalTreeParser();
+        newTreeParser = new CanonicalTreeParser();
+    }
+
+    /**
+     * Method to describe settings that affect evaluation result, so that
+     * cached results produced with other settings can be detected.
+     *
+     * @param repository
+     *            - Git repository to be analyzed
+     * @param settings
+     *            - collector settings
+     * @return description of evaluation settings
+     */
+    public static String describeSettings(Repository repository, CollectorSettings settings) {
+        boolean detectRenames = repository.getConfig().get(DiffConfig.KEY).isRenameDetectionEnabled();
+        return "parent=first;algorithm=" + settings.getDiffAlgorithm() + ";comparator=default;renames=" + detectRenames + ";maxBlobSize=" + settings.getMaxBlobSize()
+                + ";paths=" + String.join(",", settings.getPathFilters());
+    }
+
+    /**
+     * Method to calculate amount of changed lines in commit.
+     *
      * @param commit
      *            - changes to analyze
      * @return amount of changed lines in commit
      */
-    public long evaluateChangedLines(Repository repository, RevCommit commit) {
-        return (long) obtainDiffs(repository, commit).stream().flatMap(diff -> obtainModifiedRegions(repository, diff)).collect(Collectors.summarizingLong(this::getInsertions)).getSum();
+    public long evaluateChangedLines(RevCommit commit) {
+        CommitMetrics metrics = new CommitMetrics();
+        evaluateCommitMetrics(commit, metrics, null);
+        return metrics.getChangedLines();
+    }
+
+    /**
+     * Method to calculate all metrics of a commit together with changed lines
+     * per top-level folder. Insertions, deletions and changed files are
+     * obtained from the same diff, so no blob is read more than once. Cache
+     * does not store changed lines per folder, so commit is always evaluated
+     * when folders are requested.
+     * <p>
+     * If time budget of a commit is set, it is checked before every changed
+     * file. Commit that exceeds it is marked as skipped with no changes and is
+     * not cached, so it is evaluated again by the next run.
+     *
+     * @param commit
+     *            - changes to analyze
+     * @param metrics
+     *            - metrics to be filled with values of the commit, previous
+     *            values are cleared, so the same instance can be reused
+     * @param directoryChanges
+     *            - changed lines per folder to be filled, null if they are
+     *            not needed
+     */
+    public void evaluateCommitMetrics(RevCommit commit, CommitMetrics metrics, GitDirectoryChanges directoryChanges) {
+        metrics.clear();
+        if (directoryChanges == null && commitChangesCache.get(commit, metrics)) {
+            listener.commitCacheHit();
+            return;
+        }
+        long startTime = System.nanoTime();
+        metrics.add(CommitMetric.COMMITS, 1);
+        for (DiffEntry diff : obtainDiffs(commit)) {
+            if (commitTimeBudgetNanos > 0 && System.nanoTime() - startTime > commitTimeBudgetNanos) {
+                skip(commit, metrics, directoryChanges);
+                return;
+            }
+            long insertions = evaluateFile(diff, metrics);
+            if (directoryChanges != null) {
+                directoryChanges.add(diff.getChangeType() == ChangeType.DELETE ? diff.getOldPath() : diff.getNewPath(), insertions);
+            }
+        }
+        commitChangesCache.put(commit, metrics);
+        listener.commitEvaluated(System.nanoTime() - startTime);
+    }
+
+    private void skip(RevCommit commit, CommitMetrics metrics, GitDirectoryChanges directoryChanges) {
+        LOGGER.warn("Skipping commit {} because its evaluation took more than {} ms", commit.getId().name(), TimeUnit.NANOSECONDS.toMillis(commitTimeBudgetNanos));
+        metrics.clear();
+        metrics.add(CommitMetric.COMMITS, 1);
+        metrics.setSkipped(true);
+        if (directoryChanges != null) {
+            directoryChanges.clear();
+        }
+        listener.commitSkipped();
+    }
+
+    @Override
+    public void close() {
+        diffFormatter.close();
+        reader.close();
+        LOGGER.debug("Evaluator read blobs for {} ms and compared them for {} ms", TimeUnit.NANOSECONDS.toMillis(readBlobsNanos), TimeUnit.NANOSECONDS.toMillis(diffAlgorithm.nanos));
+        if (readBlobsNanos > 0) {
+            listener.phaseCompleted(CollectorPhase.READ_BLOBS, readBlobsNanos);
+        }
+        if (diffAlgorithm.nanos > 0) {
+            listener.phaseCompleted(CollectorPhase.DIFF, diffAlgorithm.nanos);
+        }
     }
 
-    private List<DiffEntry> obtainDiffs(Repository repository, RevCommit commit) {
-        try (DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
-            diffFormatter.setRepository(repository);
-            return diffFormatter.scan(getParent(commit), commit);
+    private List<DiffEntry> obtainDiffs(RevCommit commit) {
+        try {
+            newTreeParser.reset(reader, commit.getTree());
+            return diffFormatter.scan(getParentTree(commit), newTreeParser);
         } catch (IOException e) {
             LOGGER.error("Cannot obtain diffs for commit {} because of {}", commit.getId(), e);
         }
         return Collections.emptyList();
     }
 
-    private RevCommit getParent(RevCommit commit) {
-        return (commit.getParentCount() > 0) ? commit.getParent(0) : null;
-    }
-
-    private Stream<Edit> obtainModifiedRegions(Repository repository, DiffEntry diff) {
-        RawText oldRawText = getRawText(repository, diff.getOldId().toObjectId());
-        RawText newRawText = getRawText(repository, diff.getNewId().toObjectId());
-        return MyersDiff.INSTANCE.diff(RawTextComparator.DEFAULT, oldRawText, newRawText).stream();
+    private AbstractTreeIterator getParentTree(RevCommit commit) throws IOException {
+        if (commit.getParentCount() == 0) {
+            return new EmptyTreeIterator();
+        }
+        // parent may be not parsed yet, so its tree is read from raw commit
+        // object that always starts with "tree <id>" line
+        byte[] parent = reader.open(commit.getParent(0), Constants.OBJ_COMMIT).getCachedBytes();
+        oldTreeParser.reset(reader, ObjectId.fromString(parent, TREE_ID_OFFSET));
+        return oldTreeParser;
     }
 
-    private RawText getRawText(Repository repository, ObjectId id) {
+    private long evaluateFile(DiffEntry diff, CommitMetrics metrics) {
+        if (diff.getOldMode() == FileMode.GITLINK || diff.getNewMode() == FileMode.GITLINK) {
+            return 0;
+        }
+        metrics.add(FILE_METRICS[diff.getChangeType().ordinal()], 1);
         try {
-            return getNonBinaryRawText(repository, id);
+            long oldSize = getBlobSize(diff.getOldId());
+            long newSize = getBlobSize(diff.getNewId());
+            if (oldSize > maxBlobSize || newSize > maxBlobSize) {
+                LOGGER.debug("Skipping {} because it is larger than {} bytes", diff.getNewPath(), maxBlobSize);
+                listener.oversizedFileSkipped();
+                return 0;
+            }
+            boolean streamed = oldSize > streamingBlobSize || newSize > streamingBlobSize;
+            boolean cacheable = diff.getOldId().isComplete() && diff.getNewId().isComplete();
+            long[] counts = cacheable ? blobDiffCache.get(diff.getOldId().toObjectId(), diff.getNewId().toObjectId()) : null;
+            if (counts != null) {
+                listener.blobDiffCacheHit();
+            } else {
+                counts = streamed ? evaluateStreamedFile(diff, oldSize, newSize) : evaluateLoadedFile(diff, oldSize, newSize);
+                if (cacheable) {
+                    blobDiffCache.put(diff.getOldId().toObjectId(), diff.getNewId().toObjectId(), counts);
+                }
+            }
+            // file is reported the same way whether it was compared now or
+            // taken from the cache
+            if (counts == BINARY) {
+                listener.binaryFileSkipped();
+            } else if (streamed) {
+                listener.largeFileStreamed();
+            } else {
+                listener.fileCompared();
+            }
+            return applyCounts(counts, metrics);
         } catch (IOException e) {
-            return RawText.EMPTY_TEXT;
+            LOGGER.error("Cannot evaluate changes of {} because of {}", diff.getNewPath(), e);
+            return 0;
+        }
+    }
+
+    private long[] evaluateLoadedFile(DiffEntry diff, long oldSize, long newSize) throws IOException {
+        long startTime = System.nanoTime();
+        long diffStartNanos = diffAlgorithm.nanos;
+        FileHeader fileHeader = diffFormatter.toFileHeader(diff);
+        // formatter reads contents and compares them, only the comparison is
+        // measured by the algorithm
+        readBlobsNanos += System.nanoTime() - startTime - (diffAlgorithm.nanos - diffStartNanos);
+        reportLoadedBlob(oldSize);
+        reportLoadedBlob(newSize);
+        if (fileHeader.getPatchType() == PatchType.BINARY) {
+            return BINARY;
+        }
+        return countEdits(fileHeader.toEditList());
+    }
+
+    private long[] evaluateStreamedFile(DiffEntry diff, long oldSize, long newSize) throws IOException {
+        long startTime = System.nanoTime();
+        LineHashSequence oldLines = readLineHashes(diff.getOldId(), oldSize);
+        LineHashSequence newLines = readLineHashes(diff.getNewId(), newSize);
+        readBlobsNanos += System.nanoTime() - startTime;
+        if (oldLines == null || newLines == null) {
+            return BINARY;
+        }
+        return countEdits(diffAlgorithm.diff(LineHashSequence.COMPARATOR, oldLines, newLines));
+    }
+
+    private LineHashSequence readLineHashes(AbbreviatedObjectId id, long size) throws IOException {
+        if (size < 0) {
+            return LineHashSequence.empty();
         }
+        reportLoadedBlob(size);
+        return LineHashSequence.read(reader, id.toObjectId());
     }
 
-    private RawText getNonBinaryRawText(Repository repository, ObjectId id) throws IOException {
-        byte[] bytes = repository.open(id).getBytes();
-        if (!RawText.isBinary(bytes)) {
-            return new RawText(bytes);
+    private static long[] countEdits(List<Edit> modifiedRegions) {
+        long insertions = 0;
+        long deletions = 0;
+        for (Edit modifiedRegion : modifiedRegions) {
+            insertions += modifiedRegion.getLengthB();
+            deletions += modifiedRegion.getLengthA();
         }
-        return RawText.EMPTY_TEXT;
+        return new long[] { insertions, deletions };
     }
 
-    private int getInsertions(Edit modifiedRegion) {
-        return modifiedRegion.getLengthB();
+    private static long applyCounts(long[] counts, CommitMetrics metrics) {
+        if (counts == BINARY) {
+            metrics.add(CommitMetric.BINARY_FILES, 1);
+            return 0;
+        }
+        metrics.add(CommitMetric.INSERTIONS, counts[0]);
+        metrics.add(CommitMetric.DELETIONS, counts[1]);
+        return counts[0];
+    }
+
+    private long getBlobSize(AbbreviatedObjectId id) throws IOException {
+        if (!id.isComplete() || ObjectId.zeroId().equals(id.toObjectId())) {
+            return -1;
+        }
+        return reader.getObjectSize(id.toObjectId(), Constants.OBJ_BLOB);
+    }
+
+    private static CommitMetric[] createFileMetrics() {
+        CommitMetric[] fileMetrics = new CommitMetric[ChangeType.values().length];
+        fileMetrics[ChangeType.ADD.ordinal()] = CommitMetric.FILES_ADDED;
+        fileMetrics[ChangeType.COPY.ordinal()] = CommitMetric.FILES_ADDED;
+        fileMetrics[ChangeType.MODIFY.ordinal()] = CommitMetric.FILES_MODIFIED;
+        fileMetrics[ChangeType.DELETE.ordinal()] = CommitMetric.FILES_DELETED;
+        fileMetrics[ChangeType.RENAME.ordinal()] = CommitMetric.FILES_RENAMED;
+        return fileMetrics;
+    }
+
+    private void reportLoadedBlob(long size) {
+        if (size >= 0) {
+            listener.blobLoaded(size);
+        }
+    }
+
+    /**
+     * Algorithm, that measures time spent by another algorithm, so comparison
+     * of file contents is told apart from their reading inside
+     * {@link DiffFormatter#toFileHeader(DiffEntry)}.
+     */
+    private static class TimedDiffAlgorithm extends DiffAlgorithm {
+        private final DiffAlgorithm algorithm;
+        private long nanos;
+
+        TimedDiffAlgorithm(DiffAlgorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public <S extends Sequence> EditList diff(SequenceComparator<? super S> comparator, S a, S b) {
+            long startTime = System.nanoTime();
+            try {
+                return super.diff(comparator, a, b);
+            } finally {
+                nanos += System.nanoTime() - startTime;
+            }
+        }
+
+        @Override
+        public <S extends Sequence> EditList diffNonCommon(SequenceComparator<? super S> comparator, S a, S b) {
+            return algorithm.diffNonCommon(comparator, a, b);
+        }
     }
 }
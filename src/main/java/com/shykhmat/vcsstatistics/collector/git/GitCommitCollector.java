@@ -1,50 +1,284 @@
 package com.shykhmat.vcsstatistics.collector.git;
 
 import java.io.IOException;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
+import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.AndRevFilter;
+import org.eclipse.jgit.revwalk.filter.CommitTimeRevFilter;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
 import com.shykhmat.vcsstatistics.collector.VCSStatisticsCollectorException;
 
 /**
  * Class to collect all commits from repository.
  */
 public class GitCommitCollector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitCommitCollector.class);
+
+    private final CollectorSettings settings;
+
+    public GitCommitCollector() {
+        this(new CollectorSettings());
+    }
+
+    /**
+     * @param settings
+     *            - collector settings, including traversal mode
+     */
+    public GitCommitCollector(CollectorSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Method to resolve commits, which history should be analyzed, according
+     * to refs from settings. Symbolic refs are included only if they are
+     * specified by name, so that branches matched by a pattern are not
+     * duplicated by refs like "refs/remotes/origin/HEAD".
+     *
+     * @param repository
+     *            - Git repository
+     * @return ids of commits by short names of their refs, HEAD commit if refs
+     *         are not specified
+     * @throws VCSStatisticsCollectorException
+     *             if a ref specified by name does not exist or no commits
+     *             were found
+     */
+    public Map<String, ObjectId> resolveStarts(Repository repository) throws VCSStatisticsCollectorException {
+        Map<String, ObjectId> starts = new LinkedHashMap<>();
+        if (settings.getRefs().isEmpty()) {
+            starts.put(Constants.HEAD, resolveHead(repository));
+            return starts;
+        }
+        try (RevWalk walker = new RevWalk(repository)) {
+            for (String refPattern : settings.getRefs()) {
+                if (GitPathTreeFilter.isPattern(refPattern)) {
+                    Pattern pattern = GitPathTreeFilter.compile(refPattern);
+                    int matchedRefs = 0;
+                    for (Ref ref : repository.getRefDatabase().getRefs(RefDatabase.ALL).values()) {
+                        if (!ref.isSymbolic() && pattern.matcher(ref.getName()).matches() && addStart(repository, walker, ref, starts)) {
+                            matchedRefs++;
+                        }
+                    }
+                    if (matchedRefs == 0) {
+                        LOGGER.warn("No refs match pattern {}", refPattern);
+                    }
+                } else {
+                    Ref ref = repository.findRef(refPattern);
+                    if (ref == null) {
+                        throw new VCSStatisticsCollectorException("Ref " + refPattern + " does not exist");
+                    }
+                    addStart(repository, walker, ref, starts);
+                }
+            }
+        } catch (IOException e) {
+            throw new VCSStatisticsCollectorException(e);
+        }
+        if (starts.isEmpty()) {
+            throw new VCSStatisticsCollectorException("No commits found for refs " + settings.getRefs());
+        }
+        return starts;
+    }
+
+    /**
+     * Method to open a walk over commits, that are reachable from any of
+     * start commits, are not reachable from any of uninteresting commits and
+     * which days are in specified date range. Every commit is returned once,
+     * even if it is reachable from several start commits. Bodies of walked
+     * commits are not retained, unless a date range filter has read them
+     * together with their days; such bodies should be disposed by the caller
+     * once commits are consumed, so memory used by the walk does not depend on
+     * size of commit messages.
+     * <p>
+     * If bitmap traversal is enabled and range has no first date, commits are
+     * enumerated using bitmap index of the repository and are returned in no
+     * particular order.
+     *
+     * @param repository
+     *            - Git repository
+     * @param starts
+     *            - commits which history should be walked
+     * @param uninteresting
+     *            - commits which history should be excluded
+     * @param dateFrom
+     *            - first date in range, null if range is not limited
+     * @param dateTo
+     *            - last date in range, null if range is not limited
+     * @return configured walk, that should be closed by the caller
+     * @throws VCSStatisticsCollectorException
+     *             if any error occurred
+     */
+    public RevWalk openWalk(Repository repository, Collection<? extends ObjectId> starts, Collection<? extends ObjectId> uninteresting, LocalDate dateFrom, LocalDate dateTo)
+            throws VCSStatisticsCollectorException {
+        if (settings.isBitmapTraversal() && dateFrom == null) {
+            RevWalk bitmapWalker = openBitmapWalker(repository, starts, uninteresting, dateTo);
+            if (bitmapWalker != null) {
+                return bitmapWalker;
+            }
+            LOGGER.info("Repository has no bitmap index, commits are walked by parent links");
+        }
+        RevWalk walker = configureWalker(new GitRevWalk(repository), starts, uninteresting, dateFrom, dateTo);
+        walker.setRetainBody(false);
+        return walker;
+    }
 
     /**
-     * Method to retrieve commits from repository
-     * 
+     * Method to open a walk like {@link #openWalk}, that also knows which
+     * branches every walked commit is reachable from. Commits are always
+     * walked by parent links.
+     *
      * @param repository
      *            - Git repository
-     * @return {@link Stream} with commits
+     * @param branches
+     *            - last commits of branches, which history should be walked
+     * @param uninteresting
+     *            - commits which history should be excluded
+     * @param dateFrom
+     *            - first date in range, null if range is not limited
+     * @param dateTo
+     *            - last date in range, null if range is not limited
+     * @return configured walk, that should be closed by the caller
      * @throws VCSStatisticsCollectorException
      *             if any error occurred
      */
-    public Stream<RevCommit> getCommitStream(Repository repository) throws VCSStatisticsCollectorException {
-        try (RevWalk walker = getConfiguredWalker(repository)) {
-            return StreamSupport.stream(walker.spliterator(), false);
+    GitBranchRevWalk openBranchWalk(Repository repository, List<? extends ObjectId> branches, Collection<? extends ObjectId> uninteresting, LocalDate dateFrom, LocalDate dateTo)
+            throws VCSStatisticsCollectorException {
+        GitBranchRevWalk walker = new GitBranchRevWalk(repository);
+        try {
+            walker.setRetainBody(false);
+            walker.markBranches(branches, uninteresting);
+        } catch (IOException e) {
+            walker.close();
+            throw new VCSStatisticsCollectorException(e);
         }
+        return configureWalker(walker, branches, uninteresting, dateFrom, dateTo);
     }
 
-    private RevWalk getConfiguredWalker(Repository repository) throws VCSStatisticsCollectorException {
+    /**
+     * Method to resolve commit that is currently checked out.
+     *
+     * @param repository
+     *            - Git repository
+     * @return id of HEAD commit
+     * @throws VCSStatisticsCollectorException
+     *             if repository has no HEAD commit
+     */
+    public ObjectId resolveHead(Repository repository) throws VCSStatisticsCollectorException {
         try {
-            RevWalk walker = new RevWalk(repository);
-            walker.setRevFilter(RevFilter.NO_MERGES);
             ObjectId head = repository.resolve(Constants.HEAD);
             if (head == null) {
                 throw new VCSStatisticsCollectorException("Specified project folder is not a Git repository");
             }
-            walker.markStart(walker.parseCommit(head));
+            return head;
+        } catch (IOException e) {
+            throw new VCSStatisticsCollectorException(e);
+        }
+    }
+
+    /**
+     * Method to check whether history of a commit is a part of history of
+     * another commit, e.g. it was not rewritten.
+     *
+     * @param repository
+     *            - Git repository
+     * @param ancestor
+     *            - commit to check
+     * @param commits
+     *            - commits one of which history should contain ancestor
+     * @return true if ancestor is reachable from any of commits
+     * @throws VCSStatisticsCollectorException
+     *             if any error occurred
+     */
+    public boolean isAncestor(Repository repository, ObjectId ancestor, Collection<? extends ObjectId> commits) throws VCSStatisticsCollectorException {
+        try (RevWalk walker = new RevWalk(repository)) {
+            RevCommit ancestorCommit = walker.parseCommit(ancestor);
+            for (ObjectId commit : commits) {
+                if (walker.isMergedInto(ancestorCommit, walker.parseCommit(commit))) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (MissingObjectException e) {
+            return false;
+        } catch (IOException e) {
+            throw new VCSStatisticsCollectorException(e);
+        }
+    }
+
+    private boolean addStart(Repository repository, RevWalk walker, Ref ref, Map<String, ObjectId> starts) throws IOException {
+        Ref peeledRef = repository.peel(ref);
+        ObjectId id = peeledRef.getPeeledObjectId() != null ? peeledRef.getPeeledObjectId() : peeledRef.getObjectId();
+        if (id == null || walker.parseAny(id).getType() != Constants.OBJ_COMMIT) {
+            LOGGER.warn("Ref {} does not point to a commit and is ignored", ref.getName());
+            return false;
+        }
+        starts.putIfAbsent(Repository.shortenRefName(ref.getName()), id);
+        return true;
+    }
+
+    private <T extends RevWalk> T configureWalker(T walker, Collection<? extends ObjectId> starts, Collection<? extends ObjectId> uninteresting, LocalDate dateFrom, LocalDate dateTo)
+            throws VCSStatisticsCollectorException {
+        try {
+            walker.sort(RevSort.COMMIT_TIME_DESC);
+            walker.setRevFilter(constructRevFilter(dateFrom, dateTo));
+            for (ObjectId start : starts) {
+                walker.markStart(walker.parseCommit(start));
+            }
+            for (ObjectId commit : uninteresting) {
+                walker.markUninteresting(walker.parseCommit(commit));
+            }
             return walker;
         } catch (IOException e) {
+            walker.close();
+            throw new VCSStatisticsCollectorException(e);
+        }
+    }
+
+    private RevWalk openBitmapWalker(Repository repository, Collection<? extends ObjectId> starts, Collection<? extends ObjectId> uninteresting, LocalDate dateTo)
+            throws VCSStatisticsCollectorException {
+        GitBitmapRevWalk walker = new GitBitmapRevWalk(repository, constructRevFilter(null, dateTo));
+        try {
+            walker.setRetainBody(false);
+            if (walker.markReachable(starts, uninteresting)) {
+                return walker;
+            }
+            walker.close();
+            return null;
+        } catch (IOException e) {
+            walker.close();
             throw new VCSStatisticsCollectorException(e);
         }
     }
+
+    private RevFilter constructRevFilter(LocalDate dateFrom, LocalDate dateTo) {
+        if (dateFrom == null && dateTo == null) {
+            return RevFilter.NO_MERGES;
+        }
+        List<RevFilter> filters = new ArrayList<>();
+        filters.add(RevFilter.NO_MERGES);
+        if (dateFrom != null) {
+            // commits are sorted by commit time, so the walk stops at the
+            // first commit, that was committed before any commit of the range
+            filters.add(CommitTimeRevFilter.after(new GitCommitDays(settings).getEarliestSecond(dateFrom) * 1000));
+        }
+        filters.add(GitCommitDays.createFilter(settings, dateFrom, dateTo));
+        return AndRevFilter.create(filters);
+    }
 }
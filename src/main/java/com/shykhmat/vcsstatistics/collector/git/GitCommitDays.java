@@ -0,0 +1,218 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.util.MutableInteger;
+import org.eclipse.jgit.util.RawParseUtils;
+
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.collector.CommitDatePolicy;
+import com.shykhmat.vcsstatistics.collector.git.GitRevWalk.DatedCommit;
+
+/**
+ * Calculator of days, which commits are counted in according to
+ * {@link CommitDatePolicy}. Seconds of a date are shifted by time zone offset
+ * written next to them in the raw commit and divided by seconds of a day, so
+ * neither identities nor date objects are created per commit. Offset of a
+ * configured time zone is looked up once per period between its transitions,
+ * which covers many commits, because they are walked by time. Instance is not
+ * thread safe.
+ */
+class GitCommitDays {
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final int SECONDS_PER_MINUTE = 60;
+    // git writes offsets as 4 digits of hours and minutes
+    private static final int MAX_OFFSET_SECONDS = (99 * 60 + 59) * SECONDS_PER_MINUTE;
+
+    private final CommitDatePolicy policy;
+    private final ZoneId zone;
+    private final ZoneRules zoneRules;
+    private final MutableInteger position;
+    private long zoneOffsetStart;
+    private long zoneOffsetEnd;
+    private int zoneOffsetSeconds;
+
+    /**
+     * @param settings
+     *            - collector settings, including commit date policy and time
+     *            zone
+     */
+    GitCommitDays(CollectorSettings settings) {
+        policy = settings.getCommitDatePolicy();
+        zone = settings.getCommitDateZone();
+        zoneRules = zone.getRules();
+        position = new MutableInteger();
+        zoneOffsetStart = Long.MAX_VALUE;
+        zoneOffsetEnd = Long.MIN_VALUE;
+    }
+
+    /**
+     * @return true if days are calculated from raw commits, false if parsed
+     *         commit time is enough
+     */
+    boolean requiresRawCommit() {
+        return policy != CommitDatePolicy.ZONE;
+    }
+
+    /**
+     * Method to find the day a commit is counted in. Day found by a date
+     * range filter is taken from the commit.
+     *
+     * @param commit
+     *            - parsed commit
+     * @param rawCommit
+     *            - raw commit, may be null if {@link #requiresRawCommit()} is
+     *            false
+     * @return epoch day of the commit
+     */
+    int toEpochDay(RevCommit commit, byte[] rawCommit) {
+        if (commit instanceof DatedCommit && ((DatedCommit) commit).hasEpochDay()) {
+            return ((DatedCommit) commit).getEpochDay();
+        }
+        if (policy != CommitDatePolicy.ZONE) {
+            int identityStart = policy == CommitDatePolicy.AUTHOR ? RawParseUtils.author(rawCommit, 0) : -1;
+            if (identityStart < 0) {
+                identityStart = RawParseUtils.committer(rawCommit, 0);
+            }
+            int dateStart = identityStart < 0 ? -1 : findDateStart(rawCommit, identityStart);
+            if (dateStart >= 0) {
+                long seconds = RawParseUtils.parseLongBase10(rawCommit, dateStart, position);
+                int offsetMinutes = RawParseUtils.parseTimeZoneOffset(rawCommit, position.value);
+                return toEpochDay(seconds + offsetMinutes * SECONDS_PER_MINUTE);
+            }
+            // commits with malformed identity are counted by commit time in
+            // the configured time zone
+        }
+        long seconds = commit.getCommitTime();
+        return toEpochDay(seconds + getZoneOffsetSeconds(seconds));
+    }
+
+    /**
+     * Method to find the first moment, which commits of a day can be
+     * committed at. Author and committer dates are shifted by offsets of
+     * their own time zones, so the whole range of offsets is covered.
+     *
+     * @param date
+     *            - day of commits
+     * @return seconds since epoch
+     */
+    long getEarliestSecond(LocalDate date) {
+        if (policy == CommitDatePolicy.ZONE) {
+            return date.atStartOfDay(zone).toEpochSecond();
+        }
+        return date.toEpochDay() * SECONDS_PER_DAY - MAX_OFFSET_SECONDS;
+    }
+
+    /**
+     * @return description of the policy, that changes when days of commits
+     *         can change
+     */
+    String describe() {
+        return policy == CommitDatePolicy.ZONE ? policy + "(" + zone + ")" : policy.name();
+    }
+
+    /**
+     * Method to create filter of commits, which days are in range.
+     *
+     * @param settings
+     *            - collector settings, including commit date policy and time
+     *            zone
+     * @param dateFrom
+     *            - first date in range, null if range has no start
+     * @param dateTo
+     *            - last date in range, null if range has no end
+     * @return filter of commits
+     */
+    static RevFilter createFilter(CollectorSettings settings, LocalDate dateFrom, LocalDate dateTo) {
+        return new DayRangeFilter(settings, dateFrom == null ? Long.MIN_VALUE : dateFrom.toEpochDay(), dateTo == null ? Long.MAX_VALUE : dateTo.toEpochDay());
+    }
+
+    private static int toEpochDay(long seconds) {
+        return (int) Math.floorDiv(seconds, SECONDS_PER_DAY);
+    }
+
+    private static int findDateStart(byte[] rawCommit, int identityStart) {
+        int lineEnd = RawParseUtils.nextLF(rawCommit, identityStart);
+        for (int i = lineEnd - 1; i >= identityStart; i--) {
+            if (rawCommit[i] == '>') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private int getZoneOffsetSeconds(long seconds) {
+        if (seconds < zoneOffsetStart || seconds >= zoneOffsetEnd) {
+            Instant instant = Instant.ofEpochSecond(seconds);
+            zoneOffsetSeconds = zoneRules.getOffset(instant).getTotalSeconds();
+            ZoneOffsetTransition previous = zoneRules.previousTransition(instant);
+            ZoneOffsetTransition next = zoneRules.nextTransition(instant);
+            // previous transition is the one that set the offset, unless
+            // the offset changes exactly at this moment
+            if (previous == null) {
+                zoneOffsetStart = Long.MIN_VALUE;
+            } else {
+                zoneOffsetStart = previous.getOffsetAfter().getTotalSeconds() == zoneOffsetSeconds ? previous.toEpochSecond() : seconds;
+            }
+            zoneOffsetEnd = next == null ? Long.MAX_VALUE : next.toEpochSecond();
+        }
+        return zoneOffsetSeconds;
+    }
+
+    /**
+     * Filter of commits, which days are in range. Commits are not sorted by
+     * day, so the filter never stops the walk.
+     */
+    private static class DayRangeFilter extends RevFilter {
+        private final CollectorSettings settings;
+        private final long firstDay;
+        private final long lastDay;
+        private final GitCommitDays days;
+
+        private DayRangeFilter(CollectorSettings settings, long firstDay, long lastDay) {
+            this.settings = settings;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            days = new GitCommitDays(settings);
+        }
+
+        @Override
+        public boolean include(RevWalk walker, RevCommit commit) throws IOException {
+            byte[] rawCommit = null;
+            if (days.requiresRawCommit()) {
+                // bitmap walk does not parse bodies requested by the filter,
+                // parsed body is kept on the commit for its consumer
+                walker.parseBody(commit);
+                rawCommit = commit.getRawBuffer();
+            }
+            int day = days.toEpochDay(commit, rawCommit);
+            if (commit instanceof DatedCommit) {
+                ((DatedCommit) commit).setEpochDay(day);
+            }
+            return day >= firstDay && day <= lastDay;
+        }
+
+        @Override
+        public boolean requiresCommitBody() {
+            return days.requiresRawCommit();
+        }
+
+        @Override
+        public RevFilter clone() {
+            return new DayRangeFilter(settings, firstDay, lastDay);
+        }
+
+        @Override
+        public String toString() {
+            return "DAYS(" + days.describe() + ", " + firstDay + ".." + lastDay + ")";
+        }
+    }
+}
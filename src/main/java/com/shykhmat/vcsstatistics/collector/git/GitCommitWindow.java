@@ -0,0 +1,156 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorPhase;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.collector.VCSStatisticsCollectorException;
+import com.shykhmat.vcsstatistics.collector.git.GitParallelCommitEvaluator.CommitMetricsConsumer;
+
+/**
+ * Window of commits, that are evaluated by other threads and consumed by the
+ * calling thread in the order of the stream. Commits are walked and submitted
+ * for evaluation until the window is full, then the oldest commit is awaited
+ * and consumed before the next one is walked, so memory usage does not
+ * depend on the length of the stream. Time of the calling thread is split
+ * between walking, waiting for evaluation and consuming commits.
+ * <p>
+ * Instance is not thread safe, it is used by the calling thread only.
+ */
+class GitCommitWindow {
+    private final CollectorListener listener;
+    private final GitPhaseTimer phaseTimer;
+    private final boolean directoryRollup;
+    private final int size;
+
+    /**
+     * @param settings
+     *            - collector settings, including directory rollup
+     * @param listener
+     *            - listener notified about walked commits
+     * @param phaseTimer
+     *            - timer of the calling thread
+     * @param size
+     *            - maximal amount of commits in progress
+     */
+    GitCommitWindow(CollectorSettings settings, CollectorListener listener, GitPhaseTimer phaseTimer, int size) {
+        this.listener = listener;
+        this.phaseTimer = phaseTimer;
+        this.size = size;
+        directoryRollup = settings.isDirectoryRollup();
+    }
+
+    /**
+     * Method to evaluate every commit of a stream and to pass results to the
+     * consumer in the order of the stream.
+     *
+     * @param commits
+     *            - commits to evaluate
+     * @param evaluation
+     *            - evaluation, that commits are submitted to
+     * @param consumer
+     *            - consumer of evaluated commits
+     * @throws IOException
+     *             if a commit cannot be submitted, evaluated or consumed
+     * @throws InterruptedException
+     *             if the calling thread was interrupted while waiting for
+     *             evaluation
+     * @throws VCSStatisticsCollectorException
+     *             if evaluation failed unexpectedly
+     */
+    void evaluateCommits(Iterator<RevCommit> commits, Evaluation evaluation, CommitMetricsConsumer consumer)
+            throws IOException, InterruptedException, VCSStatisticsCollectorException {
+        Queue<GitPendingCommit> window = new ArrayDeque<>(size);
+        RevCommit commit;
+        while ((commit = nextCommit(commits)) != null) {
+            if (window.size() == size) {
+                evaluation.flush();
+                consume(window.poll(), consumer);
+            }
+            GitPendingCommit pendingCommit = new GitPendingCommit(commit, newDirectoryChanges());
+            window.add(pendingCommit);
+            evaluation.submit(pendingCommit);
+        }
+        evaluation.endOfCommits();
+        while (!window.isEmpty()) {
+            consume(window.poll(), consumer);
+        }
+    }
+
+    /**
+     * Method to take the next commit of a stream.
+     *
+     * @param commits
+     *            - commits to evaluate
+     * @return next commit, null at the end of the stream
+     */
+    RevCommit nextCommit(Iterator<RevCommit> commits) {
+        RevCommit commit = commits.hasNext() ? commits.next() : null;
+        phaseTimer.complete(CollectorPhase.WALK);
+        if (commit != null) {
+            listener.commitWalked();
+        }
+        return commit;
+    }
+
+    /**
+     * @return changed lines per top-level folder to fill, null if directory
+     *         rollup is disabled
+     */
+    GitDirectoryChanges newDirectoryChanges() {
+        return directoryRollup ? new GitDirectoryChanges() : null;
+    }
+
+    private void consume(GitPendingCommit pendingCommit, CommitMetricsConsumer consumer) throws IOException, InterruptedException, VCSStatisticsCollectorException {
+        pendingCommit.awaitEvaluation();
+        phaseTimer.complete(CollectorPhase.EVALUATE);
+        Throwable failure = pendingCommit.getFailure();
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure != null) {
+            throw new VCSStatisticsCollectorException(failure);
+        }
+        consumer.accept(pendingCommit.getCommit(), pendingCommit.getMetrics(), pendingCommit.getDirectoryChanges());
+        phaseTimer.complete(CollectorPhase.AGGREGATE);
+    }
+
+    /**
+     * Evaluation of commits by other threads. Every submitted commit should
+     * be handed back by {@link GitPendingCommit#evaluated()}.
+     */
+    interface Evaluation {
+        /**
+         * @param pendingCommit
+         *            - commit to evaluate
+         * @throws IOException
+         *             if commit cannot be submitted
+         */
+        void submit(GitPendingCommit pendingCommit) throws IOException;
+
+        /**
+         * Method called before the calling thread waits for the oldest
+         * submitted commit, e.g. to send buffered commits.
+         *
+         * @throws IOException
+         *             if submitted commits cannot be sent
+         */
+        default void flush() throws IOException {
+        }
+
+        /**
+         * Method called after the last commit is submitted.
+         *
+         * @throws IOException
+         *             if submitted commits cannot be sent
+         */
+        default void endOfCommits() throws IOException {
+        }
+    }
+}
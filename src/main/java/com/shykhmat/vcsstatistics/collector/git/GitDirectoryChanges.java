@@ -0,0 +1,81 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.util.Arrays;
+
+import com.shykhmat.vcsstatistics.domain.StatisticsMatrix;
+
+/**
+ * Changed lines of a single commit per top-level folder of the project. A
+ * commit usually touches only a few folders, so they are kept in small arrays
+ * and found by comparing path prefixes, without creating a string for every
+ * changed file. Files of the project root belong to folder
+ * {@value #ROOT_DIRECTORY}.
+ */
+public class GitDirectoryChanges {
+    /**
+     * Name of the folder that contains files of the project root.
+     */
+    public static final String ROOT_DIRECTORY = "/";
+    private static final int INITIAL_CAPACITY = 4;
+    private static final char SEPARATOR = '/';
+
+    private String[] directories;
+    private long[] changedLines;
+    private int size;
+
+    public GitDirectoryChanges() {
+        directories = new String[INITIAL_CAPACITY];
+        changedLines = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Method to add changed lines of a file.
+     *
+     * @param path
+     *            - path of the file relative to the project root
+     * @param lines
+     *            - amount of changed lines in the file
+     */
+    public void add(String path, long lines) {
+        if (lines == 0) {
+            return;
+        }
+        int separatorIndex = path.indexOf(SEPARATOR);
+        for (int i = 0; i < size; i++) {
+            if (separatorIndex < 0 ? ROOT_DIRECTORY.equals(directories[i]) : directories[i].length() == separatorIndex && path.startsWith(directories[i])) {
+                changedLines[i] += lines;
+                return;
+            }
+        }
+        if (size == directories.length) {
+            directories = Arrays.copyOf(directories, size * 2);
+            changedLines = Arrays.copyOf(changedLines, size * 2);
+        }
+        directories[size] = separatorIndex < 0 ? ROOT_DIRECTORY : path.substring(0, separatorIndex);
+        changedLines[size] = lines;
+        size++;
+    }
+
+    /**
+     * Method to remove changed lines of all folders.
+     */
+    public void clear() {
+        Arrays.fill(directories, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Method to add changed lines of all folders to statistics, where every
+     * folder is a row.
+     *
+     * @param statistics
+     *            - statistics of folders
+     * @param bucket
+     *            - bucket index of the period of the commit
+     */
+    public void addTo(StatisticsMatrix statistics, long bucket) {
+        for (int i = 0; i < size; i++) {
+            statistics.add(statistics.internAuthor(directories[i]), bucket, changedLines[i]);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Locks of files, that are written by collections of the process, e.g. by
+ * collections of the same repository with different settings. Files are
+ * written through temporary files, that are unique per write, and replaced
+ * while their lock is held, so every written file is complete.
+ */
+final class GitFileLocks {
+    private static final ConcurrentMap<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private GitFileLocks() {
+    }
+
+    /**
+     * @param file
+     *            - file to write
+     * @return monitor, that should be held while the file is written
+     * @throws IOException
+     *             if path of the file cannot be resolved
+     */
+    static Object forFile(File file) throws IOException {
+        return LOCKS.computeIfAbsent(file.getCanonicalPath(), path -> new Object());
+    }
+
+    /**
+     * @param file
+     *            - file to write
+     * @return new empty file in the folder of the file, so that it can
+     *         replace the file by a rename
+     * @throws IOException
+     *             if temporary file cannot be created
+     */
+    static File createTemporaryFile(File file) throws IOException {
+        return File.createTempFile(file.getName() + ".", ".tmp", file.getAbsoluteFile().getParentFile());
+    }
+}
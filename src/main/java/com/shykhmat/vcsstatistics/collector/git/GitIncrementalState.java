@@ -0,0 +1,287 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.Files;
+import com.shykhmat.vcsstatistics.domain.CommitMetric;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+import com.shykhmat.vcsstatistics.domain.CommitMetricsTable;
+import com.shykhmat.vcsstatistics.domain.StatisticsMatrix;
+
+/**
+ * Aggregated commit statistics of the whole repository history up to the last
+ * processed commits of analyzed refs. Stored between runs, so that subsequent
+ * runs only need to process commits that appeared after the last processed
+ * commits. Changed lines and other commit metrics are kept per day, so that
+ * reports of any date range and granularity can be built from the state.
+ */
+public class GitIncrementalState {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitIncrementalState.class);
+    private static final int MAGIC = 0x56435349;
+    private static final int FORMAT_VERSION = 5;
+    private static final CommitMetric[] METRICS = CommitMetric.values();
+
+    private List<ObjectId> lastProcessedCommits;
+    private LocalDate firstCommitDate;
+    private LocalDate lastCommitDate;
+    private final StatisticsMatrix statistics;
+    private final StatisticsMatrix directoryStatistics;
+    // per day values of every metric with the same author ids as statistics,
+    // insertions are the same as changed lines, so statistics are reused
+    private final StatisticsMatrix[] metricStatistics;
+
+    public GitIncrementalState() {
+        lastProcessedCommits = Collections.emptyList();
+        statistics = new StatisticsMatrix();
+        directoryStatistics = new StatisticsMatrix();
+        metricStatistics = new StatisticsMatrix[METRICS.length];
+        for (CommitMetric metric : METRICS) {
+            metricStatistics[metric.ordinal()] = metric == CommitMetric.INSERTIONS ? statistics : new StatisticsMatrix();
+        }
+    }
+
+    /**
+     * Method to load state from file.
+     *
+     * @param stateFile
+     *            - file with stored state
+     * @param settingsFingerprint
+     *            - description of settings, state stored with other settings
+     *            is discarded
+     * @return loaded state or empty state if file does not exist or cannot be
+     *         used
+     */
+    public static GitIncrementalState load(File stateFile, String settingsFingerprint) {
+        GitIncrementalState state = new GitIncrementalState();
+        if (!stateFile.isFile()) {
+            return state;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION || !settingsFingerprint.equals(input.readUTF())) {
+                LOGGER.info("Incremental state {} was created by other version or settings and will be rebuilt", stateFile);
+                return state;
+            }
+            byte[] commitId = new byte[Constants.OBJECT_ID_LENGTH];
+            int commitsCount = input.readInt();
+            List<ObjectId> lastProcessedCommits = new ArrayList<>(commitsCount);
+            for (int i = 0; i < commitsCount; i++) {
+                input.readFully(commitId);
+                lastProcessedCommits.add(ObjectId.fromRaw(commitId));
+            }
+            state.lastProcessedCommits = lastProcessedCommits;
+            state.firstCommitDate = LocalDate.ofEpochDay(input.readLong());
+            state.lastCommitDate = LocalDate.ofEpochDay(input.readLong());
+            readStatistics(input, state.statistics);
+            readStatistics(input, state.directoryStatistics);
+            for (CommitMetric metric : METRICS) {
+                if (metric != CommitMetric.INSERTIONS) {
+                    readStatistics(input, state.metricStatistics[metric.ordinal()]);
+                }
+            }
+            return state;
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read incremental state {} because of {}, it will be rebuilt", stateFile, e);
+            return new GitIncrementalState();
+        }
+    }
+
+    /**
+     * Method to store state into file.
+     *
+     * @param stateFile
+     *            - file to store state
+     * @param settingsFingerprint
+     *            - description of settings used to collect statistics
+     * @throws IOException
+     *             if state cannot be written
+     */
+    public void save(File stateFile, String settingsFingerprint) throws IOException {
+        if (lastProcessedCommits.isEmpty()) {
+            return;
+        }
+        Files.createParentDirs(stateFile);
+        synchronized (GitFileLocks.forFile(stateFile)) {
+            File temporaryFile = GitFileLocks.createTemporaryFile(stateFile);
+            try {
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+                    output.writeInt(MAGIC);
+                    output.writeInt(FORMAT_VERSION);
+                    output.writeUTF(settingsFingerprint);
+                    byte[] commitId = new byte[Constants.OBJECT_ID_LENGTH];
+                    output.writeInt(lastProcessedCommits.size());
+                    for (ObjectId lastProcessedCommit : lastProcessedCommits) {
+                        lastProcessedCommit.copyRawTo(commitId, 0);
+                        output.write(commitId);
+                    }
+                    output.writeLong(firstCommitDate.toEpochDay());
+                    output.writeLong(lastCommitDate.toEpochDay());
+                    writeStatistics(output, statistics);
+                    writeStatistics(output, directoryStatistics);
+                    for (CommitMetric metric : METRICS) {
+                        if (metric != CommitMetric.INSERTIONS) {
+                            writeStatistics(output, metricStatistics[metric.ordinal()]);
+                        }
+                    }
+                }
+                Files.move(temporaryFile, stateFile);
+            } finally {
+                temporaryFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Method to add metrics of a commit to the state.
+     *
+     * @param authorId
+     *            - id of commit author in {@link #getStatistics()}
+     * @param day
+     *            - epoch day of the commit
+     * @param metrics
+     *            - metrics of the commit, insertions are added as changed
+     *            lines
+     * @param directoryChanges
+     *            - changed lines of the commit per top-level folder, null if
+     *            they are not collected
+     */
+    public void addCommit(int authorId, long day, CommitMetrics metrics, GitDirectoryChanges directoryChanges) {
+        for (CommitMetric metric : METRICS) {
+            StatisticsMatrix values = metricStatistics[metric.ordinal()];
+            // authors are interned in the same order as in statistics, so
+            // they get the same ids
+            while (values.getAuthorCount() <= authorId) {
+                values.internAuthor(statistics.getAuthorName(values.getAuthorCount()));
+            }
+            if (values == statistics || metrics.get(metric) != 0) {
+                values.add(authorId, day, metrics.get(metric));
+            }
+        }
+        if (directoryChanges != null) {
+            directoryChanges.addTo(directoryStatistics, day);
+        }
+        if (firstCommitDate == null || day < firstCommitDate.toEpochDay()) {
+            firstCommitDate = LocalDate.ofEpochDay(day);
+        }
+        if (lastCommitDate == null || day > lastCommitDate.toEpochDay()) {
+            lastCommitDate = LocalDate.ofEpochDay(day);
+        }
+    }
+
+    /**
+     * @return statistics of the whole processed history
+     */
+    public StatisticsMatrix getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return statistics of top-level folders of the whole processed history,
+     *         empty if they are not collected
+     */
+    public StatisticsMatrix getDirectoryStatistics() {
+        return directoryStatistics;
+    }
+
+    /**
+     * Method to sum commit metrics of a range of days.
+     *
+     * @param slicedStatistics
+     *            - statistics of the same range of days, which author ids are
+     *            used; authors that have metrics but no changed lines are
+     *            added to them
+     * @param firstDay
+     *            - first day of the range as amount of days since 1970-01-01
+     * @param lastDay
+     *            - last day of the range as amount of days since 1970-01-01
+     * @return totals of commit metrics per author
+     */
+    public CommitMetricsTable sumCommitMetrics(StatisticsMatrix slicedStatistics, long firstDay, long lastDay) {
+        CommitMetricsTable commitMetrics = new CommitMetricsTable();
+        for (CommitMetric metric : METRICS) {
+            StatisticsMatrix values = metricStatistics[metric.ordinal()];
+            for (int authorId = 0; authorId < values.getAuthorCount(); authorId++) {
+                long total = 0;
+                for (long day = Math.max(firstDay, values.getFirstDay(authorId)); day <= Math.min(lastDay, values.getLastDay(authorId)); day++) {
+                    total += values.getChangedLines(authorId, day);
+                }
+                if (total != 0) {
+                    commitMetrics.add(slicedStatistics.internAuthor(values.getAuthorName(authorId)), metric, total);
+                }
+            }
+        }
+        return commitMetrics;
+    }
+
+    /**
+     * @return last commits of analyzed refs at the moment state was stored,
+     *         empty list if no commits were processed
+     */
+    public List<ObjectId> getLastProcessedCommits() {
+        return lastProcessedCommits;
+    }
+
+    public void setLastProcessedCommits(Collection<ObjectId> lastProcessedCommits) {
+        this.lastProcessedCommits = Collections.unmodifiableList(new ArrayList<>(lastProcessedCommits));
+    }
+
+    public LocalDate getFirstCommitDate() {
+        return firstCommitDate;
+    }
+
+    public LocalDate getLastCommitDate() {
+        return lastCommitDate;
+    }
+
+    private static void readStatistics(DataInputStream input, StatisticsMatrix statistics) throws IOException {
+        int authorsCount = input.readInt();
+        for (int i = 0; i < authorsCount; i++) {
+            int authorId = statistics.internAuthor(input.readUTF());
+            int daysCount = input.readInt();
+            for (int j = 0; j < daysCount; j++) {
+                statistics.add(authorId, input.readLong(), input.readLong());
+            }
+        }
+    }
+
+    private static void writeStatistics(DataOutputStream output, StatisticsMatrix statistics) throws IOException {
+        output.writeInt(statistics.getAuthorCount());
+        for (int authorId = 0; authorId < statistics.getAuthorCount(); authorId++) {
+            output.writeUTF(statistics.getAuthorName(authorId));
+            output.writeInt(countDaysWithChanges(statistics, authorId));
+            for (long day = statistics.getFirstDay(authorId); day <= statistics.getLastDay(authorId); day++) {
+                long changedLines = statistics.getChangedLines(authorId, day);
+                if (changedLines != 0) {
+                    output.writeLong(day);
+                    output.writeLong(changedLines);
+                }
+            }
+        }
+    }
+
+    private static int countDaysWithChanges(StatisticsMatrix statistics, int authorId) {
+        int daysCount = 0;
+        for (long day = statistics.getFirstDay(authorId); day <= statistics.getLastDay(authorId); day++) {
+            if (statistics.getChangedLines(authorId, day) != 0) {
+                daysCount++;
+            }
+        }
+        return daysCount;
+    }
+}
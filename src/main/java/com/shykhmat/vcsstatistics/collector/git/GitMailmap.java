@@ -0,0 +1,172 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * Mapping of commit author identities to canonical author names in
+ * <a href="https://git-scm.com/docs/gitmailmap">mailmap</a> format. Supported
+ * lines are:
+ *
+ * <pre>
+ * Proper Name &lt;commit@email&gt;
+ * &lt;proper@email&gt; &lt;commit@email&gt;
+ * Proper Name &lt;proper@email&gt; &lt;commit@email&gt;
+ * Proper Name &lt;proper@email&gt; Commit Name &lt;commit@email&gt;
+ * </pre>
+ *
+ * Emails and names are matched case insensitively, mapping of a name and an
+ * email takes precedence over mapping of an email only. Lines read later
+ * override earlier lines for the same identity.
+ */
+public class GitMailmap {
+    private static final String MAILMAP_FILE = ".mailmap";
+    private static final String COMMENT_PREFIX = "#";
+
+    private final Map<String, EmailMapping> mappings;
+    private String fingerprint;
+
+    public GitMailmap() {
+        mappings = new HashMap<>();
+        fingerprint = "none";
+    }
+
+    /**
+     * Method to load mailmap of a repository and an additional alias file.
+     *
+     * @param repository
+     *            - Git repository, which ".mailmap" file of HEAD commit is
+     *            loaded
+     * @param head
+     *            - HEAD commit of the repository, null to ignore repository
+     *            mailmap
+     * @param aliasFile
+     *            - file in mailmap format that overrides repository mailmap,
+     *            null if there is no such file
+     * @return loaded mailmap
+     * @throws IOException
+     *             if mailmap cannot be read
+     */
+    public static GitMailmap load(Repository repository, ObjectId head, File aliasFile) throws IOException {
+        GitMailmap mailmap = new GitMailmap();
+        if (head != null) {
+            try (RevWalk walk = new RevWalk(repository); TreeWalk treeWalk = TreeWalk.forPath(repository, MAILMAP_FILE, walk.parseCommit(head).getTree())) {
+                if (treeWalk != null) {
+                    byte[] content = repository.open(treeWalk.getObjectId(0), Constants.OBJ_BLOB).getBytes();
+                    mailmap.parse(new String(content, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        if (aliasFile != null) {
+            mailmap.parse(Files.asCharSource(aliasFile, StandardCharsets.UTF_8).read());
+        }
+        return mailmap;
+    }
+
+    /**
+     * Method to add mappings from mailmap content.
+     *
+     * @param content
+     *            - content in mailmap format
+     */
+    public void parse(String content) {
+        fingerprint = Hashing.murmur3_128().newHasher().putString(fingerprint, StandardCharsets.UTF_8).putString(content, StandardCharsets.UTF_8).hash().toString();
+        for (String line : content.split("\r?\n")) {
+            parseLine(line.trim());
+        }
+    }
+
+    /**
+     * Method to find canonical name of an author.
+     *
+     * @param name
+     *            - author name of a commit
+     * @param email
+     *            - author email of a commit
+     * @return canonical name or specified name if it is not mapped
+     */
+    public String resolveName(String name, String email) {
+        EmailMapping mapping = mappings.get(normalize(email));
+        if (mapping == null) {
+            return name;
+        }
+        String properName = mapping.properNamesByCommitName.get(normalize(name));
+        if (properName != null) {
+            return properName;
+        }
+        return mapping.properName != null ? mapping.properName : name;
+    }
+
+    /**
+     * @return true if there are no mappings
+     */
+    public boolean isEmpty() {
+        return mappings.isEmpty();
+    }
+
+    /**
+     * @return description of loaded content, so that data aggregated with
+     *         other mappings can be detected
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    private void parseLine(String line) {
+        if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+            return;
+        }
+        int firstEmailStart = line.indexOf('<');
+        int firstEmailEnd = line.indexOf('>', firstEmailStart + 1);
+        if (firstEmailStart < 0 || firstEmailEnd < 0) {
+            return;
+        }
+        String properName = emptyToNull(line.substring(0, firstEmailStart).trim());
+        int secondEmailStart = line.indexOf('<', firstEmailEnd + 1);
+        int secondEmailEnd = secondEmailStart < 0 ? -1 : line.indexOf('>', secondEmailStart + 1);
+        if (secondEmailEnd < 0) {
+            // "Proper Name <commit@email>"
+            if (properName != null) {
+                mappings.computeIfAbsent(normalize(line.substring(firstEmailStart + 1, firstEmailEnd)), email -> new EmailMapping()).properName = properName;
+            }
+            return;
+        }
+        if (properName == null) {
+            // only email is replaced, so canonical name is not changed
+            return;
+        }
+        String commitName = emptyToNull(line.substring(firstEmailEnd + 1, secondEmailStart).trim());
+        EmailMapping mapping = mappings.computeIfAbsent(normalize(line.substring(secondEmailStart + 1, secondEmailEnd)), email -> new EmailMapping());
+        if (commitName == null) {
+            mapping.properName = properName;
+        } else {
+            mapping.properNamesByCommitName.put(normalize(commitName), properName);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static class EmailMapping {
+        private String properName;
+        private final Map<String, String> properNamesByCommitName = new HashMap<>();
+    }
+}
@@ -0,0 +1,227 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.jgit.diff.DiffConfig;
+import org.eclipse.jgit.errors.RevWalkException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.collector.VCSStatisticsCollectorException;
+import com.shykhmat.vcsstatistics.collector.git.GitParallelCommitEvaluator.CommitMetricsConsumer;
+
+/**
+ * Class to evaluate metrics of a stream of commits by a local git executable.
+ * Commits are taken from the stream by the calling thread and their ids are
+ * written to a single "git diff-tree --stdin" process, that compares every
+ * commit with its parent using the same diff algorithm and rename detection
+ * as {@link GitCommitChangesEvaluator}. NUL separated raw and numstat output
+ * is parsed by a reader thread directly from bytes, paths are decoded only if
+ * path filters or directory rollup need them.
+ * <p>
+ * Results are handed back to the calling thread in the order of the stream,
+ * and at most {@value #WINDOW_SIZE} commits are in progress at any time.
+ * Every commit id is followed by an empty line, that git copies to its output
+ * and flushes, so the end of every commit is known without waiting for the
+ * next one. Files larger than maximal file size are reported by git as
+ * binary and are told apart by their size. Commit cache, blob diff cache and
+ * time budget of a commit are not used.
+ */
+public class GitNativeCommitEvaluator {
+    private static final int WINDOW_SIZE = 256;
+    private static final int ID_LENGTH = Constants.OBJECT_ID_STRING_LENGTH;
+    // default similarity of the rename detector of JGit
+    private static final int RENAME_SCORE = 60;
+
+    private final CollectorSettings settings;
+    private final CollectorListener listener;
+
+    /**
+     * @param settings
+     *            - collector settings, including git executable
+     * @param listener
+     *            - listener notified about walked and evaluated commits
+     */
+    public GitNativeCommitEvaluator(CollectorSettings settings, CollectorListener listener) {
+        this.settings = settings;
+        this.listener = listener;
+    }
+
+    /**
+     * Method to calculate metrics of every commit of a stream. Consumer is
+     * called in the calling thread, in the same order as commits are returned
+     * by the iterator. Changed lines per top-level folder are passed to the
+     * consumer if directory rollup is enabled in settings.
+     *
+     * @param repository
+     *            - Git repository that contains commits
+     * @param commits
+     *            - commits to analyze, merge commits are not evaluated by git
+     * @param consumer
+     *            - consumer of evaluated commits
+     * @throws VCSStatisticsCollectorException
+     *             if git cannot be run, commits cannot be walked or
+     *             evaluation was interrupted or failed
+     */
+    public void evaluateCommits(Repository repository, Iterator<RevCommit> commits, CommitMetricsConsumer consumer) throws VCSStatisticsCollectorException {
+        GitPhaseTimer phaseTimer = new GitPhaseTimer(listener);
+        File errorFile = null;
+        try {
+            errorFile = File.createTempFile("vcsstatistics-git", ".log");
+            evaluateCommits(repository, commits, consumer, phaseTimer, errorFile);
+        } catch (RevWalkException e) {
+            throw new VCSStatisticsCollectorException(e.getCause());
+        } catch (IOException e) {
+            throw new VCSStatisticsCollectorException(new IOException(e.getMessage() + readErrors(errorFile), e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VCSStatisticsCollectorException(e);
+        } finally {
+            phaseTimer.report();
+            if (errorFile != null) {
+                errorFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Method to describe the command, that compares commits.
+     *
+     * @param repository
+     *            - Git repository to be analyzed
+     * @return command line of git
+     */
+    private List<String> createCommand(Repository repository) {
+        DiffConfig diffConfig = repository.getConfig().get(DiffConfig.KEY);
+        List<String> command = new ArrayList<>();
+        command.add(settings.getGitExecutable());
+        command.add("--git-dir=" + repository.getDirectory().getAbsolutePath());
+        // larger files are reported as binary without being compared
+        command.add("-c");
+        command.add("core.bigFileThreshold=" + settings.getMaxBlobSize());
+        command.addAll(Arrays.asList("diff-tree", "--stdin", "-r", "--root", "--always", "--no-abbrev", "--raw", "--numstat", "-z", "--no-ext-diff", "--no-textconv"));
+        command.add("--diff-algorithm=" + settings.getDiffAlgorithm().name().toLowerCase(Locale.ROOT));
+        if (diffConfig.isRenameDetectionEnabled()) {
+            command.add("-M" + RENAME_SCORE + "%");
+            command.add("-l" + diffConfig.getRenameLimit());
+        } else {
+            command.add("--no-renames");
+        }
+        return command;
+    }
+
+    private void evaluateCommits(Repository repository, Iterator<RevCommit> commits, CommitMetricsConsumer consumer, GitPhaseTimer phaseTimer, File errorFile)
+            throws IOException, InterruptedException, VCSStatisticsCollectorException {
+        Process process = new ProcessBuilder(createCommand(repository)).redirectError(errorFile).start();
+        // queue is never full when a commit is added, because it never holds
+        // more commits than the window
+        BlockingQueue<GitPendingCommit> queue = new ArrayBlockingQueue<>(WINDOW_SIZE);
+        ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("native-git-reader-%d").setDaemon(true).build());
+        try {
+            InputStream output = process.getInputStream();
+            executor.submit(() -> read(repository, output, queue));
+            new GitCommitWindow(settings, listener, phaseTimer, WINDOW_SIZE).evaluateCommits(commits, new CommitWriter(process.getOutputStream(), queue), consumer);
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("git exited with code " + exitCode);
+            }
+        } finally {
+            // reader waits for the next commit and is stopped by
+            // interruption
+            executor.shutdownNow();
+            process.destroy();
+        }
+    }
+
+    private void read(Repository repository, InputStream output, BlockingQueue<GitPendingCommit> queue) {
+        try (ObjectReader reader = repository.newObjectReader()) {
+            GitNativeOutputParser parser = new GitNativeOutputParser(new GitNulTokenReader(output), reader, settings, listener);
+            while (true) {
+                GitPendingCommit pendingCommit = queue.take();
+                try {
+                    long startTime = System.nanoTime();
+                    parser.readCommit(pendingCommit);
+                    listener.commitEvaluated(System.nanoTime() - startTime);
+                } catch (IOException | RuntimeException | Error e) {
+                    // output cannot be matched to the following commits
+                    pendingCommit.setFailure(e);
+                    return;
+                } finally {
+                    pendingCommit.evaluated();
+                }
+            }
+        } catch (InterruptedException e) {
+            // all commits were consumed or evaluation was cancelled
+        }
+    }
+
+    private static String readErrors(File errorFile) {
+        if (errorFile == null) {
+            return "";
+        }
+        try {
+            String errors = new String(Files.readAllBytes(errorFile.toPath()), StandardCharsets.UTF_8).trim();
+            return errors.isEmpty() ? "" : ": " + errors;
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Writer of commit ids to the input of git. Every id is followed by an
+     * empty line, ids are buffered until the calling thread waits for a
+     * commit.
+     */
+    private static class CommitWriter implements GitCommitWindow.Evaluation {
+        private final OutputStream input;
+        private final BlockingQueue<GitPendingCommit> queue;
+        private final byte[] line;
+
+        CommitWriter(OutputStream input, BlockingQueue<GitPendingCommit> queue) {
+            this.input = new BufferedOutputStream(input);
+            this.queue = queue;
+            line = new byte[ID_LENGTH + 2];
+            line[ID_LENGTH] = '\n';
+            line[ID_LENGTH + 1] = '\n';
+        }
+
+        @Override
+        public void submit(GitPendingCommit pendingCommit) throws IOException {
+            queue.add(pendingCommit);
+            pendingCommit.getCommit().copyTo(line, 0);
+            input.write(line);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // git should receive the awaited commit before waiting
+            input.flush();
+        }
+
+        @Override
+        public void endOfCommits() throws IOException {
+            // git exits after the last commit is evaluated
+            input.close();
+        }
+    }
+}
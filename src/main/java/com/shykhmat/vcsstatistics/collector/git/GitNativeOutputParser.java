@@ -0,0 +1,235 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.MutableObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.MutableInteger;
+import org.eclipse.jgit.util.RawParseUtils;
+
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.domain.CommitMetric;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+
+/**
+ * Parser of the output of a single "git diff-tree --raw --numstat -z"
+ * process, owned by the thread that reads it. Raw entries of a commit are
+ * written before its numstat entries and in the same order, so they are kept
+ * until numstat entries with the same index are read. Instance is not thread
+ * safe.
+ */
+class GitNativeOutputParser {
+    private static final int ID_LENGTH = Constants.OBJECT_ID_STRING_LENGTH;
+    // raw entry is ":<old mode> <new mode> <old id> <new id> <status>"
+    private static final int RAW_NEW_MODE_OFFSET = ":100644 ".length();
+    private static final int RAW_OLD_ID_OFFSET = ":100644 100644 ".length();
+    private static final int RAW_NEW_ID_OFFSET = RAW_OLD_ID_OFFSET + ID_LENGTH + 1;
+    private static final int RAW_STATUS_OFFSET = RAW_NEW_ID_OFFSET + ID_LENGTH + 1;
+    private static final byte[] GITLINK_MODE = Constants.encodeASCII("160000");
+
+    private final GitNulTokenReader tokens;
+    private final ObjectReader reader;
+    private final CollectorListener listener;
+    private final GitPathTreeFilter pathFilter;
+    private final long maxBlobSize;
+    private final MutableObjectId commitId = new MutableObjectId();
+    private final MutableInteger position = new MutableInteger();
+    private byte[] statuses = new byte[16];
+    private boolean[] gitlinks = new boolean[16];
+    private MutableObjectId[] oldIds = new MutableObjectId[0];
+    private MutableObjectId[] newIds = new MutableObjectId[0];
+    private int rawCount;
+    private int numstatCount;
+
+    /**
+     * @param tokens
+     *            - NUL separated output of git
+     * @param reader
+     *            - reader of the repository, used to tell files larger than
+     *            maximal file size from binary files
+     * @param settings
+     *            - collector settings, including maximal file size and path
+     *            filters
+     * @param listener
+     *            - listener notified about compared and skipped files
+     */
+    GitNativeOutputParser(GitNulTokenReader tokens, ObjectReader reader, CollectorSettings settings, CollectorListener listener) {
+        this.tokens = tokens;
+        this.reader = reader;
+        this.listener = listener;
+        TreeFilter filter = GitPathTreeFilter.create(settings.getPathFilters());
+        pathFilter = filter instanceof GitPathTreeFilter ? (GitPathTreeFilter) filter : null;
+        maxBlobSize = settings.getMaxBlobSize();
+    }
+
+    /**
+     * Method to read output of the next commit and to add its metrics.
+     *
+     * @param pendingCommit
+     *            - commit, which id git receives next
+     * @throws IOException
+     *             if output cannot be read or does not match the commit
+     */
+    void readCommit(GitPendingCommit pendingCommit) throws IOException {
+        RevCommit commit = pendingCommit.getCommit();
+        readToken(commit);
+        if (tokens.getTokenEnd() - tokens.getTokenStart() != ID_LENGTH) {
+            throw unexpectedOutput(commit);
+        }
+        commitId.fromString(tokens.getBuffer(), tokens.getTokenStart());
+        if (!commitId.equals(commit)) {
+            throw unexpectedOutput(commit);
+        }
+        pendingCommit.getMetrics().add(CommitMetric.COMMITS, 1);
+        rawCount = 0;
+        numstatCount = 0;
+        while (true) {
+            int next = tokens.peek();
+            if (next == '\n') {
+                tokens.skip();
+                return;
+            }
+            readToken(commit);
+            if (tokens.getBuffer()[tokens.getTokenStart()] == ':') {
+                readRawEntry(commit);
+            } else {
+                readNumstatEntry(pendingCommit);
+            }
+        }
+    }
+
+    private void readRawEntry(RevCommit commit) throws IOException {
+        byte[] buffer = tokens.getBuffer();
+        int start = tokens.getTokenStart();
+        if (tokens.getTokenEnd() - start <= RAW_STATUS_OFFSET) {
+            throw unexpectedOutput(commit);
+        }
+        if (rawCount == statuses.length) {
+            statuses = Arrays.copyOf(statuses, rawCount * 2);
+            gitlinks = Arrays.copyOf(gitlinks, rawCount * 2);
+        }
+        if (rawCount == oldIds.length) {
+            oldIds = Arrays.copyOf(oldIds, Math.max(16, rawCount * 2));
+            newIds = Arrays.copyOf(newIds, oldIds.length);
+            for (int i = rawCount; i < oldIds.length; i++) {
+                oldIds[i] = new MutableObjectId();
+                newIds[i] = new MutableObjectId();
+            }
+        }
+        byte status = buffer[start + RAW_STATUS_OFFSET];
+        statuses[rawCount] = status;
+        gitlinks[rawCount] = isGitlink(buffer, start + 1) || isGitlink(buffer, start + RAW_NEW_MODE_OFFSET);
+        oldIds[rawCount].fromString(buffer, start + RAW_OLD_ID_OFFSET);
+        newIds[rawCount].fromString(buffer, start + RAW_NEW_ID_OFFSET);
+        rawCount++;
+        // renamed and copied files are followed by both paths
+        readToken(commit);
+        if (status == 'R' || status == 'C') {
+            readToken(commit);
+        }
+    }
+
+    private void readNumstatEntry(GitPendingCommit pendingCommit) throws IOException {
+        RevCommit commit = pendingCommit.getCommit();
+        int index = numstatCount++;
+        if (index >= rawCount) {
+            throw unexpectedOutput(commit);
+        }
+        byte[] buffer = tokens.getBuffer();
+        int end = tokens.getTokenEnd();
+        boolean binary = buffer[tokens.getTokenStart()] == '-';
+        long insertions = RawParseUtils.parseLongBase10(buffer, tokens.getTokenStart(), position);
+        long deletions = RawParseUtils.parseLongBase10(buffer, skipTab(buffer, position.value, end, commit), position);
+        int pathStart = skipTab(buffer, position.value, end, commit);
+        if (pathStart == end) {
+            // renamed file is followed by old and new path
+            readToken(commit);
+            readToken(commit);
+            buffer = tokens.getBuffer();
+            pathStart = tokens.getTokenStart();
+            end = tokens.getTokenEnd();
+        }
+        if (gitlinks[index]) {
+            return;
+        }
+        String path = pathFilter != null ? RawParseUtils.decode(buffer, pathStart, end) : null;
+        if (pathFilter != null && !pathFilter.includesFile(path)) {
+            return;
+        }
+        CommitMetrics metrics = pendingCommit.getMetrics();
+        addFileMetrics(statuses[index], metrics);
+        if (binary) {
+            if (isOversized(oldIds[index]) || isOversized(newIds[index])) {
+                listener.oversizedFileSkipped();
+            } else {
+                listener.binaryFileSkipped();
+                metrics.add(CommitMetric.BINARY_FILES, 1);
+            }
+            return;
+        }
+        listener.fileCompared();
+        metrics.add(CommitMetric.INSERTIONS, insertions);
+        metrics.add(CommitMetric.DELETIONS, deletions);
+        if (pendingCommit.getDirectoryChanges() != null && insertions > 0) {
+            pendingCommit.getDirectoryChanges().add(path != null ? path : RawParseUtils.decode(buffer, pathStart, end), insertions);
+        }
+    }
+
+    private void addFileMetrics(byte status, CommitMetrics metrics) {
+        switch (status) {
+        case 'A':
+        case 'C':
+            metrics.add(CommitMetric.FILES_ADDED, 1);
+            break;
+        case 'D':
+            metrics.add(CommitMetric.FILES_DELETED, 1);
+            break;
+        case 'R':
+            metrics.add(CommitMetric.FILES_RENAMED, 1);
+            break;
+        case 'T':
+            // JGit reports change of file type as deletion and addition
+            metrics.add(CommitMetric.FILES_DELETED, 1);
+            metrics.add(CommitMetric.FILES_ADDED, 1);
+            break;
+        default:
+            metrics.add(CommitMetric.FILES_MODIFIED, 1);
+        }
+    }
+
+    private boolean isOversized(MutableObjectId id) throws IOException {
+        return !ObjectId.zeroId().equals(id) && reader.getObjectSize(id, Constants.OBJ_BLOB) > maxBlobSize;
+    }
+
+    private void readToken(RevCommit commit) throws IOException {
+        if (!tokens.readToken()) {
+            throw new IOException("Output of git ended before commit " + commit.name() + " was evaluated");
+        }
+    }
+
+    private int skipTab(byte[] buffer, int index, int end, RevCommit commit) throws IOException {
+        if (index >= end || buffer[index] != '\t') {
+            throw unexpectedOutput(commit);
+        }
+        return index + 1;
+    }
+
+    private boolean isGitlink(byte[] buffer, int modeStart) {
+        for (int i = 0; i < GITLINK_MODE.length; i++) {
+            if (buffer[modeStart + i] != GITLINK_MODE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IOException unexpectedOutput(RevCommit commit) {
+        return new IOException("Unexpected output of git for commit " + commit.name());
+    }
+}
@@ -0,0 +1,125 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reader of NUL terminated tokens, that git writes when paths are not quoted.
+ * Tokens are not copied: a token is a range of the internal buffer, that is
+ * valid until the next read. Buffer is compacted when a token crosses its end
+ * and grows only for tokens longer than the buffer, so reading does not
+ * allocate memory per token.
+ */
+class GitNulTokenReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream input;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * @param input
+     *            - stream to read tokens from, it is not closed by the reader
+     */
+    GitNulTokenReader(InputStream input) {
+        this(input, BUFFER_SIZE);
+    }
+
+    /**
+     * @param input
+     *            - stream to read tokens from, it is not closed by the reader
+     * @param bufferSize
+     *            - initial size of the buffer
+     */
+    GitNulTokenReader(InputStream input, int bufferSize) {
+        this.input = input;
+        buffer = new byte[bufferSize];
+    }
+
+    /**
+     * @return next byte without consuming it, -1 at the end of the stream
+     * @throws IOException
+     *             if stream cannot be read
+     */
+    int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    /**
+     * Method to consume a single byte returned by {@link #peek()}.
+     */
+    void skip() {
+        position++;
+    }
+
+    /**
+     * Method to read the next token, that is available by
+     * {@link #getBuffer()}, {@link #getTokenStart()} and
+     * {@link #getTokenEnd()} until the next read.
+     *
+     * @return false if stream ended before the terminating NUL
+     * @throws IOException
+     *             if stream cannot be read
+     */
+    boolean readToken() throws IOException {
+        int scanned = position;
+        while (true) {
+            for (; scanned < limit; scanned++) {
+                if (buffer[scanned] == 0) {
+                    tokenStart = position;
+                    tokenEnd = scanned;
+                    position = scanned + 1;
+                    return true;
+                }
+            }
+            int offset = position;
+            if (!fill()) {
+                return false;
+            }
+            scanned -= offset - position;
+        }
+    }
+
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    int getTokenStart() {
+        return tokenStart;
+    }
+
+    int getTokenEnd() {
+        return tokenEnd;
+    }
+
+    /**
+     * Method to read more bytes, unread bytes are moved to the start of the
+     * buffer.
+     *
+     * @return false at the end of the stream
+     */
+    private boolean fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            byte[] grown = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, remaining);
+            buffer = grown;
+        }
+        position = 0;
+        limit = remaining;
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
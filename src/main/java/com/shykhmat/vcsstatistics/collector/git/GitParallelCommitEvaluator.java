@@ -0,0 +1,273 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.errors.RevWalkException;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorPhase;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.collector.VCSStatisticsCollectorException;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+
+/**
+ * Class to evaluate metrics of a stream of commits using a bounded
+ * pool of worker threads. Commits are taken from the stream by the calling
+ * thread and passed to workers through a queue, every running worker owns a
+ * {@link GitCommitChangesEvaluator}. Results are handed back to the
+ * calling thread in the order of the stream, and at most
+ * {@value #WINDOW_PER_WORKER} commits per worker are in progress at any
+ * time, so memory usage does not depend on the length of the stream.
+ * <p>
+ * Workers are either run on a pool created for a single evaluation or on a
+ * pool shared with other repositories, e.g. during batch analysis. Workers
+ * end when the queue is empty, so threads of a shared pool are taken only
+ * while there are commits to evaluate.
+ */
+public class GitParallelCommitEvaluator {
+    private static final int WINDOW_PER_WORKER = 64;
+
+    private final CollectorSettings settings;
+    private final GitCommitChangesCache commitChangesCache;
+    private final GitBlobDiffCache blobDiffCache;
+    private final ExecutorService sharedWorkerPool;
+    private final CollectorListener listener;
+
+    /**
+     * @param settings
+     *            - collector settings, including maximal amount of worker
+     *            threads used for a single repository
+     * @param commitChangesCache
+     *            - cache of already evaluated commits shared between workers
+     * @param blobDiffCache
+     *            - cache of diff results per pair of blobs shared between
+     *            workers
+     * @param sharedWorkerPool
+     *            - pool to run workers on, null to create a pool for every
+     *            evaluation
+     * @param listener
+     *            - listener notified about walked and evaluated commits
+     */
+    public GitParallelCommitEvaluator(CollectorSettings settings, GitCommitChangesCache commitChangesCache, GitBlobDiffCache blobDiffCache, ExecutorService sharedWorkerPool,
+            CollectorListener listener) {
+        this.settings = settings;
+        this.commitChangesCache = commitChangesCache;
+        this.blobDiffCache = blobDiffCache;
+        this.sharedWorkerPool = sharedWorkerPool;
+        this.listener = listener;
+    }
+
+    /**
+     * Method to calculate metrics of every commit of a stream. Consumer is
+     * called in the calling thread, in the same order as commits are returned
+     * by the iterator. Changed lines per top-level folder are passed to the
+     * consumer if directory rollup is enabled in settings.
+     *
+     * @param repository
+     *            - Git repository that contains commits
+     * @param commits
+     *            - commits to analyze, e.g. a {@link org.eclipse.jgit.revwalk.RevWalk}
+     * @param consumer
+     *            - consumer of evaluated commits
+     * @throws VCSStatisticsCollectorException
+     *             if commits cannot be walked or evaluation was interrupted
+     *             or failed
+     */
+    public void evaluateCommits(Repository repository, Iterator<RevCommit> commits, CommitMetricsConsumer consumer) throws VCSStatisticsCollectorException {
+        GitPhaseTimer phaseTimer = new GitPhaseTimer(listener);
+        try {
+            if (settings.getParallelism() == 1 && sharedWorkerPool == null) {
+                evaluateSequentially(repository, commits, consumer, phaseTimer);
+            } else {
+                evaluateInParallel(repository, commits, consumer, phaseTimer);
+            }
+        } catch (RevWalkException e) {
+            throw new VCSStatisticsCollectorException(e.getCause());
+        } catch (IOException e) {
+            throw new VCSStatisticsCollectorException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VCSStatisticsCollectorException(e);
+        } finally {
+            phaseTimer.report();
+        }
+    }
+
+    /**
+     * Method to create a pool of worker threads.
+     *
+     * @param workersCount
+     *            - amount of worker threads
+     * @return pool of daemon worker threads
+     */
+    public static ExecutorService newWorkerPool(int workersCount) {
+        return Executors.newFixedThreadPool(workersCount, new ThreadFactoryBuilder().setNameFormat("commit-evaluator-%d").setDaemon(true).build());
+    }
+
+    private void evaluateSequentially(Repository repository, Iterator<RevCommit> commits, CommitMetricsConsumer consumer, GitPhaseTimer phaseTimer) throws IOException {
+        GitCommitWindow window = new GitCommitWindow(settings, listener, phaseTimer, 1);
+        try (GitCommitChangesEvaluator commitChangesEvaluator = new GitCommitChangesEvaluator(repository, settings, commitChangesCache, blobDiffCache, listener)) {
+            CommitMetrics metrics = new CommitMetrics();
+            RevCommit commit;
+            while ((commit = window.nextCommit(commits)) != null) {
+                GitDirectoryChanges directoryChanges = window.newDirectoryChanges();
+                commitChangesEvaluator.evaluateCommitMetrics(commit, metrics, directoryChanges);
+                phaseTimer.complete(CollectorPhase.EVALUATE);
+                consumer.accept(commit, metrics, directoryChanges);
+                phaseTimer.complete(CollectorPhase.AGGREGATE);
+            }
+        }
+    }
+
+    private void evaluateInParallel(Repository repository, Iterator<RevCommit> commits, CommitMetricsConsumer consumer, GitPhaseTimer phaseTimer)
+            throws IOException, InterruptedException, VCSStatisticsCollectorException {
+        int workersCount = settings.getParallelism();
+        ExecutorService executor = sharedWorkerPool != null ? sharedWorkerPool : newWorkerPool(workersCount);
+        Workers workers = new Workers(repository, executor, workersCount);
+        try {
+            new GitCommitWindow(settings, listener, phaseTimer, workersCount * WINDOW_PER_WORKER).evaluateCommits(commits, workers, consumer);
+        } finally {
+            workers.close();
+            if (executor != sharedWorkerPool) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Consumer of evaluated commits.
+     */
+    @FunctionalInterface
+    public interface CommitMetricsConsumer {
+        /**
+         * @param commit
+         *            - evaluated commit, its body may be not loaded
+         * @param metrics
+         *            - metrics of the commit, the instance may be reused for
+         *            the next commit after the call
+         * @param directoryChanges
+         *            - changed lines of the commit per top-level folder, null
+         *            if directory rollup is disabled
+         * @throws IOException
+         *             if commit cannot be processed
+         */
+        void accept(RevCommit commit, CommitMetrics metrics, GitDirectoryChanges directoryChanges) throws IOException;
+    }
+
+    /**
+     * Workers of a single evaluation. At most as many workers as parallelism
+     * in settings run at the same time, and every worker ends as soon as no
+     * commits wait for evaluation, so a shared pool is not occupied by
+     * evaluations that are waiting for their walks. Evaluators are reused by
+     * the following workers and are closed together with the workers.
+     */
+    private class Workers implements GitCommitWindow.Evaluation {
+        private final Repository repository;
+        private final ExecutorService executor;
+        private final int maxWorkers;
+        private final Queue<GitPendingCommit> pendingCommits = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+        private final Deque<GitCommitChangesEvaluator> idleEvaluators = new ArrayDeque<>();
+        private boolean closed;
+
+        Workers(Repository repository, ExecutorService executor, int maxWorkers) {
+            this.repository = repository;
+            this.executor = executor;
+            this.maxWorkers = maxWorkers;
+        }
+
+        @Override
+        public void submit(GitPendingCommit pendingCommit) {
+            pendingCommits.add(pendingCommit);
+            if (startWorker()) {
+                try {
+                    executor.execute(this::evaluate);
+                } catch (RejectedExecutionException e) {
+                    activeWorkers.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+
+        /**
+         * Method to stop evaluation of commits that were not started yet and
+         * to close evaluators. Evaluators of running workers are closed when
+         * they end.
+         */
+        void close() {
+            pendingCommits.clear();
+            synchronized (idleEvaluators) {
+                closed = true;
+                idleEvaluators.forEach(GitCommitChangesEvaluator::close);
+                idleEvaluators.clear();
+            }
+        }
+
+        private boolean startWorker() {
+            while (true) {
+                int workers = activeWorkers.get();
+                if (workers >= maxWorkers) {
+                    return false;
+                }
+                if (activeWorkers.compareAndSet(workers, workers + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void evaluate() {
+            do {
+                GitCommitChangesEvaluator evaluator = obtainEvaluator();
+                try {
+                    GitPendingCommit pendingCommit;
+                    while ((pendingCommit = pendingCommits.poll()) != null) {
+                        try {
+                            evaluator.evaluateCommitMetrics(pendingCommit.getCommit(), pendingCommit.getMetrics(), pendingCommit.getDirectoryChanges());
+                        } catch (RuntimeException | Error e) {
+                            pendingCommit.setFailure(e);
+                        } finally {
+                            pendingCommit.evaluated();
+                        }
+                    }
+                } finally {
+                    releaseEvaluator(evaluator);
+                    activeWorkers.decrementAndGet();
+                }
+                // commit added after the last poll may have found all workers
+                // still active
+            } while (!pendingCommits.isEmpty() && startWorker());
+        }
+
+        private GitCommitChangesEvaluator obtainEvaluator() {
+            synchronized (idleEvaluators) {
+                GitCommitChangesEvaluator evaluator = idleEvaluators.poll();
+                if (evaluator != null) {
+                    return evaluator;
+                }
+            }
+            return new GitCommitChangesEvaluator(repository, settings, commitChangesCache, blobDiffCache, listener);
+        }
+
+        private void releaseEvaluator(GitCommitChangesEvaluator evaluator) {
+            synchronized (idleEvaluators) {
+                if (closed) {
+                    evaluator.close();
+                } else {
+                    idleEvaluators.push(evaluator);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Tree filter that selects paths by glob patterns. Pattern prefixed with "!"
+ * excludes matching paths, other patterns include them; if there are no
+ * include patterns, all paths that are not excluded are included.
+ * <p>
+ * Patterns use "/" as separator, "*" matches any characters except "/", "?"
+ * matches a single character except "/" and "**" matches any number of
+ * folders. Pattern without "/" matches file or folder name at any depth, e.g.
+ * "*.lock", other patterns match from repository root, e.g. "src/**".
+ * Excluded folders and folders that cannot contain included paths are not
+ * walked at all, so their contents are never read.
+ */
+public class GitPathTreeFilter extends TreeFilter {
+    private static final String EXCLUDE_PREFIX = "!";
+    private static final char SEPARATOR = '/';
+
+    private final List<Pattern> includes;
+    private final List<Pattern> excludes;
+
+    private GitPathTreeFilter(List<Pattern> includes, List<Pattern> excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * Method to create filter from glob patterns.
+     *
+     * @param patterns
+     *            - include patterns and exclude patterns prefixed with "!"
+     * @return filter of paths, {@link TreeFilter#ALL} if there are no patterns
+     * @throws IllegalArgumentException
+     *             if any pattern is empty
+     */
+    public static TreeFilter create(List<String> patterns) {
+        if (patterns.isEmpty()) {
+            return TreeFilter.ALL;
+        }
+        List<Pattern> includes = new ArrayList<>();
+        List<Pattern> excludes = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern.startsWith(EXCLUDE_PREFIX)) {
+                excludes.add(compile(pattern.substring(EXCLUDE_PREFIX.length())));
+            } else {
+                includes.add(compile(pattern));
+            }
+        }
+        return new GitPathTreeFilter(includes, excludes);
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+        return includesPath(walker.getPathString(), walker.isSubtree());
+    }
+
+    /**
+     * Method to check a file path the same way as the tree walk would check
+     * the file and all its folders.
+     *
+     * @param path
+     *            - path of a file relative to the project root
+     * @return true if the file is included
+     */
+    boolean includesFile(String path) {
+        for (int separator = path.indexOf(SEPARATOR); separator >= 0; separator = path.indexOf(SEPARATOR, separator + 1)) {
+            if (!includesPath(path.substring(0, separator), true)) {
+                return false;
+            }
+        }
+        return includesPath(path, false);
+    }
+
+    private boolean includesPath(String path, boolean subtree) {
+        for (Pattern exclude : excludes) {
+            if (exclude.matcher(path).matches()) {
+                return false;
+            }
+        }
+        if (includes.isEmpty()) {
+            return true;
+        }
+        for (Pattern include : includes) {
+            if (subtree ? mayContainMatches(include, path) : include.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+        return true;
+    }
+
+    @Override
+    public TreeFilter clone() {
+        // filter has no state that changes during the walk
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PATHS(" + includes + ", !" + excludes + ")";
+    }
+
+    private static boolean mayContainMatches(Pattern include, String folderPath) {
+        // folder is walked if the pattern matches it or could match a longer
+        // path that starts with it
+        Matcher matcher = include.matcher(folderPath + SEPARATOR);
+        return matcher.matches() || matcher.hitEnd();
+    }
+
+    /**
+     * @param glob
+     *            - pattern or plain name
+     * @return true if pattern contains wildcards
+     */
+    static boolean isPattern(String glob) {
+        return glob.indexOf('*') >= 0 || glob.indexOf('?') >= 0;
+    }
+
+    /**
+     * Method to convert glob pattern into regular expression. Pattern without
+     * "/" matches the last part of a path at any depth.
+     *
+     * @param glob
+     *            - pattern with "/" as separator
+     * @return regular expression that matches whole path
+     */
+    static Pattern compile(String glob) {
+        String path = glob.startsWith(String.valueOf(SEPARATOR)) ? glob.substring(1) : glob;
+        if (path.endsWith(String.valueOf(SEPARATOR))) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (path.isEmpty()) {
+            throw new IllegalArgumentException("Path pattern should not be empty, but was '" + glob + "'");
+        }
+        StringBuilder regex = new StringBuilder();
+        if (glob.indexOf(SEPARATOR) < 0) {
+            regex.append("(?:.*/)?");
+        }
+        int i = 0;
+        while (i < path.length()) {
+            char character = path.charAt(i);
+            if (path.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 3;
+            } else if (path.startsWith("/**", i) && i + 3 == path.length()) {
+                regex.append("(?:/.*)?");
+                i += 3;
+            } else if (path.startsWith("**", i)) {
+                regex.append(".*");
+                i += 2;
+            } else if (character == '*') {
+                regex.append("[^/]*");
+                i++;
+            } else if (character == '?') {
+                regex.append("[^/]");
+                i++;
+            } else {
+                regex.append(Pattern.quote(String.valueOf(character)));
+                i++;
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,67 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+
+/**
+ * Commit handed over from the calling thread to the thread that evaluates
+ * it. Metrics, directory changes and failure are written by the evaluating
+ * thread before {@link #evaluated()} and are read by the calling thread after
+ * {@link #awaitEvaluation()}.
+ */
+class GitPendingCommit {
+    private final RevCommit commit;
+    private final GitDirectoryChanges directoryChanges;
+    private final CommitMetrics metrics;
+    private final CountDownLatch evaluated;
+    private Throwable failure;
+
+    /**
+     * @param commit
+     *            - commit to evaluate
+     * @param directoryChanges
+     *            - changed lines per top-level folder to fill, null if
+     *            directory rollup is disabled
+     */
+    GitPendingCommit(RevCommit commit, GitDirectoryChanges directoryChanges) {
+        this.commit = commit;
+        this.directoryChanges = directoryChanges;
+        metrics = new CommitMetrics();
+        evaluated = new CountDownLatch(1);
+    }
+
+    RevCommit getCommit() {
+        return commit;
+    }
+
+    GitDirectoryChanges getDirectoryChanges() {
+        return directoryChanges;
+    }
+
+    CommitMetrics getMetrics() {
+        return metrics;
+    }
+
+    Throwable getFailure() {
+        return failure;
+    }
+
+    void setFailure(Throwable failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * Method to hand the commit back to the calling thread, it is called once
+     * whether evaluation succeeded or failed.
+     */
+    void evaluated() {
+        evaluated.countDown();
+    }
+
+    void awaitEvaluation() throws InterruptedException {
+        evaluated.await();
+    }
+}
@@ -0,0 +1,37 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorPhase;
+
+/**
+ * Splits time of the calling thread between phases of an evaluation
+ * pipeline. Every call completes the phase that lasted since the previous
+ * call, totals are reported to the listener once at the end.
+ */
+class GitPhaseTimer {
+    private final CollectorListener listener;
+    private final long[] phaseNanos = new long[CollectorPhase.values().length];
+    private long lastTime = System.nanoTime();
+
+    /**
+     * @param listener
+     *            - listener to report phase durations to
+     */
+    GitPhaseTimer(CollectorListener listener) {
+        this.listener = listener;
+    }
+
+    void complete(CollectorPhase phase) {
+        long time = System.nanoTime();
+        phaseNanos[phase.ordinal()] += time - lastTime;
+        lastTime = time;
+    }
+
+    void report() {
+        for (CollectorPhase phase : CollectorPhase.values()) {
+            if (phaseNanos[phase.ordinal()] > 0) {
+                listener.phaseCompleted(phase, phaseNanos[phase.ordinal()]);
+            }
+        }
+    }
+}
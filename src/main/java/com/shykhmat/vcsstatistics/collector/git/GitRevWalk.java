@@ -0,0 +1,56 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Walk over commits, which commits keep the day they are counted in, once it
+ * was found by a date range filter of the walk. Together with the raw commit
+ * the filter has read, it is reused when the commit is consumed, so a commit
+ * is neither inflated nor dated twice.
+ */
+class GitRevWalk extends RevWalk {
+    /**
+     * @param repository
+     *            - Git repository
+     */
+    GitRevWalk(Repository repository) {
+        super(repository);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RevCommit createCommit(AnyObjectId id) {
+        return new DatedCommit(id);
+    }
+
+    /**
+     * Commit, that keeps the day it is counted in.
+     */
+    static class DatedCommit extends RevCommit {
+        private static final long serialVersionUID = 3946718410517637042L;
+        private static final int UNKNOWN_DAY = Integer.MIN_VALUE;
+
+        private int epochDay = UNKNOWN_DAY;
+
+        DatedCommit(AnyObjectId id) {
+            super(id);
+        }
+
+        boolean hasEpochDay() {
+            return epochDay != UNKNOWN_DAY;
+        }
+
+        int getEpochDay() {
+            return epochDay;
+        }
+
+        void setEpochDay(int epochDay) {
+            this.epochDay = epochDay;
+        }
+    }
+}
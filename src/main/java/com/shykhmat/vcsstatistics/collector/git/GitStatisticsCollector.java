@@ -3,25 +3,49 @@ package com.shykhmat.vcsstatistics.collector.git;
 import java.io.File;
 import java.io.IOException;
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IntSummaryStatistics;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Predicate;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.eclipse.jgit.errors.RevWalkException;
 import org.eclipse.jgit.lib.Constants;
-import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.lib.RepositoryCache.FileKey;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.shykhmat.vcsstatistics.collector.CollectionCancelledException;
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorProgress;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.collector.GitBackend;
 import com.shykhmat.vcsstatistics.collector.VCSStatisticsCollector;
 import com.shykhmat.vcsstatistics.collector.VCSStatisticsCollectorException;
+import com.shykhmat.vcsstatistics.collector.git.GitParallelCommitEvaluator.CommitMetricsConsumer;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+import com.shykhmat.vcsstatistics.domain.CommitMetricsTable;
+import com.shykhmat.vcsstatistics.domain.Granularity;
 import com.shykhmat.vcsstatistics.domain.ProjectReport;
-import com.shykhmat.vcsstatistics.utils.DateUtils;
+import com.shykhmat.vcsstatistics.domain.StatisticsMatrix;
+import com.shykhmat.vcsstatistics.domain.StatisticsView;
 
 /**
  * Implementation of {@link VCSStatisticsCollector} to work with Git version
@@ -30,31 +54,298 @@ import com.shykhmat.vcsstatistics.utils.DateUtils;
 public class GitStatisticsCollector implements VCSStatisticsCollector {
     private static final Logger LOGGER = LoggerFactory.getLogger(GitStatisticsCollector.class);
     private static final String GIT_PROJECT_CONFIG_FOLDER = ".git";
+    private static final String DEFAULT_CACHE_FOLDER = "vcsstatistics";
+    private static final String COMMIT_CACHE_FILE = "commit-changes.cache";
+    private static final String INCREMENTAL_STATE_FILE = "incremental.state";
+
+    private final CollectorSettings settings;
+    private final ExecutorService sharedWorkerPool;
+    private final Map<String, GitCommitChangesCache> openCommitChangesCaches;
+    private final GitBlobDiffCache blobDiffCache;
+    private CollectorListener listener;
+
+    public GitStatisticsCollector() {
+        this(new CollectorSettings());
+    }
+
+    public GitStatisticsCollector(CollectorSettings settings) {
+        this(settings, null);
+    }
+
+    /**
+     * @param settings
+     *            - collector settings
+     * @param sharedWorkerPool
+     *            - pool to evaluate commits on, shared between several
+     *            collectors to limit total amount of worker threads; null to
+     *            create a pool for every repository
+     */
+    public GitStatisticsCollector(CollectorSettings settings, ExecutorService sharedWorkerPool) {
+        this.settings = settings;
+        this.sharedWorkerPool = sharedWorkerPool;
+        openCommitChangesCaches = new ConcurrentHashMap<>();
+        // blobs are identified by their content and evaluation settings are
+        // the same for all repositories, so results are shared between them
+        blobDiffCache = settings.getBlobDiffCacheSize() > 0 ? GitBlobDiffCache.create(settings.getBlobDiffCacheSize()) : GitBlobDiffCache.disabled();
+        listener = CollectorListener.NONE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCollectorListener(CollectorListener listener) {
+        this.listener = listener;
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public ProjectReport collectStatistics(String projectPath, LocalDate dateFrom, LocalDate dateTo) throws VCSStatisticsCollectorException {
+    public ProjectReport collectStatistics(String projectPath, LocalDate dateFrom, LocalDate dateTo, CollectorProgress progress) throws VCSStatisticsCollectorException {
         LOGGER.info("Obtaining Git repository at path {}", projectPath);
         String fixedProjectPath = fixProjectPath(projectPath);
-        try (Repository repository = new FileRepositoryBuilder().setGitDir(new File(fixedProjectPath)).build()) {
-            Map<String, Map<LocalDate, Long>> userReport = new HashMap<>();
-            GitCommitCollector commitCollector = new GitCommitCollector();
-            LOGGER.info("Collecting commits");
-            List<RevCommit> commits = commitCollector.getCommitStream(repository).sorted((c1, c2) -> getCommitDate(c1).compareTo(getCommitDate(c2))).collect(Collectors.toList());
-            if (commits.size() > 0) {
-                dateFrom = dateFrom == null ? getCommitDate(commits.get(0)) : dateFrom;
-                LOGGER.info("First processing commit date {}", dateFrom.toString());
-                dateTo = dateTo == null ? getCommitDate(commits.get(commits.size() - 1)) : dateTo;
-                LOGGER.info("Last processing commit date {}", dateTo.toString());
-                LOGGER.info("Collecting commit statistics");
-                GitCommitChangesEvaluator commitChangesEvaluator = new GitCommitChangesEvaluator();
-                userReport = commits.stream().filter(constructCommitsDateRangeFilter(dateFrom, dateTo)).collect(
-                                Collectors.groupingBy(this::getAuthorName, Collectors.groupingBy(this::getCommitDate,
-                                        Collectors.summingLong(commit -> commitChangesEvaluator.evaluateChangedLines(repository, commit)))));
+        CollectionRun run = new CollectionRun(progress);
+        GitWindowCache.install(settings, new File(fixedProjectPath));
+        try (Repository repository = openRepository(new File(fixedProjectPath))) {
+            ProjectReport projectReport = settings.isIncremental() ? collectIncrementalStatistics(repository, dateFrom, dateTo, run) : collectStatistics(repository, dateFrom, dateTo, run);
+            run.complete(projectReport);
+            GitWindowCache.report(listener);
+            if (settings.getGitBackend() == GitBackend.JGIT) {
+                blobDiffCache.logStatistics();
             }
-            return new ProjectReport(obtainRepositoryName(repository), dateFrom, dateTo, userReport);
+            return projectReport;
+        } catch (CancellationException e) {
+            throw new CollectionCancelledException("Collection of statistics for " + projectPath + " was cancelled after " + run.progress.getProcessedCommits() + " commit(s)");
+        } catch (IOException e) {
+            throw new VCSStatisticsCollectorException(e);
+        } finally {
+            run.progress.finished();
+        }
+    }
+
+    private ProjectReport collectStatistics(Repository repository, LocalDate dateFrom, LocalDate dateTo, CollectionRun run) throws VCSStatisticsCollectorException {
+        Granularity granularity = settings.getGranularity();
+        StatisticsMatrix statistics = new StatisticsMatrix(granularity);
+        StatisticsMatrix directoryStatistics = settings.isDirectoryRollup() ? new StatisticsMatrix(granularity) : null;
+        CommitMetricsTable commitMetrics = new CommitMetricsTable();
+        GitCommitCollector commitCollector = new GitCommitCollector(settings);
+        GitAuthorIndex authorIndex = new GitAuthorIndex(statistics, loadMailmap(repository, commitCollector.resolveHead(repository)));
+        GitCommitDays commitDays = new GitCommitDays(settings);
+        IntSummaryStatistics days = new IntSummaryStatistics();
+        Map<String, ObjectId> starts = resolveStarts(repository, commitCollector);
+        List<ObjectId> tips = new ArrayList<>(starts.values());
+        CommitMetrics[] branchMetrics = settings.isBranchStatistics() ? new CommitMetrics[tips.size()] : null;
+        LOGGER.info("Collecting commit statistics per {}", granularity);
+        estimateCommits(repository, commitCollector, tips, Collections.emptyList(), dateFrom, dateTo, run);
+        GitBranchRevWalk branchWalk = branchMetrics != null ? commitCollector.openBranchWalk(repository, tips, Collections.emptyList(), dateFrom, dateTo) : null;
+        try (RevWalk walk = branchWalk != null ? branchWalk : commitCollector.openWalk(repository, tips, Collections.emptyList(), dateFrom, dateTo)) {
+            ObjectReader reader = walk.getObjectReader();
+            evaluateCommits(repository, walk, run, (commit, metrics, directoryChanges) -> {
+                byte[] rawCommit = readRawCommit(reader, commit);
+                int day = commitDays.toEpochDay(commit, rawCommit);
+                days.accept(day);
+                long bucket = granularity.toBucket(day);
+                int authorId = authorIndex.resolve(rawCommit);
+                statistics.add(authorId, bucket, metrics.getChangedLines());
+                commitMetrics.add(authorId, metrics);
+                if (directoryChanges != null) {
+                    directoryChanges.addTo(directoryStatistics, bucket);
+                }
+                if (branchWalk != null) {
+                    addBranchMetrics(branchWalk.getBranches(commit), metrics, branchMetrics);
+                }
+                commit.disposeBody();
+            });
+        }
+        if (days.getCount() > 0) {
+            dateFrom = dateFrom == null ? LocalDate.ofEpochDay(days.getMin()) : dateFrom;
+            LOGGER.info("First processing commit date {}", dateFrom.toString());
+            dateTo = dateTo == null ? LocalDate.ofEpochDay(days.getMax()) : dateTo;
+            LOGGER.info("Last processing commit date {}", dateTo.toString());
+        } else if (dateFrom != null || dateTo != null) {
+            dateFrom = dateFrom == null ? dateTo : dateFrom;
+            dateTo = dateTo == null ? dateFrom : dateTo;
+        }
+        ProjectReport projectReport = new ProjectReport(obtainRepositoryName(repository), dateFrom, dateTo, statistics, directoryStatistics, commitMetrics);
+        if (branchMetrics != null) {
+            Map<String, CommitMetrics> branches = new LinkedHashMap<>();
+            int branch = 0;
+            for (String refName : starts.keySet()) {
+                branches.put(refName, branchMetrics[branch] != null ? branchMetrics[branch] : new CommitMetrics());
+                branch++;
+            }
+            projectReport.setBranchMetrics(branches);
+        }
+        return projectReport;
+    }
+
+    private ProjectReport collectIncrementalStatistics(Repository repository, LocalDate dateFrom, LocalDate dateTo, CollectionRun run) throws VCSStatisticsCollectorException {
+        GitCommitCollector commitCollector = new GitCommitCollector(settings);
+        GitCommitDays commitDays = new GitCommitDays(settings);
+        GitMailmap mailmap = loadMailmap(repository, commitCollector.resolveHead(repository));
+        Collection<ObjectId> tips = resolveStarts(repository, commitCollector).values();
+        if (settings.isBranchStatistics()) {
+            // branches of already processed commits change when branches
+            // are created or merged, so they cannot be updated incrementally
+            LOGGER.warn("Branch statistics are not collected in incremental mode");
+        }
+        String settingsFingerprint = GitCommitChangesEvaluator.describeSettings(repository, settings) + ";days=" + commitDays.describe() + ";mailmap=" + mailmap.getFingerprint()
+                + ";directories=" + settings.isDirectoryRollup() + (settings.getGitBackend() == GitBackend.NATIVE ? ";backend=native" : "");
+        File stateFile = resolveCacheFile(repository, INCREMENTAL_STATE_FILE);
+        GitIncrementalState state = GitIncrementalState.load(stateFile, settingsFingerprint);
+        List<ObjectId> lastProcessedCommits = state.getLastProcessedCommits();
+        for (ObjectId lastProcessedCommit : lastProcessedCommits) {
+            if (!commitCollector.isAncestor(repository, lastProcessedCommit, tips)) {
+                LOGGER.info("History was rewritten or a ref was removed after last processed commit {}, collecting statistics from scratch", lastProcessedCommit.name());
+                state = new GitIncrementalState();
+                lastProcessedCommits = state.getLastProcessedCommits();
+                break;
+            }
+        }
+        LOGGER.info("Collecting commits after {}", lastProcessedCommits.isEmpty() ? "repository creation" : lastProcessedCommits.stream().map(ObjectId::name).collect(Collectors.joining(", ")));
+        GitIncrementalState updatedState = state;
+        GitAuthorIndex authorIndex = new GitAuthorIndex(state.getStatistics(), mailmap);
+        estimateCommits(repository, commitCollector, tips, lastProcessedCommits, null, null, run);
+        try (RevWalk walk = commitCollector.openWalk(repository, tips, lastProcessedCommits, null, null)) {
+            ObjectReader reader = walk.getObjectReader();
+            evaluateCommits(repository, walk, run, (commit, metrics, directoryChanges) -> {
+                byte[] rawCommit = readRawCommit(reader, commit);
+                updatedState.addCommit(authorIndex.resolve(rawCommit), commitDays.toEpochDay(commit, rawCommit), metrics, directoryChanges);
+                commit.disposeBody();
+            });
+        }
+        if (run.truncated) {
+            // commits are walked from the newest, so there is no commit that
+            // all older commits were processed before
+            LOGGER.warn("Incremental state {} is not stored, because not all commits were processed within time budget", stateFile);
+        } else {
+            state.setLastProcessedCommits(tips);
+            try {
+                state.save(stateFile, settingsFingerprint);
+            } catch (IOException e) {
+                LOGGER.error("Cannot store incremental state {} because of {}", stateFile, e);
+            }
+        }
+        Granularity granularity = settings.getGranularity();
+        if (state.getFirstCommitDate() == null) {
+            return new ProjectReport(obtainRepositoryName(repository), dateFrom, dateTo, new StatisticsMatrix(granularity),
+                    settings.isDirectoryRollup() ? new StatisticsMatrix(granularity) : null, new CommitMetricsTable());
+        }
+        dateFrom = dateFrom == null ? state.getFirstCommitDate() : dateFrom;
+        LOGGER.info("First processing commit date {}", dateFrom.toString());
+        dateTo = dateTo == null ? state.getLastCommitDate() : dateTo;
+        LOGGER.info("Last processing commit date {}", dateTo.toString());
+        // state is kept per day, so it is sliced by dates before it is
+        // aggregated by the requested granularity
+        long firstDay = dateFrom.toEpochDay();
+        long lastDay = dateTo.toEpochDay();
+        StatisticsMatrix dayStatistics = state.getStatistics().slice(firstDay, lastDay);
+        CommitMetricsTable commitMetrics = state.sumCommitMetrics(dayStatistics, firstDay, lastDay);
+        // roll up keeps author ids, so they still match commit metrics
+        StatisticsView statistics = StatisticsMatrix.rollUp(dayStatistics, granularity);
+        StatisticsView directoryStatistics = settings.isDirectoryRollup() ? StatisticsMatrix.rollUp(state.getDirectoryStatistics().slice(firstDay, lastDay), granularity) : null;
+        return new ProjectReport(obtainRepositoryName(repository), dateFrom, dateTo, statistics, directoryStatistics, commitMetrics);
+    }
+
+    private void estimateCommits(Repository repository, GitCommitCollector commitCollector, Collection<ObjectId> starts, Collection<ObjectId> uninteresting, LocalDate dateFrom,
+            LocalDate dateTo, CollectionRun run) throws VCSStatisticsCollectorException {
+        if (!run.estimated) {
+            return;
+        }
+        // commits are walked without bodies and diffs, which is much faster
+        // than their evaluation
+        long totalCommits = 0;
+        try (RevWalk walk = commitCollector.openWalk(repository, starts, uninteresting, dateFrom, dateTo)) {
+            for (Iterator<RevCommit> commits = run.track(walk.iterator()); commits.hasNext();) {
+                // body read by a date range filter is not needed
+                commits.next().disposeBody();
+                totalCommits++;
+            }
+        } catch (RevWalkException e) {
+            throw new VCSStatisticsCollectorException(e.getCause());
+        }
+        LOGGER.info("Found {} commit(s) to process", totalCommits);
+        run.progress.estimated(totalCommits);
+    }
+
+    private void evaluateCommits(Repository repository, RevWalk walk, CollectionRun run, CommitMetricsConsumer consumer) throws VCSStatisticsCollectorException {
+        GitBackendConsistencyCheck consistencyCheck = settings.getConsistencyCheckCommits() > 0 ? new GitBackendConsistencyCheck(settings, sharedWorkerPool) : null;
+        long[] processedCommits = new long[1];
+        CommitMetricsConsumer processor = (commit, metrics, directoryChanges) -> {
+            consumer.accept(commit, metrics, directoryChanges);
+            run.commitProcessed(commit, metrics);
+            if (consistencyCheck != null) {
+                consistencyCheck.sample(commit, metrics);
+            }
+            processedCommits[0]++;
+        };
+        if (settings.getGitBackend() == GitBackend.NATIVE) {
+            LOGGER.info("Evaluating commits using {}", settings.getGitExecutable());
+            new GitNativeCommitEvaluator(settings, listener).evaluateCommits(repository, run.track(walk.iterator()), processor);
+        } else {
+            LOGGER.info("Evaluating commits using {} worker(s)", settings.getParallelism());
+            GitCommitChangesCache commitChangesCache = openCommitChangesCache(repository);
+            try {
+                new GitParallelCommitEvaluator(settings, commitChangesCache, blobDiffCache, sharedWorkerPool, listener).evaluateCommits(repository, run.track(walk.iterator()), processor);
+            } finally {
+                if (settings.isKeepRepositoriesOpen()) {
+                    commitChangesCache.flush();
+                } else {
+                    commitChangesCache.close();
+                }
+            }
+        }
+        LOGGER.info("Processed {} commit(s)", processedCommits[0]);
+        if (consistencyCheck != null) {
+            consistencyCheck.check(repository);
+        }
+    }
+
+    /**
+     * Method to read the raw commit, that is kept on the commit if a date
+     * range filter of the walk has already read it.
+     *
+     * @param reader
+     *            - reader of the walk
+     * @param commit
+     *            - walked commit
+     * @return raw commit
+     * @throws IOException
+     *             if commit cannot be read
+     */
+    private static byte[] readRawCommit(ObjectReader reader, RevCommit commit) throws IOException {
+        byte[] rawCommit = commit.getRawBuffer();
+        return rawCommit != null ? rawCommit : reader.open(commit, Constants.OBJ_COMMIT).getCachedBytes();
+    }
+
+    private Map<String, ObjectId> resolveStarts(Repository repository, GitCommitCollector commitCollector) throws VCSStatisticsCollectorException {
+        Map<String, ObjectId> starts = commitCollector.resolveStarts(repository);
+        if (!settings.getRefs().isEmpty()) {
+            LOGGER.info("Analyzing history of {} ref(s): {}", starts.size(), starts.keySet());
+        }
+        return starts;
+    }
+
+    private void addBranchMetrics(long[] branches, CommitMetrics metrics, CommitMetrics[] branchMetrics) {
+        for (int word = 0; word < branches.length; word++) {
+            for (long bits = branches[word]; bits != 0; bits &= bits - 1) {
+                int branch = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                if (branchMetrics[branch] == null) {
+                    branchMetrics[branch] = new CommitMetrics();
+                }
+                branchMetrics[branch].add(metrics);
+            }
+        }
+    }
+
+    private GitMailmap loadMailmap(Repository repository, ObjectId head) throws VCSStatisticsCollectorException {
+        try {
+            GitMailmap mailmap = GitMailmap.load(repository, settings.isMailmapEnabled() ? head : null, settings.getAliasFile() == null ? null : new File(settings.getAliasFile()));
+            if (!mailmap.isEmpty()) {
+                LOGGER.info("Authors are merged according to mailmap");
+            }
+            return mailmap;
         } catch (IOException e) {
             throw new VCSStatisticsCollectorException(e);
         }
@@ -71,19 +362,34 @@ public class GitStatisticsCollector implements VCSStatisticsCollector {
         return fixedProjectPath;
     }
 
-    private LocalDate getCommitDate(RevCommit commit) {
-        return DateUtils.toLocalDate(commit.getCommitTime());
+    private Repository openRepository(File gitDir) throws IOException {
+        if (settings.isKeepRepositoriesOpen()) {
+            // cached repository keeps its object database open until it is
+            // not used for a while
+            return RepositoryCache.open(FileKey.exact(gitDir, FS.DETECTED), true);
+        }
+        return new FileRepositoryBuilder().setGitDir(gitDir).build();
     }
 
-    public String getAuthorName(RevCommit commit) {
-        PersonIdent person = commit.getAuthorIdent() != null ? commit.getAuthorIdent() : commit.getCommitterIdent();
-        return person.getName();
+    private GitCommitChangesCache openCommitChangesCache(Repository repository) {
+        if (!settings.isCommitCacheEnabled()) {
+            return GitCommitChangesCache.disabled();
+        }
+        File cacheFile = resolveCacheFile(repository, COMMIT_CACHE_FILE);
+        String settingsFingerprint = GitCommitChangesEvaluator.describeSettings(repository, settings);
+        if (settings.isKeepRepositoriesOpen()) {
+            return openCommitChangesCaches.computeIfAbsent(cacheFile.getAbsolutePath() + File.pathSeparator + settingsFingerprint,
+                    key -> GitCommitChangesCache.open(cacheFile, settingsFingerprint));
+        }
+        return GitCommitChangesCache.open(cacheFile, settingsFingerprint);
     }
 
-    private Predicate<RevCommit> constructCommitsDateRangeFilter(LocalDate dateFrom, LocalDate dateTo) {
-        Predicate<RevCommit> dateFromPredicate = commit -> !getCommitDate(commit).isBefore(dateFrom);
-        Predicate<RevCommit> dateToPredicate = commit -> !getCommitDate(commit).isAfter(dateTo);
-        return dateFromPredicate.and(dateToPredicate);
+    private File resolveCacheFile(Repository repository, String fileName) {
+        if (settings.getCacheDirectory() != null) {
+            String repositoryName = obtainRepositoryName(repository).replaceAll("[^\\w.-]", "");
+            return new File(settings.getCacheDirectory(), repositoryName + "-" + fileName);
+        }
+        return new File(new File(repository.getDirectory(), DEFAULT_CACHE_FOLDER), fileName);
     }
 
     private String obtainRepositoryName(Repository repository) {
@@ -102,4 +408,71 @@ public class GitStatisticsCollector implements VCSStatisticsCollector {
         return repository.getWorkTree().getName();
     }
 
+    /**
+     * State of a single collection: its progress handle, time budget and
+     * commits that were not fully processed.
+     */
+    private class CollectionRun {
+        private final CollectorProgress progress;
+        private final boolean estimated;
+        private final long deadline;
+        private final List<String> skippedCommits;
+        private boolean truncated;
+
+        CollectionRun(CollectorProgress progress) {
+            // total amount of commits is counted only if somebody watches
+            // progress
+            this.progress = progress != null ? progress : new CollectorProgress();
+            estimated = progress != null;
+            skippedCommits = new ArrayList<>();
+            this.progress.started();
+            deadline = settings.getTimeBudgetMillis() > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getTimeBudgetMillis()) : 0;
+        }
+
+        /**
+         * Method to stop iteration when collection is cancelled or its time
+         * budget is exceeded. Cancellation is reported by unchecked
+         * {@link CancellationException}, because iterator cannot throw
+         * checked exceptions.
+         */
+        Iterator<RevCommit> track(Iterator<RevCommit> commits) {
+            return new Iterator<RevCommit>() {
+                @Override
+                public boolean hasNext() {
+                    if (progress.isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    if (truncated || (deadline != 0 && System.nanoTime() - deadline > 0)) {
+                        if (!truncated) {
+                            LOGGER.warn("Time budget of {} ms is exceeded, remaining commits are not processed", settings.getTimeBudgetMillis());
+                            truncated = true;
+                        }
+                        return false;
+                    }
+                    return commits.hasNext();
+                }
+
+                @Override
+                public RevCommit next() {
+                    return commits.next();
+                }
+            };
+        }
+
+        void commitProcessed(RevCommit commit, CommitMetrics metrics) {
+            if (metrics.isSkipped()) {
+                skippedCommits.add(commit.getId().name());
+            }
+            progress.commitProcessed();
+        }
+
+        void complete(ProjectReport projectReport) {
+            projectReport.setTruncated(truncated);
+            projectReport.setSkippedCommits(skippedCommits);
+            if (!skippedCommits.isEmpty()) {
+                LOGGER.warn("{} commit(s) exceeded time budget of a commit and are not included into statistics: {}", skippedCommits.size(), skippedCommits);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,118 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.File;
+
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.storage.file.WindowCacheStats;
+import org.eclipse.jgit.util.SystemReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.collector.ObjectDatabaseSettings;
+
+/**
+ * Configuration of JGit caches, that read objects from pack files. Caches are
+ * static, so they are configured once per JVM, when the first repository is
+ * opened, and are sized for that repository. Default JGit configuration keeps
+ * only 10 MB of packs in small windows, so reading many blobs from large packs
+ * mostly reads the same pack regions again and again.
+ */
+final class GitWindowCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitWindowCache.class);
+    private static final String PACK_FOLDER = "objects" + File.separator + "pack";
+    private static final String PACK_EXTENSION = ".pack";
+    private static final int HEAP_WINDOW_SIZE = 64 * WindowCacheConfig.KB;
+    private static final int MMAP_WINDOW_SIZE = WindowCacheConfig.MB;
+    private static final int MAX_DELTA_BASE_CACHE_LIMIT = 256 * WindowCacheConfig.MB;
+
+    private static WindowCacheConfig installedConfig;
+
+    private GitWindowCache() {
+    }
+
+    /**
+     * Method to configure caches, if they were not configured yet.
+     *
+     * @param settings
+     *            - collector settings, including object database settings
+     * @param gitDir
+     *            - configuration folder of the first opened repository, used
+     *            to size caches automatically
+     */
+    static synchronized void install(CollectorSettings settings, File gitDir) {
+        if (installedConfig != null) {
+            return;
+        }
+        long packBytes = 0;
+        int packCount = 0;
+        File[] packFiles = new File(gitDir, PACK_FOLDER).listFiles((folder, name) -> name.endsWith(PACK_EXTENSION));
+        if (packFiles != null) {
+            for (File packFile : packFiles) {
+                packBytes += packFile.length();
+                packCount++;
+            }
+        }
+        WindowCacheConfig config = resolve(settings.getObjectDatabaseSettings(), settings.getParallelism(), settings.getStreamingBlobSize(), packBytes, packCount,
+                Runtime.getRuntime().maxMemory());
+        try {
+            config.install();
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Cannot configure object database because of {}, default configuration is used", e);
+            config = new WindowCacheConfig();
+        }
+        LOGGER.info("Object database: {} byte(s) in {} pack(s), packed Git limit {} bytes, window size {} bytes, mmap {}, open files {}, delta base cache {} bytes, stream file threshold {} bytes",
+                packBytes, packCount, config.getPackedGitLimit(), config.getPackedGitWindowSize(), config.isPackedGitMMAP(), config.getPackedGitOpenFiles(),
+                config.getDeltaBaseCacheLimit(), config.getStreamFileThreshold());
+        installedConfig = config;
+    }
+
+    /**
+     * Method to report current usage of the window cache.
+     *
+     * @param listener
+     *            - listener to be notified
+     */
+    static void report(CollectorListener listener) {
+        WindowCacheConfig config;
+        synchronized (GitWindowCache.class) {
+            config = installedConfig != null ? installedConfig : new WindowCacheConfig();
+        }
+        listener.objectCacheMeasured(WindowCacheStats.getOpenFiles(), WindowCacheStats.getOpenBytes(), config.getPackedGitLimit());
+    }
+
+    private static WindowCacheConfig resolve(ObjectDatabaseSettings settings, int parallelism, long streamingBlobSize, long packBytes, int packCount, long maxHeap) {
+        WindowCacheConfig config = new WindowCacheConfig();
+        long heapBudget = maxHeap / 4;
+        // mapped packs are read from page cache and do not use heap, but
+        // unmapping depends on garbage collection and locks files on Windows
+        boolean mmap = settings.getPackedGitMmap() != null ? settings.getPackedGitMmap() : packBytes > heapBudget && !SystemReader.getInstance().isWindows();
+        config.setPackedGitMMAP(mmap);
+        int windowSize = settings.getPackedGitWindowSize() != 0 ? settings.getPackedGitWindowSize() : mmap ? MMAP_WINDOW_SIZE : HEAP_WINDOW_SIZE;
+        config.setPackedGitWindowSize(windowSize);
+        long limit = settings.getPackedGitLimit();
+        if (limit == 0) {
+            limit = Math.max(config.getPackedGitLimit(), mmap ? packBytes : Math.min(packBytes, heapBudget));
+        }
+        config.setPackedGitLimit(Math.max(limit, windowSize));
+        int openFiles = settings.getPackedGitOpenFiles();
+        config.setPackedGitOpenFiles(openFiles != 0 ? openFiles : Math.max(config.getPackedGitOpenFiles(), packCount * 2));
+        // every worker reads objects with its own reader, that has its own
+        // delta base cache
+        int deltaBaseCacheLimit = settings.getDeltaBaseCacheLimit();
+        if (deltaBaseCacheLimit == 0) {
+            deltaBaseCacheLimit = (int) Math.min(MAX_DELTA_BASE_CACHE_LIMIT, Math.max(config.getDeltaBaseCacheLimit(), maxHeap / (16L * parallelism)));
+        }
+        config.setDeltaBaseCacheLimit(deltaBaseCacheLimit);
+        // files larger than streaming blob size are streamed anyway, so
+        // threshold is lowered only if heap of a worker is too small for it
+        int streamFileThreshold = settings.getStreamFileThreshold();
+        if (streamFileThreshold == 0) {
+            long threshold = Math.max(streamingBlobSize, Math.min(config.getStreamFileThreshold(), maxHeap / (4L * parallelism)));
+            streamFileThreshold = (int) Math.min(Integer.MAX_VALUE, threshold);
+        }
+        config.setStreamFileThreshold(streamFileThreshold);
+        return config;
+    }
+}
@@ -0,0 +1,113 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.diff.SequenceComparator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+
+/**
+ * Sequence of 64-bit hashes of file lines, used to compare files that are too
+ * large to be loaded into memory. File content is read from a stream and only
+ * a hash per line is kept, lines are split the same way as by
+ * {@link org.eclipse.jgit.diff.RawText}, so that differences match
+ * differences of the loaded content.
+ */
+class LineHashSequence extends Sequence {
+    /**
+     * Comparator of lines by their hashes.
+     */
+    static final SequenceComparator<LineHashSequence> COMPARATOR = new SequenceComparator<LineHashSequence>() {
+        @Override
+        public boolean equals(LineHashSequence a, int ai, LineHashSequence b, int bi) {
+            return a.hashes[ai] == b.hashes[bi];
+        }
+
+        @Override
+        public int hash(LineHashSequence sequence, int index) {
+            long hash = sequence.hashes[index];
+            return (int) (hash ^ (hash >>> 32));
+        }
+    };
+
+    private static final LineHashSequence EMPTY = new LineHashSequence(new long[0], 0);
+    // same amount of bytes is checked for zeros by RawText.isBinary
+    private static final int BINARY_CHECK_LENGTH = 8000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] hashes;
+    private final int size;
+
+    private LineHashSequence(long[] hashes, int size) {
+        this.hashes = hashes;
+        this.size = size;
+    }
+
+    /**
+     * @return sequence without lines, e.g. content of a missing file
+     */
+    static LineHashSequence empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Method to read line hashes of a blob.
+     *
+     * @param reader
+     *            - reader of repository objects
+     * @param blobId
+     *            - id of the blob
+     * @return line hashes or null if blob is binary
+     * @throws IOException
+     *             if blob cannot be read
+     */
+    static LineHashSequence read(ObjectReader reader, ObjectId blobId) throws IOException {
+        long[] hashes = new long[1024];
+        int size = 0;
+        long position = 0;
+        long hash = FNV_OFFSET_BASIS;
+        boolean lineStarted = false;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream content = reader.open(blobId, Constants.OBJ_BLOB).openStream()) {
+            int length;
+            while ((length = content.read(buffer)) > 0) {
+                for (int i = 0; i < length; i++, position++) {
+                    byte character = buffer[i];
+                    if (character == 0 && position < BINARY_CHECK_LENGTH) {
+                        return null;
+                    }
+                    // line separator is a part of the line, so that the last
+                    // line without separator differs from the same line with it
+                    hash = (hash ^ (character & 0xff)) * FNV_PRIME;
+                    lineStarted = true;
+                    if (character == '\n') {
+                        if (size == hashes.length) {
+                            hashes = Arrays.copyOf(hashes, size * 2);
+                        }
+                        hashes[size++] = hash;
+                        hash = FNV_OFFSET_BASIS;
+                        lineStarted = false;
+                    }
+                }
+            }
+        }
+        if (lineStarted) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size + 1);
+            }
+            hashes[size++] = hash;
+        }
+        return new LineHashSequence(hashes, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
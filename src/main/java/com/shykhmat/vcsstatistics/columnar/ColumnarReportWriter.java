@@ -0,0 +1,181 @@
+package com.shykhmat.vcsstatistics.columnar;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.shykhmat.vcsstatistics.domain.ProjectReport;
+import com.shykhmat.vcsstatistics.domain.StatisticsView;
+import com.shykhmat.vcsstatistics.report.ReportWriter;
+
+/**
+ * Class to write statistics report as a compact columnar binary file, that is
+ * fast to write and to load into analytics tools. Only periods with changes
+ * are stored.
+ * <p>
+ * File layout, where <i>varint</i> is an unsigned LEB128 integer (7 bits per
+ * byte, least significant group first), <i>zigzag</i> is a signed integer
+ * mapped to varint as (n &lt;&lt; 1) ^ (n &gt;&gt; 63), and <i>string</i> is
+ * a varint length followed by UTF-8 bytes:
+ *
+ * <pre>
+ * magic        4 bytes "VCSC"
+ * version      varint, currently 1
+ * project      string
+ * granularity  string, name of {@link com.shykhmat.vcsstatistics.domain.Granularity}
+ * dateFrom     string, yyyy-MM-dd or empty if not known
+ * dateTo       string, yyyy-MM-dd or empty if not known
+ * tableCount   varint
+ * tables       tableCount tables, "authors" and optional "directories"
+ *
+ * table:
+ * name         string
+ * rowCount     varint
+ * dictionary   rowCount strings, name of every row; cells refer to rows by
+ *              their position
+ * totals       rowCount zigzags, total changed lines of every row
+ * cellCounts   rowCount varints, amount of periods with changes of every row
+ * periods      sum(cellCounts) values, row by row in ascending order: first
+ *              period of a row is a zigzag delta from the first period of the
+ *              previous row (0 for the first row), other periods are varint
+ *              deltas from the previous period of the row
+ * values       sum(cellCounts) zigzags, changed lines of every period in the
+ *              same order as periods
+ * </pre>
+ *
+ * Periods are bucket indexes of the granularity, e.g. epoch days for days or
+ * months since January 1970 for months. Columns are written while statistics
+ * are iterated, so memory usage does not depend on report size.
+ */
+public class ColumnarReportWriter implements ReportWriter {
+    private static final byte[] MAGIC = { 'V', 'C', 'S', 'C' };
+    private static final int FORMAT_VERSION = 1;
+    private static final String AUTHORS_TABLE = "authors";
+    private static final String DIRECTORIES_TABLE = "directories";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeReport(OutputStream output, ProjectReport projectReport) throws IOException {
+        VarintOutput varintOutput = new VarintOutput(output);
+        varintOutput.writeBytes(MAGIC);
+        varintOutput.writeVarint(FORMAT_VERSION);
+        varintOutput.writeString(projectReport.getProjectName());
+        varintOutput.writeString(projectReport.getStatistics().getGranularity().name());
+        varintOutput.writeString(projectReport.getDateFrom() == null ? "" : projectReport.getDateFrom().toString());
+        varintOutput.writeString(projectReport.getDateTo() == null ? "" : projectReport.getDateTo().toString());
+        StatisticsView directoryStatistics = projectReport.getDirectoryStatistics();
+        varintOutput.writeVarint(directoryStatistics == null ? 1 : 2);
+        writeTable(varintOutput, AUTHORS_TABLE, projectReport.getStatistics());
+        if (directoryStatistics != null) {
+            writeTable(varintOutput, DIRECTORIES_TABLE, directoryStatistics);
+        }
+        varintOutput.flush();
+    }
+
+    private void writeTable(VarintOutput output, String name, StatisticsView statistics) throws IOException {
+        int rowCount = statistics.getAuthorCount();
+        output.writeString(name);
+        output.writeVarint(rowCount);
+        for (int authorId = 0; authorId < rowCount; authorId++) {
+            output.writeString(statistics.getAuthorName(authorId));
+        }
+        for (int authorId = 0; authorId < rowCount; authorId++) {
+            output.writeZigzag(statistics.getTotalChangedLines(authorId));
+        }
+        for (int authorId = 0; authorId < rowCount; authorId++) {
+            int cellCount = 0;
+            for (long bucket = statistics.getFirstDay(authorId); bucket <= statistics.getLastDay(authorId); bucket++) {
+                if (statistics.getChangedLines(authorId, bucket) != 0) {
+                    cellCount++;
+                }
+            }
+            output.writeVarint(cellCount);
+        }
+        long previousRowFirstBucket = 0;
+        for (int authorId = 0; authorId < rowCount; authorId++) {
+            long previousBucket = Long.MIN_VALUE;
+            for (long bucket = statistics.getFirstDay(authorId); bucket <= statistics.getLastDay(authorId); bucket++) {
+                if (statistics.getChangedLines(authorId, bucket) != 0) {
+                    if (previousBucket == Long.MIN_VALUE) {
+                        output.writeZigzag(bucket - previousRowFirstBucket);
+                        previousRowFirstBucket = bucket;
+                    } else {
+                        output.writeVarint(bucket - previousBucket);
+                    }
+                    previousBucket = bucket;
+                }
+            }
+        }
+        for (int authorId = 0; authorId < rowCount; authorId++) {
+            for (long bucket = statistics.getFirstDay(authorId); bucket <= statistics.getLastDay(authorId); bucket++) {
+                long changedLines = statistics.getChangedLines(authorId, bucket);
+                if (changedLines != 0) {
+                    output.writeZigzag(changedLines);
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffered output of variable length integers, unlike
+     * {@link java.io.BufferedOutputStream} it does not synchronize every
+     * written byte.
+     */
+    private static class VarintOutput {
+        private final OutputStream output;
+        private final byte[] buffer;
+        private int position;
+
+        VarintOutput(OutputStream output) {
+            this.output = output;
+            buffer = new byte[BUFFER_SIZE];
+        }
+
+        void writeVarint(long value) throws IOException {
+            if (position > buffer.length - 10) {
+                flushBuffer();
+            }
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            buffer[position++] = (byte) remaining;
+        }
+
+        void writeZigzag(long value) throws IOException {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        }
+
+        void writeBytes(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                flushBuffer();
+            }
+            if (bytes.length > buffer.length) {
+                output.write(bytes);
+            } else {
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            output.flush();
+        }
+
+        private void flushBuffer() throws IOException {
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -1,32 +1,90 @@
 package com.shykhmat.vcsstatistics.console;
 
+import java.io.File;
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Scanner;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.shykhmat.vcsstatistics.api.VCSStatisticsApi;
+import com.shykhmat.vcsstatistics.collector.CollectorMetrics;
 import com.shykhmat.vcsstatistics.domain.VCSType;
+import com.shykhmat.vcsstatistics.server.ServerSettings;
+import com.shykhmat.vcsstatistics.server.VCSStatisticsServer;
 
 /**
  * Console application to collect version control system commit statistics for
- * project and to generate Excel report.
+ * project and to generate Excel or other report.
  */
 public class VCSStatisticsApplication {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VCSStatisticsApplication.class);
+
     public static void main(String[] args) {
-        VCSStatisticsApi vcsStatisticsApi = new VCSStatisticsApi();
         VCSStatisticsApplicationProperties applicationProperties = new VCSStatisticsApplicationProperties();
         if (applicationProperties.parse(args)) {
+            VCSStatisticsApi vcsStatisticsApi = new VCSStatisticsApi(applicationProperties.getCollectorSettings(), applicationProperties.getExcelWriterSettings());
+            if (applicationProperties.isServer()) {
+                startServer(vcsStatisticsApi, applicationProperties.getServerSettings());
+                return;
+            }
+            CollectorMetrics collectorMetrics = new CollectorMetrics();
+            vcsStatisticsApi.setCollectorListener(collectorMetrics);
+            vcsStatisticsApi.setProgressLogInterval(applicationProperties.getProgressInterval());
             String projectPath = applicationProperties.getProjectPath();
             String reportPath = applicationProperties.getReportPath();
             VCSType vcsType = applicationProperties.getVcsType();
             LocalDate dateFrom = applicationProperties.getDateFrom();
             LocalDate dateTo = applicationProperties.getDateTo();
-            vcsStatisticsApi.writeMetricsToExcel(projectPath, reportPath, vcsType, dateFrom, dateTo);
+            if (applicationProperties.isBatch()) {
+                writeBatchMetrics(vcsStatisticsApi, applicationProperties);
+            } else {
+                vcsStatisticsApi.writeMetrics(projectPath, reportPath, vcsType, dateFrom, dateTo, applicationProperties.getReportFormat());
+            }
+            reportMetrics(collectorMetrics, applicationProperties.getMetricsFile());
         }
         closeApplication();
     }
 
+    private static void startServer(VCSStatisticsApi vcsStatisticsApi, ServerSettings serverSettings) {
+        VCSStatisticsServer server = new VCSStatisticsServer(vcsStatisticsApi, serverSettings);
+        try {
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "server-shutdown"));
+        } catch (IOException e) {
+            LOGGER.error("Cannot start statistics server because of {}", e);
+        }
+    }
+
+    private static void writeBatchMetrics(VCSStatisticsApi vcsStatisticsApi, VCSStatisticsApplicationProperties applicationProperties) {
+        try {
+            List<String> projectPaths = VCSStatisticsApi.findProjects(applicationProperties.getProjectPath());
+            LOGGER.info("Found {} project(s) to analyze", projectPaths.size());
+            vcsStatisticsApi.writeMetrics(projectPaths, applicationProperties.getReportPath(), applicationProperties.getVcsType(), applicationProperties.getDateFrom(), applicationProperties.getDateTo(),
+                    applicationProperties.getBatchSettings(), applicationProperties.getReportFormat());
+        } catch (IOException e) {
+            LOGGER.error("Cannot find projects to analyze because of {}", e);
+        }
+    }
+
+    private static void reportMetrics(CollectorMetrics collectorMetrics, String metricsFile) {
+        collectorMetrics.logSummary();
+        if (metricsFile != null) {
+            try {
+                collectorMetrics.writeJson(new File(metricsFile));
+            } catch (IOException e) {
+                LOGGER.error("Cannot write metrics file {} because of {}", metricsFile, e);
+            }
+        }
+    }
 
     private static void closeApplication() {
+        if (System.console() == null) {
+            // nobody to press a key, e.g. when started by a scheduler
+            return;
+        }
         System.out.println("Press \"ENTER\" to exit application...");
         Scanner scanner = null;
         try {
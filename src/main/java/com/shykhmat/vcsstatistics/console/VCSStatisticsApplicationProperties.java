@@ -1,6 +1,14 @@
 package com.shykhmat.vcsstatistics.console;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -8,13 +16,24 @@ import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.MissingOptionException;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.eclipse.jgit.diff.DiffAlgorithm.SupportedAlgorithm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.shykhmat.vcsstatistics.api.BatchSettings;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.collector.CommitDatePolicy;
+import com.shykhmat.vcsstatistics.collector.GitBackend;
+import com.shykhmat.vcsstatistics.collector.ObjectDatabaseSettings;
+import com.shykhmat.vcsstatistics.domain.Granularity;
 import com.shykhmat.vcsstatistics.domain.VCSType;
+import com.shykhmat.vcsstatistics.excel.ExcelWriterSettings;
+import com.shykhmat.vcsstatistics.report.ReportFormat;
+import com.shykhmat.vcsstatistics.server.ServerSettings;
 
 /**
  * Command line arguments that application can process.
@@ -23,9 +42,47 @@ public class VCSStatisticsApplicationProperties {
     private static final Logger LOGGER = LoggerFactory.getLogger(VCSStatisticsApplicationProperties.class);
     private static final String PROJECT_PATH_OPTION = "projectPath";
     private static final String REPORT_PATH_OPTION = "reportPath";
+    private static final String FORMAT_OPTION = "format";
     private static final String DATE_FROM_OPTION = "dateFrom";
     private static final String DATE_TO_OPTION = "dateTo";
     private static final String VST_TYPE_OPTION = "vcs";
+    private static final String THREADS_OPTION = "threads";
+    private static final String CACHE_DIRECTORY_OPTION = "cacheDir";
+    private static final String NO_CACHE_OPTION = "noCache";
+    private static final String INCREMENTAL_OPTION = "incremental";
+    private static final String TIME_BUDGET_OPTION = "timeBudget";
+    private static final String COMMIT_TIME_BUDGET_OPTION = "commitTimeBudget";
+    private static final String PROGRESS_INTERVAL_OPTION = "progressInterval";
+    private static final String BITMAP_TRAVERSAL_OPTION = "bitmapTraversal";
+    private static final String PATHS_OPTION = "paths";
+    private static final String REFS_OPTION = "refs";
+    private static final String BRANCH_STATISTICS_OPTION = "branchStatistics";
+    private static final String STREAMING_FILE_SIZE_OPTION = "streamingFileSize";
+    private static final String BLOB_DIFF_CACHE_SIZE_OPTION = "blobDiffCacheSize";
+    private static final String GIT_BACKEND_OPTION = "gitBackend";
+    private static final String GIT_EXECUTABLE_OPTION = "gitExecutable";
+    private static final String CONSISTENCY_CHECK_OPTION = "consistencyCheck";
+    private static final String NO_MAILMAP_OPTION = "noMailmap";
+    private static final String ALIAS_FILE_OPTION = "aliasFile";
+    private static final String GRANULARITY_OPTION = "granularity";
+    private static final String COMMIT_DATE_OPTION = "commitDate";
+    private static final String COMMIT_DATE_ZONE_OPTION = "commitDateZone";
+    private static final String DIRECTORY_ROLLUP_OPTION = "directoryRollup";
+    private static final String DIFF_ALGORITHM_OPTION = "diffAlgorithm";
+    private static final String MAX_BLOB_SIZE_OPTION = "maxFileSize";
+    private static final String OBJECT_DATABASE_CONFIG_OPTION = "objectDatabaseConfig";
+    private static final String EXCEL_ROW_WINDOW_OPTION = "excelRowWindow";
+    private static final String EXCEL_COMPRESS_TEMP_FILES_OPTION = "excelCompressTempFiles";
+    private static final String BATCH_OPTION = "batch";
+    private static final String BATCH_PROJECTS_OPTION = "batchProjects";
+    private static final String BATCH_THREADS_OPTION = "batchThreads";
+    private static final String COMBINED_REPORT_OPTION = "combinedReport";
+    private static final String METRICS_FILE_OPTION = "metricsFile";
+    private static final String SERVER_OPTION = "server";
+    private static final String HOST_OPTION = "host";
+    private static final String PORT_OPTION = "port";
+    private static final String SERVER_THREADS_OPTION = "serverThreads";
+    private static final String PROJECTS_ROOT_OPTION = "projectsRoot";
     private static final String HELP_OPTION = "help";
 
     private Options statisticsCalculationOptions;
@@ -36,20 +93,75 @@ public class VCSStatisticsApplicationProperties {
     private LocalDate dateFrom;
     private LocalDate dateTo;
     private VCSType vcsType;
+    private CollectorSettings collectorSettings;
+    private ExcelWriterSettings excelWriterSettings;
+    private ReportFormat reportFormat;
+    private boolean batch;
+    private BatchSettings batchSettings;
+    private String metricsFile;
+    private long progressInterval;
+    private boolean server;
+    private ServerSettings serverSettings;
 
     public VCSStatisticsApplicationProperties() {
         statisticsCalculationOptions = new Options();
+        // required unless application is started in server mode, so that
+        // they are checked after parsing
         Option projectPathOption = new Option(PROJECT_PATH_OPTION, true, "Required. Specifies path to the folder, that contains application to analyze");
-        projectPathOption.setRequired(true);
         Option reportPathOption = new Option(REPORT_PATH_OPTION, true, "Required. Specifies path to the folder, that will be used to store generated Excel report");
-        reportPathOption.setRequired(true);
         Option vcsTypeOption = new Option(VST_TYPE_OPTION, true, "Required. Specifies repository type to be analyzed. Supported types: " + Stream.of(VCSType.values()).map(Enum::name).collect(Collectors.toList()));
-        vcsTypeOption.setRequired(true);
         statisticsCalculationOptions.addOption(projectPathOption);
         statisticsCalculationOptions.addOption(reportPathOption);
         statisticsCalculationOptions.addOption(vcsTypeOption);
+        statisticsCalculationOptions.addOption(new Option(FORMAT_OPTION, true, "Specifies format of generated report. Supported formats: " + Stream.of(ReportFormat.values()).map(Enum::name).collect(Collectors.toList()) + ". Default: XLSX"));
         statisticsCalculationOptions.addOption(DATE_FROM_OPTION, true, "Specifies date from which statistic will be calculated");
         statisticsCalculationOptions.addOption(new Option(DATE_TO_OPTION, true, "Specifies date to which statistic will be calculated"));
+        statisticsCalculationOptions.addOption(new Option(THREADS_OPTION, true, "Specifies amount of worker threads used to evaluate commits. Default: number of available processors"));
+        statisticsCalculationOptions.addOption(new Option(CACHE_DIRECTORY_OPTION, true, "Specifies path to the folder, that will be used to store commit cache. Default: .git/vcsstatistics of analyzed project"));
+        statisticsCalculationOptions.addOption(new Option(NO_CACHE_OPTION, false, "Disables commit cache"));
+        statisticsCalculationOptions.addOption(new Option(INCREMENTAL_OPTION, false, "Stores aggregated statistics between runs and processes only commits added after the previous run"));
+        statisticsCalculationOptions.addOption(new Option(TIME_BUDGET_OPTION, true, "Specifies maximal duration of statistics collection of a project in seconds, after that remaining commits are not processed and report is marked as truncated"));
+        statisticsCalculationOptions.addOption(new Option(COMMIT_TIME_BUDGET_OPTION, true, "Specifies maximal duration of evaluation of a single commit in milliseconds, changes of slower commits are skipped and listed in the report"));
+        statisticsCalculationOptions.addOption(new Option(PROGRESS_INTERVAL_OPTION, true, "Specifies interval in seconds to log processed commits, rate and estimated remaining time of statistics collection"));
+        statisticsCalculationOptions.addOption(new Option(PATHS_OPTION, true, "Specifies comma separated glob patterns of paths, which changes are counted, patterns prefixed with ! exclude paths, e.g. src/**,!**/generated/**,!*.lock. Default: all paths"));
+        statisticsCalculationOptions.addOption(new Option(NO_MAILMAP_OPTION, false, "Disables merging of authors according to .mailmap file of analyzed project"));
+        statisticsCalculationOptions.addOption(new Option(ALIAS_FILE_OPTION, true, "Specifies path to a file in mailmap format with additional author aliases, that override .mailmap of analyzed project"));
+        statisticsCalculationOptions.addOption(new Option(GRANULARITY_OPTION, true, "Specifies period, which changed lines are aggregated into and written as a report column. Supported periods: " + Stream.of(Granularity.values()).map(Enum::name).collect(Collectors.toList()) + ". Default: DAY"));
+        statisticsCalculationOptions.addOption(new Option(COMMIT_DATE_OPTION, true, "Specifies which date of a commit defines the day it is counted in. Supported policies: "
+                + Stream.of(CommitDatePolicy.values()).map(Enum::name).collect(Collectors.toList()) + ". Default: AUTHOR, author date in time zone of the author"));
+        statisticsCalculationOptions.addOption(new Option(COMMIT_DATE_ZONE_OPTION, true, "Specifies time zone of commit dates for ZONE policy, e.g. UTC or Europe/Kiev. Default: system time zone"));
+        statisticsCalculationOptions.addOption(new Option(DIRECTORY_ROLLUP_OPTION, false, "Additionally aggregates changed lines per top-level folder of analyzed project"));
+        statisticsCalculationOptions.addOption(new Option(REFS_OPTION, true,
+                "Specifies comma separated names or glob patterns of refs, which history is analyzed in a single pass, e.g. refs/heads/*,refs/heads/release/*,main. Default: HEAD"));
+        statisticsCalculationOptions.addOption(new Option(BRANCH_STATISTICS_OPTION, false, "Calculates totals of commit metrics for every analyzed ref, not supported in incremental mode"));
+        statisticsCalculationOptions.addOption(new Option(BITMAP_TRAVERSAL_OPTION, false, "Enumerates commits using bitmap index of pack files when whole history is analyzed and repository has it"));
+        statisticsCalculationOptions.addOption(new Option(DIFF_ALGORITHM_OPTION, true, "Specifies algorithm used to find changed lines. Supported algorithms: " + Stream.of(SupportedAlgorithm.values()).map(Enum::name).collect(Collectors.toList()) + ". Default: MYERS"));
+        statisticsCalculationOptions.addOption(new Option(MAX_BLOB_SIZE_OPTION, true, "Specifies maximal size of a file in bytes, larger files are not analyzed. Default: 52428800"));
+        statisticsCalculationOptions.addOption(new Option(STREAMING_FILE_SIZE_OPTION, true, "Specifies size of a file in bytes, larger files are compared by line hashes read from a stream instead of being loaded into memory. Default: 8388608"));
+        statisticsCalculationOptions.addOption(new Option(BLOB_DIFF_CACHE_SIZE_OPTION, true, "Specifies amount of compared pairs of file contents, which results are kept in memory and reused by other commits, 0 disables the cache. Default: 100000"));
+        statisticsCalculationOptions.addOption(new Option(GIT_BACKEND_OPTION, true, "Specifies engine used to compare files of Git commits. Supported engines: " + Stream.of(GitBackend.values()).map(Enum::name).collect(Collectors.toList()) + ". Default: JGIT"));
+        statisticsCalculationOptions.addOption(new Option(GIT_EXECUTABLE_OPTION, true, "Specifies path to git executable used by NATIVE engine. Default: git"));
+        statisticsCalculationOptions.addOption(new Option(CONSISTENCY_CHECK_OPTION, true, "Specifies amount of sampled commits, that are evaluated again by the other Git engine to log differences between engines"));
+        statisticsCalculationOptions.addOption(new Option(OBJECT_DATABASE_CONFIG_OPTION, true,
+                "Specifies path to a properties file with settings of caches used to read pack files, option names below are used as keys. Default: settings are sized by available heap and size of pack files"));
+        statisticsCalculationOptions.addOption(new Option(ObjectDatabaseSettings.PACKED_GIT_LIMIT, true, "Specifies maximal amount of bytes of pack files cached in memory or mapped. Default: sized automatically"));
+        statisticsCalculationOptions.addOption(new Option(ObjectDatabaseSettings.PACKED_GIT_WINDOW_SIZE, true, "Specifies size in bytes of a window read from a pack file, power of 2. Default: sized automatically"));
+        statisticsCalculationOptions.addOption(new Option(ObjectDatabaseSettings.PACKED_GIT_MMAP, true, "Specifies whether pack files are memory mapped: true or false. Default: true if packs are larger than a quarter of heap"));
+        statisticsCalculationOptions.addOption(new Option(ObjectDatabaseSettings.PACKED_GIT_OPEN_FILES, true, "Specifies maximal amount of open pack files. Default: sized automatically"));
+        statisticsCalculationOptions.addOption(new Option(ObjectDatabaseSettings.DELTA_BASE_CACHE_LIMIT, true, "Specifies maximal amount of bytes of delta bases cached by every worker thread. Default: sized automatically"));
+        statisticsCalculationOptions.addOption(new Option(ObjectDatabaseSettings.STREAM_FILE_THRESHOLD, true, "Specifies size in bytes of an object, larger objects are streamed from pack files. Default: sized automatically"));
+        statisticsCalculationOptions.addOption(new Option(EXCEL_ROW_WINDOW_OPTION, true, "Specifies amount of Excel report rows kept in memory while report is written. Default: 100"));
+        statisticsCalculationOptions.addOption(new Option(EXCEL_COMPRESS_TEMP_FILES_OPTION, false, "Compresses temporary files used to write Excel report"));
+        statisticsCalculationOptions.addOption(new Option(BATCH_OPTION, false, "Analyzes several projects, project path specifies a folder with projects or a text file with a project path per line"));
+        statisticsCalculationOptions.addOption(new Option(BATCH_PROJECTS_OPTION, true, "Specifies amount of projects analyzed at the same time in batch mode. Default: 2"));
+        statisticsCalculationOptions.addOption(new Option(BATCH_THREADS_OPTION, true, "Specifies total amount of worker threads shared by all projects in batch mode. Default: number of available processors"));
+        statisticsCalculationOptions.addOption(new Option(COMBINED_REPORT_OPTION, false, "Writes all projects of a batch into a single Excel report with a sheet per project and author totals"));
+        statisticsCalculationOptions.addOption(new Option(METRICS_FILE_OPTION, true, "Specifies path to the JSON file, that will be used to store collection metrics"));
+        statisticsCalculationOptions.addOption(new Option(SERVER_OPTION, false, "Starts HTTP server that calculates statistics on request instead of a single report, project path, report path and repository type are not required"));
+        statisticsCalculationOptions.addOption(new Option(HOST_OPTION, true, "Specifies address HTTP server listens on, server has no authentication, so other machines should be allowed to connect only in a trusted network. Default: loopback address"));
+        statisticsCalculationOptions.addOption(new Option(PORT_OPTION, true, "Specifies port of HTTP server. Default: 8080"));
+        statisticsCalculationOptions.addOption(new Option(SERVER_THREADS_OPTION, true, "Specifies amount of threads handling HTTP requests. Default: number of available processors, but at least 4"));
+        statisticsCalculationOptions.addOption(new Option(PROJECTS_ROOT_OPTION, true, "Specifies folder with projects, project paths of HTTP requests are resolved against it and cannot leave it. Default: working directory"));
         additionalOptions = new Options();
         additionalOptions.addOption(new Option(HELP_OPTION, false, "Command to see application help information"));
     }
@@ -70,15 +182,118 @@ public class VCSStatisticsApplicationProperties {
                 return false;
             }
             line = parser.parse(statisticsCalculationOptions, args);
+            server = line.hasOption(SERVER_OPTION);
+            if (!server) {
+                checkRequiredOptions(line, PROJECT_PATH_OPTION, REPORT_PATH_OPTION, VST_TYPE_OPTION);
+                vcsType = parseEnum(VCSType.class, VST_TYPE_OPTION, line.getOptionValue(VST_TYPE_OPTION));
+            }
             projectPath = line.getOptionValue(PROJECT_PATH_OPTION);
             reportPath = line.getOptionValue(REPORT_PATH_OPTION);
-            vcsType = VCSType.valueOf(line.getOptionValue(VST_TYPE_OPTION).toUpperCase());
             if (line.hasOption(DATE_FROM_OPTION)) {
                 dateFrom = LocalDate.parse(line.getOptionValue(DATE_FROM_OPTION));
             }
             if (line.hasOption(DATE_TO_OPTION)) {
                 dateTo = LocalDate.parse(line.getOptionValue(DATE_TO_OPTION));
             }
+            collectorSettings = new CollectorSettings();
+            if (line.hasOption(THREADS_OPTION)) {
+                collectorSettings.setParallelism(parsePositiveInt(THREADS_OPTION, line.getOptionValue(THREADS_OPTION)));
+            }
+            collectorSettings.setCommitCacheEnabled(!line.hasOption(NO_CACHE_OPTION));
+            collectorSettings.setCacheDirectory(line.getOptionValue(CACHE_DIRECTORY_OPTION));
+            collectorSettings.setIncremental(line.hasOption(INCREMENTAL_OPTION));
+            if (line.hasOption(TIME_BUDGET_OPTION)) {
+                collectorSettings.setTimeBudgetMillis(TimeUnit.SECONDS.toMillis(parsePositiveLong(TIME_BUDGET_OPTION, line.getOptionValue(TIME_BUDGET_OPTION))));
+            }
+            if (line.hasOption(COMMIT_TIME_BUDGET_OPTION)) {
+                collectorSettings.setCommitTimeBudgetMillis(parsePositiveLong(COMMIT_TIME_BUDGET_OPTION, line.getOptionValue(COMMIT_TIME_BUDGET_OPTION)));
+            }
+            progressInterval = 0;
+            if (line.hasOption(PROGRESS_INTERVAL_OPTION)) {
+                progressInterval = parsePositiveLong(PROGRESS_INTERVAL_OPTION, line.getOptionValue(PROGRESS_INTERVAL_OPTION));
+            }
+            collectorSettings.setBitmapTraversal(line.hasOption(BITMAP_TRAVERSAL_OPTION));
+            if (line.hasOption(REFS_OPTION)) {
+                collectorSettings.setRefs(parseList(REFS_OPTION, line.getOptionValue(REFS_OPTION)));
+            }
+            collectorSettings.setBranchStatistics(line.hasOption(BRANCH_STATISTICS_OPTION));
+            collectorSettings.setMailmapEnabled(!line.hasOption(NO_MAILMAP_OPTION));
+            collectorSettings.setAliasFile(line.getOptionValue(ALIAS_FILE_OPTION));
+            if (line.hasOption(GRANULARITY_OPTION)) {
+                collectorSettings.setGranularity(parseEnum(Granularity.class, GRANULARITY_OPTION, line.getOptionValue(GRANULARITY_OPTION)));
+            }
+            if (line.hasOption(COMMIT_DATE_OPTION)) {
+                collectorSettings.setCommitDatePolicy(parseEnum(CommitDatePolicy.class, COMMIT_DATE_OPTION, line.getOptionValue(COMMIT_DATE_OPTION)));
+            }
+            if (line.hasOption(COMMIT_DATE_ZONE_OPTION)) {
+                collectorSettings.setCommitDateZone(parseZone(COMMIT_DATE_ZONE_OPTION, line.getOptionValue(COMMIT_DATE_ZONE_OPTION)));
+            }
+            collectorSettings.setDirectoryRollup(line.hasOption(DIRECTORY_ROLLUP_OPTION));
+            if (line.hasOption(PATHS_OPTION)) {
+                try {
+                    collectorSettings.setPathFilters(parseList(PATHS_OPTION, line.getOptionValue(PATHS_OPTION)));
+                } catch (IllegalArgumentException e) {
+                    throw new ParseException("Option " + PATHS_OPTION + " is invalid: " + e.getMessage());
+                }
+            }
+            if (line.hasOption(DIFF_ALGORITHM_OPTION)) {
+                collectorSettings.setDiffAlgorithm(parseEnum(SupportedAlgorithm.class, DIFF_ALGORITHM_OPTION, line.getOptionValue(DIFF_ALGORITHM_OPTION)));
+            }
+            if (line.hasOption(MAX_BLOB_SIZE_OPTION)) {
+                collectorSettings.setMaxBlobSize(parsePositiveLong(MAX_BLOB_SIZE_OPTION, line.getOptionValue(MAX_BLOB_SIZE_OPTION)));
+            }
+            if (line.hasOption(STREAMING_FILE_SIZE_OPTION)) {
+                collectorSettings.setStreamingBlobSize(parsePositiveLong(STREAMING_FILE_SIZE_OPTION, line.getOptionValue(STREAMING_FILE_SIZE_OPTION)));
+            }
+            if (line.hasOption(BLOB_DIFF_CACHE_SIZE_OPTION)) {
+                collectorSettings.setBlobDiffCacheSize(parseNonNegativeLong(BLOB_DIFF_CACHE_SIZE_OPTION, line.getOptionValue(BLOB_DIFF_CACHE_SIZE_OPTION)));
+            }
+            if (line.hasOption(GIT_BACKEND_OPTION)) {
+                collectorSettings.setGitBackend(parseEnum(GitBackend.class, GIT_BACKEND_OPTION, line.getOptionValue(GIT_BACKEND_OPTION)));
+            }
+            if (line.hasOption(GIT_EXECUTABLE_OPTION)) {
+                collectorSettings.setGitExecutable(line.getOptionValue(GIT_EXECUTABLE_OPTION));
+            }
+            if (line.hasOption(CONSISTENCY_CHECK_OPTION)) {
+                collectorSettings.setConsistencyCheckCommits(parsePositiveInt(CONSISTENCY_CHECK_OPTION, line.getOptionValue(CONSISTENCY_CHECK_OPTION)));
+            }
+            collectorSettings.setObjectDatabaseSettings(parseObjectDatabaseSettings(line));
+            excelWriterSettings = new ExcelWriterSettings();
+            if (line.hasOption(EXCEL_ROW_WINDOW_OPTION)) {
+                excelWriterSettings.setRowWindow(parsePositiveInt(EXCEL_ROW_WINDOW_OPTION, line.getOptionValue(EXCEL_ROW_WINDOW_OPTION)));
+            }
+            excelWriterSettings.setCompressTempFiles(line.hasOption(EXCEL_COMPRESS_TEMP_FILES_OPTION));
+            batch = line.hasOption(BATCH_OPTION);
+            batchSettings = new BatchSettings();
+            if (line.hasOption(BATCH_PROJECTS_OPTION)) {
+                batchSettings.setProjectConcurrency(parsePositiveInt(BATCH_PROJECTS_OPTION, line.getOptionValue(BATCH_PROJECTS_OPTION)));
+            }
+            if (line.hasOption(BATCH_THREADS_OPTION)) {
+                batchSettings.setWorkerThreads(parsePositiveInt(BATCH_THREADS_OPTION, line.getOptionValue(BATCH_THREADS_OPTION)));
+            }
+            batchSettings.setCombinedReport(line.hasOption(COMBINED_REPORT_OPTION));
+            reportFormat = ReportFormat.XLSX;
+            if (line.hasOption(FORMAT_OPTION)) {
+                reportFormat = parseEnum(ReportFormat.class, FORMAT_OPTION, line.getOptionValue(FORMAT_OPTION));
+            }
+            if (batchSettings.isCombinedReport() && reportFormat != ReportFormat.XLSX) {
+                throw new ParseException("Option " + COMBINED_REPORT_OPTION + " is supported only for " + ReportFormat.XLSX + " format");
+            }
+            metricsFile = line.getOptionValue(METRICS_FILE_OPTION);
+            serverSettings = new ServerSettings();
+            if (line.hasOption(HOST_OPTION)) {
+                serverSettings.setHost(parseHost(line.getOptionValue(HOST_OPTION)));
+            }
+            if (line.hasOption(PORT_OPTION)) {
+                serverSettings.setPort(parsePort(line.getOptionValue(PORT_OPTION)));
+            }
+            if (line.hasOption(SERVER_THREADS_OPTION)) {
+                serverSettings.setThreads(parsePositiveInt(SERVER_THREADS_OPTION, line.getOptionValue(SERVER_THREADS_OPTION)));
+            }
+            if (line.hasOption(PROJECTS_ROOT_OPTION)) {
+                serverSettings.setProjectsRoot(line.getOptionValue(PROJECTS_ROOT_OPTION));
+            }
+            collectorSettings.setKeepRepositoriesOpen(server);
             return true;
         } catch (ParseException e) {
             LOGGER.error(e.getMessage());
@@ -107,6 +322,163 @@ public class VCSStatisticsApplicationProperties {
         return vcsType;
     }
 
+    public CollectorSettings getCollectorSettings() {
+        return collectorSettings;
+    }
+
+    public ExcelWriterSettings getExcelWriterSettings() {
+        return excelWriterSettings;
+    }
+
+    public ReportFormat getReportFormat() {
+        return reportFormat;
+    }
+
+    public boolean isBatch() {
+        return batch;
+    }
+
+    public BatchSettings getBatchSettings() {
+        return batchSettings;
+    }
+
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    /**
+     * @return interval in seconds to log progress of statistics collection, 0
+     *         if progress is not logged
+     */
+    public long getProgressInterval() {
+        return progressInterval;
+    }
+
+    public boolean isServer() {
+        return server;
+    }
+
+    public ServerSettings getServerSettings() {
+        return serverSettings;
+    }
+
+    private void checkRequiredOptions(CommandLine line, String... optionNames) throws MissingOptionException {
+        List<String> missingOptions = Stream.of(optionNames).filter(optionName -> !line.hasOption(optionName)).collect(Collectors.toList());
+        if (!missingOptions.isEmpty()) {
+            throw new MissingOptionException(missingOptions);
+        }
+    }
+
+    private ObjectDatabaseSettings parseObjectDatabaseSettings(CommandLine line) throws ParseException {
+        ObjectDatabaseSettings objectDatabaseSettings = new ObjectDatabaseSettings();
+        try {
+            if (line.hasOption(OBJECT_DATABASE_CONFIG_OPTION)) {
+                objectDatabaseSettings = ObjectDatabaseSettings.load(new File(line.getOptionValue(OBJECT_DATABASE_CONFIG_OPTION)));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ParseException("Option " + OBJECT_DATABASE_CONFIG_OPTION + " is invalid: " + e.getMessage());
+        }
+        if (line.hasOption(ObjectDatabaseSettings.PACKED_GIT_LIMIT)) {
+            objectDatabaseSettings.setPackedGitLimit(parsePositiveLong(ObjectDatabaseSettings.PACKED_GIT_LIMIT, line.getOptionValue(ObjectDatabaseSettings.PACKED_GIT_LIMIT)));
+        }
+        if (line.hasOption(ObjectDatabaseSettings.PACKED_GIT_WINDOW_SIZE)) {
+            try {
+                objectDatabaseSettings.setPackedGitWindowSize(parsePositiveInt(ObjectDatabaseSettings.PACKED_GIT_WINDOW_SIZE, line.getOptionValue(ObjectDatabaseSettings.PACKED_GIT_WINDOW_SIZE)));
+            } catch (IllegalArgumentException e) {
+                throw new ParseException("Option " + ObjectDatabaseSettings.PACKED_GIT_WINDOW_SIZE + " is invalid: " + e.getMessage());
+            }
+        }
+        if (line.hasOption(ObjectDatabaseSettings.PACKED_GIT_MMAP)) {
+            objectDatabaseSettings.setPackedGitMmap(parseBoolean(ObjectDatabaseSettings.PACKED_GIT_MMAP, line.getOptionValue(ObjectDatabaseSettings.PACKED_GIT_MMAP)));
+        }
+        if (line.hasOption(ObjectDatabaseSettings.PACKED_GIT_OPEN_FILES)) {
+            objectDatabaseSettings.setPackedGitOpenFiles(parsePositiveInt(ObjectDatabaseSettings.PACKED_GIT_OPEN_FILES, line.getOptionValue(ObjectDatabaseSettings.PACKED_GIT_OPEN_FILES)));
+        }
+        if (line.hasOption(ObjectDatabaseSettings.DELTA_BASE_CACHE_LIMIT)) {
+            objectDatabaseSettings.setDeltaBaseCacheLimit(parsePositiveInt(ObjectDatabaseSettings.DELTA_BASE_CACHE_LIMIT, line.getOptionValue(ObjectDatabaseSettings.DELTA_BASE_CACHE_LIMIT)));
+        }
+        if (line.hasOption(ObjectDatabaseSettings.STREAM_FILE_THRESHOLD)) {
+            objectDatabaseSettings.setStreamFileThreshold(parsePositiveInt(ObjectDatabaseSettings.STREAM_FILE_THRESHOLD, line.getOptionValue(ObjectDatabaseSettings.STREAM_FILE_THRESHOLD)));
+        }
+        return objectDatabaseSettings;
+    }
+
+    private boolean parseBoolean(String optionName, String value) throws ParseException {
+        if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+            throw new ParseException("Option " + optionName + " should be true or false, but was " + value);
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    private InetAddress parseHost(String value) throws ParseException {
+        try {
+            return InetAddress.getByName(value);
+        } catch (UnknownHostException e) {
+            throw new ParseException("Option " + HOST_OPTION + " has unknown host " + value);
+        }
+    }
+
+    private int parsePort(String value) throws ParseException {
+        int port = parsePositiveInt(PORT_OPTION, value);
+        if (port > 0xFFFF) {
+            throw new ParseException("Option " + PORT_OPTION + " should not exceed 65535, but was " + value);
+        }
+        return port;
+    }
+
+    private int parsePositiveInt(String optionName, String value) throws ParseException {
+        long parsedValue = parsePositiveLong(optionName, value);
+        if (parsedValue > Integer.MAX_VALUE) {
+            throw new ParseException("Option " + optionName + " should not exceed " + Integer.MAX_VALUE + ", but was " + value);
+        }
+        return (int) parsedValue;
+    }
+
+    private long parsePositiveLong(String optionName, String value) throws ParseException {
+        long parsedValue = parseNonNegativeLong(optionName, value);
+        if (parsedValue < 1) {
+            throw new ParseException("Option " + optionName + " should be positive, but was " + value);
+        }
+        return parsedValue;
+    }
+
+    private long parseNonNegativeLong(String optionName, String value) throws ParseException {
+        long parsedValue;
+        try {
+            parsedValue = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ParseException("Option " + optionName + " should be a number, but was " + value);
+        }
+        if (parsedValue < 0) {
+            throw new ParseException("Option " + optionName + " should not be negative, but was " + value);
+        }
+        return parsedValue;
+    }
+
+    private List<String> parseList(String optionName, String value) throws ParseException {
+        List<String> values = Stream.of(value.split(",")).map(String::trim).filter(item -> !item.isEmpty()).collect(Collectors.toList());
+        if (values.isEmpty()) {
+            throw new ParseException("Option " + optionName + " should contain at least one value, but was " + value);
+        }
+        return values;
+    }
+
+    private ZoneId parseZone(String optionName, String value) throws ParseException {
+        try {
+            return ZoneId.of(value);
+        } catch (DateTimeException e) {
+            throw new ParseException("Option " + optionName + " has unsupported time zone " + value);
+        }
+    }
+
+    private <E extends Enum<E>> E parseEnum(Class<E> enumType, String optionName, String value) throws ParseException {
+        try {
+            return Enum.valueOf(enumType, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ParseException("Option " + optionName + " has unsupported value " + value);
+        }
+    }
+
     private void printHelp() {
         HelpFormatter formatter = new HelpFormatter();
         Options helpOptions = new Options();
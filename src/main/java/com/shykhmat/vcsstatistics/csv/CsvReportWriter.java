@@ -0,0 +1,74 @@
+package com.shykhmat.vcsstatistics.csv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.shykhmat.vcsstatistics.domain.Granularity;
+import com.shykhmat.vcsstatistics.domain.ProjectReport;
+import com.shykhmat.vcsstatistics.domain.StatisticsView;
+import com.shykhmat.vcsstatistics.report.ReportWriter;
+
+/**
+ * Class to write statistics report as comma separated values in long format:
+ * a header line followed by a line per period with changes of every author or
+ * folder, e.g.
+ *
+ * <pre>
+ * project,type,name,period,changedLines
+ * my_application,author,John Smith,2020-01,120
+ * my_application,directory,src,2020-01,100
+ * </pre>
+ *
+ * Lines are written while statistics are iterated, so memory usage does not
+ * depend on report size. Values are quoted according to RFC 4180.
+ */
+public class CsvReportWriter implements ReportWriter {
+    private static final String HEADER = "project,type,name,period,changedLines";
+    private static final String AUTHOR_TYPE = "author";
+    private static final String DIRECTORY_TYPE = "directory";
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeReport(OutputStream output, ProjectReport projectReport) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write(LINE_SEPARATOR);
+        String project = escape(projectReport.getProjectName());
+        writeStatistics(writer, project + ',' + AUTHOR_TYPE + ',', projectReport.getStatistics());
+        if (projectReport.getDirectoryStatistics() != null) {
+            writeStatistics(writer, project + ',' + DIRECTORY_TYPE + ',', projectReport.getDirectoryStatistics());
+        }
+        writer.flush();
+    }
+
+    private void writeStatistics(Writer writer, String linePrefix, StatisticsView statistics) throws IOException {
+        Granularity granularity = statistics.getGranularity();
+        for (int authorId = 0; authorId < statistics.getAuthorCount(); authorId++) {
+            String rowPrefix = linePrefix + escape(statistics.getAuthorName(authorId)) + ',';
+            for (long bucket = statistics.getFirstDay(authorId); bucket <= statistics.getLastDay(authorId); bucket++) {
+                long changedLines = statistics.getChangedLines(authorId, bucket);
+                if (changedLines != 0) {
+                    writer.write(rowPrefix);
+                    writer.write(granularity.format(bucket));
+                    writer.write(',');
+                    writer.write(Long.toString(changedLines));
+                    writer.write(LINE_SEPARATOR);
+                }
+            }
+        }
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,40 @@
+package com.shykhmat.vcsstatistics.domain;
+
+/**
+ * Metric of a commit, that is obtained from the same diff as changed lines.
+ */
+public enum CommitMetric {
+    /**
+     * Amount of analyzed commits, 1 for a single commit.
+     */
+    COMMITS,
+    /**
+     * Amount of added lines, also reported as changed lines.
+     */
+    INSERTIONS,
+    /**
+     * Amount of removed lines.
+     */
+    DELETIONS,
+    /**
+     * Amount of created files, including copies.
+     */
+    FILES_ADDED,
+    /**
+     * Amount of files modified in place.
+     */
+    FILES_MODIFIED,
+    /**
+     * Amount of removed files.
+     */
+    FILES_DELETED,
+    /**
+     * Amount of moved files, with or without modifications.
+     */
+    FILES_RENAMED,
+    /**
+     * Amount of changed files, which lines are not counted because they are
+     * binary.
+     */
+    BINARY_FILES;
+}
@@ -0,0 +1,88 @@
+package com.shykhmat.vcsstatistics.domain;
+
+import java.util.Arrays;
+
+/**
+ * Values of every {@link CommitMetric} of a single commit or of a group of
+ * commits, stored in a primitive array indexed by metric ordinal. Instances
+ * are mutable, so that the same instance can be reused for many commits.
+ */
+public class CommitMetrics {
+    private static final CommitMetric[] METRICS = CommitMetric.values();
+
+    private final long[] values;
+    private boolean skipped;
+
+    public CommitMetrics() {
+        values = new long[METRICS.length];
+    }
+
+    /**
+     * @param metric
+     *            - metric to get
+     * @return value of the metric
+     */
+    public long get(CommitMetric metric) {
+        return values[metric.ordinal()];
+    }
+
+    /**
+     * @param metric
+     *            - metric to change
+     * @param value
+     *            - amount to be added to the metric
+     */
+    public void add(CommitMetric metric, long value) {
+        values[metric.ordinal()] += value;
+    }
+
+    /**
+     * Method to add values of all metrics.
+     *
+     * @param metrics
+     *            - metrics to be added
+     */
+    public void add(CommitMetrics metrics) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] += metrics.values[i];
+        }
+    }
+
+    /**
+     * Method to reset all metrics to 0.
+     */
+    public void clear() {
+        Arrays.fill(values, 0);
+        skipped = false;
+    }
+
+    /**
+     * @return true if changes of the commit were not evaluated, because its
+     *         evaluation took too long, so only its
+     *         {@link CommitMetric#COMMITS} is known
+     */
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(boolean skipped) {
+        this.skipped = skipped;
+    }
+
+    /**
+     * @return amount of changed lines, that is the same as
+     *         {@link CommitMetric#INSERTIONS}
+     */
+    public long getChangedLines() {
+        return values[CommitMetric.INSERTIONS.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder("CommitMetrics[");
+        for (CommitMetric metric : METRICS) {
+            description.append(metric.ordinal() == 0 ? "" : ", ").append(metric).append('=').append(values[metric.ordinal()]);
+        }
+        return description.append(']').toString();
+    }
+}
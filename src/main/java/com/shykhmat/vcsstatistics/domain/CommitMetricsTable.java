@@ -0,0 +1,85 @@
+package com.shykhmat.vcsstatistics.domain;
+
+import java.util.Arrays;
+
+/**
+ * Totals of every {@link CommitMetric} per author. Authors are identified by
+ * the same ids as in {@link StatisticsView} of the same report, values are
+ * stored in a single primitive array of metrics of author 0, then author 1
+ * and so on.
+ * <p>
+ * Instance is not thread safe.
+ */
+public class CommitMetricsTable {
+    private static final int METRICS_COUNT = CommitMetric.values().length;
+    private static final int INITIAL_AUTHORS_CAPACITY = 16;
+
+    private long[] values;
+    private final long[] totals;
+    private int authorCount;
+
+    public CommitMetricsTable() {
+        values = new long[0];
+        totals = new long[METRICS_COUNT];
+    }
+
+    /**
+     * Method to add metrics of a commit to its author.
+     *
+     * @param authorId
+     *            - id of the author in statistics of the report
+     * @param metrics
+     *            - metrics of the commit
+     */
+    public void add(int authorId, CommitMetrics metrics) {
+        for (CommitMetric metric : CommitMetric.values()) {
+            add(authorId, metric, metrics.get(metric));
+        }
+    }
+
+    /**
+     * Method to add value of a single metric to an author.
+     *
+     * @param authorId
+     *            - id of the author in statistics of the report
+     * @param metric
+     *            - metric to change
+     * @param value
+     *            - amount to be added to the metric
+     */
+    public void add(int authorId, CommitMetric metric, long value) {
+        if (authorId >= authorCount) {
+            grow(authorId + 1);
+        }
+        values[authorId * METRICS_COUNT + metric.ordinal()] += value;
+        totals[metric.ordinal()] += value;
+    }
+
+    /**
+     * @param authorId
+     *            - id of the author in statistics of the report
+     * @param metric
+     *            - metric to get
+     * @return total value of the metric of all commits of the author
+     */
+    public long get(int authorId, CommitMetric metric) {
+        return authorId < authorCount ? values[authorId * METRICS_COUNT + metric.ordinal()] : 0;
+    }
+
+    /**
+     * @param metric
+     *            - metric to get
+     * @return total value of the metric of all commits
+     */
+    public long getTotal(CommitMetric metric) {
+        return totals[metric.ordinal()];
+    }
+
+    private void grow(int requiredAuthorCount) {
+        if (requiredAuthorCount * METRICS_COUNT > values.length) {
+            int capacity = Math.max(INITIAL_AUTHORS_CAPACITY, Math.max(requiredAuthorCount, authorCount * 2));
+            values = Arrays.copyOf(values, capacity * METRICS_COUNT);
+        }
+        authorCount = requiredAuthorCount;
+    }
+}
@@ -0,0 +1,125 @@
+package com.shykhmat.vcsstatistics.domain;
+
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+
+/**
+ * Size of a period, which changed lines are aggregated into. Periods are
+ * identified by bucket indexes counted from the period that contains
+ * 1970-01-01, e.g. epoch day for {@link #DAY} and amount of months since
+ * January 1970 for {@link #MONTH}, so that a day is mapped to its bucket by
+ * arithmetic only. Weeks start on Monday as defined by ISO-8601.
+ */
+public enum Granularity {
+    DAY, WEEK, MONTH, QUARTER;
+
+    private static final int DAYS_PER_WEEK = 7;
+    private static final int MONTHS_PER_YEAR = 12;
+    private static final int MONTHS_PER_QUARTER = 3;
+    private static final int EPOCH_YEAR = 1970;
+    // 1970-01-01 was Thursday, so Monday of its week is 3 days earlier
+    private static final long EPOCH_DAY_OF_WEEK = 3;
+    // constants of the days to civil date algorithm, that counts years from
+    // 0000-03-01 in eras of 400 years
+    private static final long DAYS_FROM_CIVIL_EPOCH = 719468;
+    private static final long DAYS_PER_ERA = 146097;
+
+    /**
+     * Method to find bucket of a day.
+     *
+     * @param epochDay
+     *            - day as amount of days since 1970-01-01
+     * @return index of the period that contains the day
+     */
+    public long toBucket(long epochDay) {
+        switch (this) {
+        case DAY:
+            return epochDay;
+        case WEEK:
+            return Math.floorDiv(epochDay + EPOCH_DAY_OF_WEEK, DAYS_PER_WEEK);
+        case MONTH:
+            return toEpochMonth(epochDay);
+        case QUARTER:
+            return Math.floorDiv(toEpochMonth(epochDay), MONTHS_PER_QUARTER);
+        default:
+            throw new IllegalStateException("Unsupported granularity " + this);
+        }
+    }
+
+    /**
+     * Method to find first day of a bucket.
+     *
+     * @param bucket
+     *            - index of a period
+     * @return first day of the period as amount of days since 1970-01-01
+     */
+    public long toFirstDay(long bucket) {
+        switch (this) {
+        case DAY:
+            return bucket;
+        case WEEK:
+            return bucket * DAYS_PER_WEEK - EPOCH_DAY_OF_WEEK;
+        case MONTH:
+            return toFirstDayOfMonth(bucket);
+        case QUARTER:
+            return toFirstDayOfMonth(bucket * MONTHS_PER_QUARTER);
+        default:
+            throw new IllegalStateException("Unsupported granularity " + this);
+        }
+    }
+
+    /**
+     * Method to get name of a bucket, e.g. "2020-01-31", "2020-W05",
+     * "2020-01" or "2020-Q1".
+     *
+     * @param bucket
+     *            - index of a period
+     * @return name of the period
+     */
+    public String format(long bucket) {
+        LocalDate firstDay = LocalDate.ofEpochDay(toFirstDay(bucket));
+        switch (this) {
+        case DAY:
+            return firstDay.toString();
+        case WEEK:
+            return String.format("%d-W%02d", firstDay.get(IsoFields.WEEK_BASED_YEAR), firstDay.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        case MONTH:
+            return String.format("%d-%02d", firstDay.getYear(), firstDay.getMonthValue());
+        case QUARTER:
+            return String.format("%d-Q%d", firstDay.getYear(), firstDay.get(IsoFields.QUARTER_OF_YEAR));
+        default:
+            throw new IllegalStateException("Unsupported granularity " + this);
+        }
+    }
+
+    /**
+     * Method to check if buckets of other granularity can be merged into
+     * buckets of this granularity, i.e. every bucket of other granularity is
+     * contained in a single bucket of this granularity.
+     *
+     * @param granularity
+     *            - granularity of merged buckets
+     * @return true if buckets can be merged
+     */
+    public boolean canRollUp(Granularity granularity) {
+        return granularity == this || granularity == DAY || (granularity == MONTH && this == QUARTER);
+    }
+
+    private static long toEpochMonth(long epochDay) {
+        long days = epochDay + DAYS_FROM_CIVIL_EPOCH;
+        long era = Math.floorDiv(days, DAYS_PER_ERA);
+        long dayOfEra = days - era * DAYS_PER_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        // months are counted from March, so that leap day is the last day
+        long marchBasedMonth = (5 * dayOfYear + 2) / 153;
+        long month = marchBasedMonth < 10 ? marchBasedMonth + 2 : marchBasedMonth - 10;
+        long year = yearOfEra + era * 400 + (marchBasedMonth < 10 ? 0 : 1);
+        return (year - EPOCH_YEAR) * MONTHS_PER_YEAR + month;
+    }
+
+    private static long toFirstDayOfMonth(long epochMonth) {
+        long years = Math.floorDiv(epochMonth, MONTHS_PER_YEAR);
+        return LocalDate.of((int) (EPOCH_YEAR + years), (int) (epochMonth - years * MONTHS_PER_YEAR) + 1, 1).toEpochDay();
+    }
+}
@@ -11,7 +11,7 @@ public class LinesOfCodeStatusResolver {
      *            - lines of code number to be analyzed
      * @return - {@link Status} for specified lines of code
      */
-    public Status getStatus(Long linesOfCode) {
+    public Status getStatus(long linesOfCode) {
         if (linesOfCode == 0) {
             return Status.ERROR;
         } else if (linesOfCode > 0 && linesOfCode < 50) {
@@ -1,6 +1,9 @@
 package com.shykhmat.vcsstatistics.domain;
 
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -10,13 +13,48 @@ public class ProjectReport {
     private String projectName;
     private LocalDate dateFrom;
     private LocalDate dateTo;
-    private Map<String, Map<LocalDate, Long>> userReport;
+    private StatisticsView statistics;
+    private StatisticsView directoryStatistics;
+    private CommitMetricsTable commitMetrics;
+    private boolean truncated;
+    private List<String> skippedCommits = Collections.emptyList();
+    private Map<String, CommitMetrics> branchMetrics;
 
-    public ProjectReport(String projectName, LocalDate dateFrom, LocalDate dateTo, Map<String, Map<LocalDate, Long>> userReport) {
+    public ProjectReport(String projectName, LocalDate dateFrom, LocalDate dateTo, StatisticsView statistics) {
+        this(projectName, dateFrom, dateTo, statistics, null);
+    }
+
+    public ProjectReport(String projectName, LocalDate dateFrom, LocalDate dateTo, StatisticsView statistics, StatisticsView directoryStatistics) {
+        this(projectName, dateFrom, dateTo, statistics, directoryStatistics, null);
+    }
+
+    /**
+     * @param projectName
+     *            - name of the project
+     * @param dateFrom
+     *            - first date of the report
+     * @param dateTo
+     *            - last date of the report
+     * @param statistics
+     *            - changed lines per author
+     * @param directoryStatistics
+     *            - changed lines per top-level folder of the project, null if
+     *            they were not collected
+     * @param commitMetrics
+     *            - totals of commit metrics per author with the same author
+     *            ids as statistics, null if they were not collected
+     */
+    public ProjectReport(String projectName, LocalDate dateFrom, LocalDate dateTo, StatisticsView statistics, StatisticsView directoryStatistics, CommitMetricsTable commitMetrics) {
         this.projectName = projectName;
         this.dateFrom = dateFrom;
         this.dateTo = dateTo;
-        this.userReport = userReport;
+        this.statistics = statistics;
+        this.directoryStatistics = directoryStatistics;
+        this.commitMetrics = commitMetrics;
+    }
+
+    public ProjectReport(String projectName, LocalDate dateFrom, LocalDate dateTo, Map<String, Map<LocalDate, Long>> userReport) {
+        this(projectName, dateFrom, dateTo, toStatistics(userReport));
     }
 
     public String getProjectName() {
@@ -31,8 +69,95 @@ public class ProjectReport {
         return dateTo;
     }
 
+    public StatisticsView getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return changed lines per top-level folder of the project with the same
+     *         granularity as {@link #getStatistics()}, folder "/" contains
+     *         files of the project root; null if they were not collected
+     */
+    public StatisticsView getDirectoryStatistics() {
+        return directoryStatistics;
+    }
+
+    /**
+     * @return totals of insertions, deletions, touched files and other commit
+     *         metrics per author, authors have the same ids as in
+     *         {@link #getStatistics()}; null if they were not collected
+     */
+    public CommitMetricsTable getCommitMetrics() {
+        return commitMetrics;
+    }
+
+    /**
+     * @return true if collection was stopped because it exceeded its time
+     *         budget, so statistics contain only a part of commits in the
+     *         date range
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    /**
+     * @return ids of commits, which changes are not included into statistics
+     *         because their evaluation exceeded time budget of a commit
+     */
+    public List<String> getSkippedCommits() {
+        return skippedCommits;
+    }
+
+    public void setSkippedCommits(List<String> skippedCommits) {
+        this.skippedCommits = Collections.unmodifiableList(skippedCommits);
+    }
+
+    /**
+     * @return totals of commit metrics per analyzed branch, a commit reachable
+     *         from several branches is included into totals of all of them;
+     *         null if they were not collected
+     */
+    public Map<String, CommitMetrics> getBranchMetrics() {
+        return branchMetrics;
+    }
+
+    public void setBranchMetrics(Map<String, CommitMetrics> branchMetrics) {
+        this.branchMetrics = branchMetrics == null ? null : Collections.unmodifiableMap(branchMetrics);
+    }
+
+    /**
+     * Method to retrieve statistics as maps. Maps are built on every call and
+     * contain only periods with changes, so {@link #getStatistics()} should be
+     * preferred.
+     *
+     * @return changed lines per first day of a period per author
+     */
     public Map<String, Map<LocalDate, Long>> getUserReport() {
+        Map<String, Map<LocalDate, Long>> userReport = new HashMap<>();
+        for (int authorId = 0; authorId < statistics.getAuthorCount(); authorId++) {
+            Map<LocalDate, Long> userStatistics = new HashMap<>();
+            for (long bucket = statistics.getFirstDay(authorId); bucket <= statistics.getLastDay(authorId); bucket++) {
+                long changedLines = statistics.getChangedLines(authorId, bucket);
+                if (changedLines != 0) {
+                    userStatistics.put(LocalDate.ofEpochDay(statistics.getGranularity().toFirstDay(bucket)), changedLines);
+                }
+            }
+            userReport.put(statistics.getAuthorName(authorId), userStatistics);
+        }
         return userReport;
     }
 
+    private static StatisticsView toStatistics(Map<String, Map<LocalDate, Long>> userReport) {
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        userReport.forEach((user, userStatistics) -> {
+            int authorId = statistics.internAuthor(user);
+            userStatistics.forEach((date, changedLines) -> statistics.add(authorId, date.toEpochDay(), changedLines));
+        });
+        return statistics;
+    }
+
 }
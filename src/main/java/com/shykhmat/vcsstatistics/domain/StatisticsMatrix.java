@@ -0,0 +1,209 @@
+package com.shykhmat.vcsstatistics.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact mutable {@link StatisticsView}. Author names are interned into int
+ * ids and changed lines of every author are stored in a primitive array that
+ * covers buckets from the first to the last bucket with changes of the author.
+ * <p>
+ * Instance is not thread safe.
+ */
+public class StatisticsMatrix implements StatisticsView {
+    private static final long[] NO_DAYS = new long[0];
+    private static final int INITIAL_AUTHORS_CAPACITY = 16;
+    private static final int INITIAL_DAYS_CAPACITY = 32;
+
+    private final Granularity granularity;
+    private final Map<String, Integer> authorIds;
+    private final List<String> authorNames;
+    private long[][] changedLines;
+    private long[] firstDays;
+    private long[] totals;
+
+    public StatisticsMatrix() {
+        this(Granularity.DAY);
+    }
+
+    /**
+     * @param granularity
+     *            - size of periods, which bucket indexes are added
+     */
+    public StatisticsMatrix(Granularity granularity) {
+        this.granularity = granularity;
+        authorIds = new HashMap<>();
+        authorNames = new ArrayList<>();
+        changedLines = new long[0][];
+        firstDays = new long[0];
+        totals = new long[0];
+    }
+
+    /**
+     * Method to obtain id of an author, new id is assigned to an author that
+     * is not known yet.
+     *
+     * @param authorName
+     *            - name of an author
+     * @return id of the author
+     */
+    public int internAuthor(String authorName) {
+        Integer authorId = authorIds.get(authorName);
+        if (authorId != null) {
+            return authorId;
+        }
+        int newAuthorId = authorNames.size();
+        if (newAuthorId == changedLines.length) {
+            int capacity = Math.max(INITIAL_AUTHORS_CAPACITY, newAuthorId * 2);
+            changedLines = Arrays.copyOf(changedLines, capacity);
+            firstDays = Arrays.copyOf(firstDays, capacity);
+            totals = Arrays.copyOf(totals, capacity);
+        }
+        changedLines[newAuthorId] = NO_DAYS;
+        authorIds.put(authorName, newAuthorId);
+        authorNames.add(authorName);
+        return newAuthorId;
+    }
+
+    /**
+     * Method to add changed lines of an author.
+     *
+     * @param authorId
+     *            - id obtained from {@link #internAuthor(String)}
+     * @param epochDay
+     *            - bucket index of the period of changes, for
+     *            {@link Granularity#DAY} it is amount of days since
+     *            1970-01-01
+     * @param lines
+     *            - amount of changed lines
+     */
+    public void add(int authorId, long epochDay, long lines) {
+        long[] days = changedLines[authorId];
+        if (days.length == 0) {
+            days = new long[INITIAL_DAYS_CAPACITY];
+            changedLines[authorId] = days;
+            firstDays[authorId] = epochDay;
+        } else if (epochDay < firstDays[authorId] || epochDay >= firstDays[authorId] + days.length) {
+            days = grow(authorId, epochDay);
+        }
+        days[(int) (epochDay - firstDays[authorId])] += lines;
+        totals[authorId] += lines;
+    }
+
+    /**
+     * Method to copy statistics of specific range of buckets.
+     *
+     * @param firstDay
+     *            - first bucket in range
+     * @param lastDay
+     *            - last bucket in range
+     * @return statistics of authors that have changes in range
+     */
+    public StatisticsMatrix slice(long firstDay, long lastDay) {
+        StatisticsMatrix slice = new StatisticsMatrix(granularity);
+        for (int authorId = 0; authorId < getAuthorCount(); authorId++) {
+            long from = Math.max(firstDay, getFirstDay(authorId));
+            long to = Math.min(lastDay, getLastDay(authorId));
+            int sliceAuthorId = -1;
+            for (long day = from; day <= to; day++) {
+                long lines = getChangedLines(authorId, day);
+                if (lines != 0) {
+                    sliceAuthorId = sliceAuthorId < 0 ? slice.internAuthor(getAuthorName(authorId)) : sliceAuthorId;
+                    slice.add(sliceAuthorId, day, lines);
+                }
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Method to merge statistics into larger periods.
+     *
+     * @param statistics
+     *            - statistics to be merged
+     * @param granularity
+     *            - size of periods of merged statistics
+     * @return statistics with the same authors aggregated by specified
+     *         granularity, or specified statistics if they already have it
+     * @throws IllegalArgumentException
+     *             if periods of statistics cannot be merged into periods of
+     *             specified granularity, e.g. weeks into months
+     */
+    public static StatisticsView rollUp(StatisticsView statistics, Granularity granularity) {
+        Granularity sourceGranularity = statistics.getGranularity();
+        if (sourceGranularity == granularity) {
+            return statistics;
+        }
+        if (!granularity.canRollUp(sourceGranularity)) {
+            throw new IllegalArgumentException("Statistics aggregated by " + sourceGranularity + " cannot be aggregated by " + granularity);
+        }
+        StatisticsMatrix rollUp = new StatisticsMatrix(granularity);
+        for (int authorId = 0; authorId < statistics.getAuthorCount(); authorId++) {
+            int rollUpAuthorId = rollUp.internAuthor(statistics.getAuthorName(authorId));
+            for (long bucket = statistics.getFirstDay(authorId); bucket <= statistics.getLastDay(authorId); bucket++) {
+                long lines = statistics.getChangedLines(authorId, bucket);
+                if (lines != 0) {
+                    rollUp.add(rollUpAuthorId, granularity.toBucket(sourceGranularity.toFirstDay(bucket)), lines);
+                }
+            }
+        }
+        return rollUp;
+    }
+
+    @Override
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    @Override
+    public int getAuthorCount() {
+        return authorNames.size();
+    }
+
+    @Override
+    public String getAuthorName(int authorId) {
+        return authorNames.get(authorId);
+    }
+
+    @Override
+    public long getChangedLines(int authorId, long epochDay) {
+        long[] days = changedLines[authorId];
+        long index = epochDay - firstDays[authorId];
+        return index >= 0 && index < days.length ? days[(int) index] : 0;
+    }
+
+    @Override
+    public long getTotalChangedLines(int authorId) {
+        return totals[authorId];
+    }
+
+    @Override
+    public long getFirstDay(int authorId) {
+        return firstDays[authorId];
+    }
+
+    @Override
+    public long getLastDay(int authorId) {
+        return firstDays[authorId] + changedLines[authorId].length - 1;
+    }
+
+    private long[] grow(int authorId, long epochDay) {
+        long[] days = changedLines[authorId];
+        long firstDay = Math.min(firstDays[authorId], epochDay);
+        long lastDay = Math.max(firstDays[authorId] + days.length - 1, epochDay);
+        long requiredLength = lastDay - firstDay + 1;
+        int length = (int) Math.min(Integer.MAX_VALUE, Math.max(requiredLength, days.length * 2L));
+        long[] grownDays = new long[length];
+        if (epochDay < firstDays[authorId]) {
+            // leave free space before the first day for further changes in the past
+            firstDay = lastDay - length + 1;
+        }
+        System.arraycopy(days, 0, grownDays, (int) (firstDays[authorId] - firstDay), days.length);
+        changedLines[authorId] = grownDays;
+        firstDays[authorId] = firstDay;
+        return grownDays;
+    }
+}
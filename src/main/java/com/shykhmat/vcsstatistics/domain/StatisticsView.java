@@ -0,0 +1,61 @@
+package com.shykhmat.vcsstatistics.domain;
+
+/**
+ * Read-only view of changed lines per author per period. Authors are
+ * identified by dense ids from 0 to {@link #getAuthorCount()} - 1 and periods
+ * by bucket indexes of {@link #getGranularity()}, e.g. epoch day numbers for
+ * {@link Granularity#DAY}, so statistics can be iterated without boxing.
+ * Rows of the view may also represent other groups of changes than authors,
+ * e.g. folders of a project.
+ */
+public interface StatisticsView {
+    /**
+     * @return size of periods, which changed lines are aggregated into
+     */
+    default Granularity getGranularity() {
+        return Granularity.DAY;
+    }
+
+    /**
+     * @return amount of authors in statistics
+     */
+    int getAuthorCount();
+
+    /**
+     * @param authorId
+     *            - id of an author
+     * @return name of the author
+     */
+    String getAuthorName(int authorId);
+
+    /**
+     * @param authorId
+     *            - id of an author
+     * @param epochDay
+     *            - bucket index of a period, for {@link Granularity#DAY} it
+     *            is amount of days since 1970-01-01
+     * @return amount of lines changed by the author during the period
+     */
+    long getChangedLines(int authorId, long epochDay);
+
+    /**
+     * @param authorId
+     *            - id of an author
+     * @return amount of lines changed by the author during all periods
+     */
+    long getTotalChangedLines(int authorId);
+
+    /**
+     * @param authorId
+     *            - id of an author
+     * @return first bucket that may contain changes of the author
+     */
+    long getFirstDay(int authorId);
+
+    /**
+     * @param authorId
+     *            - id of an author
+     * @return last bucket that may contain changes of the author
+     */
+    long getLastDay(int authorId);
+}
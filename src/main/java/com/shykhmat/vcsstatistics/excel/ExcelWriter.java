@@ -4,12 +4,12 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.TreeMap;
 
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.FillPatternType;
@@ -17,27 +17,54 @@ import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.WorkbookUtil;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.io.Files;
+import com.shykhmat.vcsstatistics.domain.CommitMetric;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+import com.shykhmat.vcsstatistics.domain.CommitMetricsTable;
+import com.shykhmat.vcsstatistics.domain.Granularity;
 import com.shykhmat.vcsstatistics.domain.LinesOfCodeStatusResolver;
 import com.shykhmat.vcsstatistics.domain.ProjectReport;
+import com.shykhmat.vcsstatistics.domain.StatisticsMatrix;
+import com.shykhmat.vcsstatistics.domain.StatisticsView;
 import com.shykhmat.vcsstatistics.domain.Status;
-import com.shykhmat.vcsstatistics.utils.DateUtils;
+import com.shykhmat.vcsstatistics.report.ReportFormat;
+import com.shykhmat.vcsstatistics.report.ReportWriter;
 
 /**
  * Class to write statistics report into Excel file.
  */
-public class ExcelWriter {
+public class ExcelWriter implements ReportWriter {
     private static final String STATISTICS_SHEET_NAME = "Statistics";
+    private static final String AUTHORS_SHEET_NAME = "Authors";
+    private static final String DIRECTORIES_SHEET_NAME = "Directories";
+    private static final String DIRECTORIES_SHEET_SUFFIX = " directories";
+    private static final String CHURN_SHEET_NAME = "Churn";
+    private static final String CHURN_SHEET_SUFFIX = " churn";
+    private static final String BRANCHES_SHEET_NAME = "Branches";
+    private static final String BRANCHES_SHEET_SUFFIX = " branches";
+    private static final String AUTHOR_HEADER = "Author";
+    private static final String DIRECTORY_HEADER = "Directory";
+    private static final String BRANCH_HEADER = "Branch";
+    private static final String COMBINED_REPORT_NAME = "projects";
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
     private static final Logger LOGGER = LoggerFactory.getLogger(ExcelWriter.class);
-    private static final String EXCEL_EXTENSION = ".xlsx";
+    private static final int MAX_COLUMNS = SpreadsheetVersion.EXCEL2007.getMaxColumns();
+    private static final int MAX_DATE_COLUMNS = MAX_COLUMNS - 2;
     private LinesOfCodeStatusResolver linesOfCodeStatusResolver;
+    private ExcelWriterSettings settings;
 
     public ExcelWriter(LinesOfCodeStatusResolver linesOfCodeStatusResolver) {
+        this(linesOfCodeStatusResolver, new ExcelWriterSettings());
+    }
+
+    public ExcelWriter(LinesOfCodeStatusResolver linesOfCodeStatusResolver, ExcelWriterSettings settings) {
         this.linesOfCodeStatusResolver = linesOfCodeStatusResolver;
+        this.settings = settings;
     }
 
     /**
@@ -50,23 +77,85 @@ public class ExcelWriter {
      * @return true if metrics were written successfully, false in another case
      */
     public boolean writeMetricsToExcel(String pathToFile, ProjectReport projectReport) {
-        try (Workbook workbook = writeToWorkbook(projectReport)) {
-            writeToFile(fixReportPath(projectReport, pathToFile), workbook);
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(null, settings.getRowWindow(), settings.isCompressTempFiles(), false)) {
+            try {
+                writeStatisticsMetrics(projectReport, workbook, prepareStatusCellStyles(workbook), STATISTICS_SHEET_NAME, DIRECTORIES_SHEET_NAME, CHURN_SHEET_NAME, BRANCHES_SHEET_NAME);
+                writeToFile(fixReportPath(projectReport.getProjectName(), pathToFile), workbook);
+            } finally {
+                workbook.dispose();
+            }
         } catch (IOException e) {
             LOGGER.error("Error during writing statistics to Excel file: ", e);
             return false;
-        } 
+        }
         return true;
     }
 
-    private Workbook writeToWorkbook(ProjectReport projectReport) {
-        Workbook workbook = new SXSSFWorkbook();
-        Map<Status, CellStyle> statusCellStyles = prepareStatusCellStyles(workbook);
-        writeStatisticsMetrics(projectReport, workbook, statusCellStyles);
-        return workbook;
+    /**
+     * Method to write calculated {@link ProjectReport} as Excel workbook into
+     * a stream, e.g. to send it over network.
+     *
+     * @param output
+     *            - destination of the workbook, it is not closed
+     * @param projectReport
+     *            - report with project commit statistics
+     * @throws IOException
+     *             if report cannot be written
+     */
+    public void writeMetricsToExcel(OutputStream output, ProjectReport projectReport) throws IOException {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(null, settings.getRowWindow(), settings.isCompressTempFiles(), false)) {
+            try {
+                writeStatisticsMetrics(projectReport, workbook, prepareStatusCellStyles(workbook), STATISTICS_SHEET_NAME, DIRECTORIES_SHEET_NAME, CHURN_SHEET_NAME, BRANCHES_SHEET_NAME);
+                workbook.write(output);
+            } finally {
+                workbook.dispose();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeReport(OutputStream output, ProjectReport projectReport) throws IOException {
+        writeMetricsToExcel(output, projectReport);
+        output.flush();
     }
 
-    private Map<Status, CellStyle> prepareStatusCellStyles(Workbook workbook) {
+    /**
+     * Method to write reports of several projects into a single Excel file.
+     * Statistics of every project are written into its own sheet, and an
+     * additional sheet contains total changed lines of every author in every
+     * project.
+     *
+     * @param pathToFile
+     *            - path to Excel file that will be created
+     * @param projectReports
+     *            - reports with commit statistics of projects
+     * @return true if metrics were written successfully, false in another case
+     */
+    public boolean writeMetricsToExcel(String pathToFile, List<ProjectReport> projectReports) {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(null, settings.getRowWindow(), settings.isCompressTempFiles(), false)) {
+            try {
+                writeAuthorsRollup(projectReports, workbook);
+                CellStyle[] statusCellStyles = prepareStatusCellStyles(workbook);
+                for (ProjectReport projectReport : projectReports) {
+                    String projectSheetName = getProjectSheetName(projectReport);
+                    writeStatisticsMetrics(projectReport, workbook, statusCellStyles, projectSheetName, projectSheetName + DIRECTORIES_SHEET_SUFFIX, projectSheetName + CHURN_SHEET_SUFFIX,
+                            projectSheetName + BRANCHES_SHEET_SUFFIX);
+                }
+                writeToFile(fixReportPath(COMBINED_REPORT_NAME, pathToFile), workbook);
+            } finally {
+                workbook.dispose();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error during writing statistics to Excel file: ", e);
+            return false;
+        }
+        return true;
+    }
+
+    private CellStyle[] prepareStatusCellStyles(Workbook workbook) {
         CellStyle okCellStyle = workbook.createCellStyle();
         okCellStyle.setFillForegroundColor(IndexedColors.GREEN.getIndex());
         okCellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
@@ -76,22 +165,15 @@ public class ExcelWriter {
         CellStyle errorCellStyle = workbook.createCellStyle();
         errorCellStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
         errorCellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        Map<Status, CellStyle> statusCellStyles = new HashMap<>();
-        statusCellStyles.put(Status.OK, okCellStyle);
-        statusCellStyles.put(Status.WARNING, warningCellStyle);
-        statusCellStyles.put(Status.ERROR, errorCellStyle);
+        CellStyle[] statusCellStyles = new CellStyle[Status.values().length];
+        statusCellStyles[Status.OK.ordinal()] = okCellStyle;
+        statusCellStyles[Status.WARNING.ordinal()] = warningCellStyle;
+        statusCellStyles[Status.ERROR.ordinal()] = errorCellStyle;
         return statusCellStyles;
     }
 
-    private String fixReportPath(ProjectReport projectReport, String reportPath) {
-        if (!reportPath.endsWith(EXCEL_EXTENSION)) {
-            String projectName = projectReport.getProjectName();
-            if (!reportPath.endsWith(File.separator)) {
-                projectName = File.separator + projectName;
-            }
-            reportPath += projectName + EXCEL_EXTENSION;
-        }
-        return reportPath;
+    private String fixReportPath(String reportName, String reportPath) {
+        return ReportFormat.XLSX.resolveReportPath(reportName, reportPath);
     }
 
     private void writeToFile(String pathToFile, Workbook workbook) throws IOException {
@@ -110,46 +192,143 @@ public class ExcelWriter {
         }
     }
 
-    private void writeStatisticsMetrics(ProjectReport projectReport, Workbook workbook, Map<Status, CellStyle> statusCellStyles) {
-        Sheet worksheet = createStatisticsSheet(workbook);
-        List<LocalDate> datesInStatistics = DateUtils.getDatesBetweenUsing(projectReport.getDateFrom(), projectReport.getDateTo());
-        createStatisticsHeader(worksheet, datesInStatistics);
-        AtomicInteger rowIndex = new AtomicInteger();
-        projectReport.getUserReport().entrySet().stream().forEach(entry -> {
-            Row row = worksheet.createRow(rowIndex.incrementAndGet());
-            AtomicInteger columnIndex = new AtomicInteger();
-            row.createCell(columnIndex.getAndIncrement()).setCellValue(entry.getKey());
-            Map<LocalDate, Long> userStatistics = entry.getValue();
-            datesInStatistics.stream().forEach(date -> {
-                Long linesOfCode = 0l;
-                if (userStatistics.containsKey(date)) {
-                    linesOfCode = userStatistics.get(date);
-                }
-                Cell locCell = row.createCell(columnIndex.getAndIncrement());
-                locCell.setCellStyle(statusCellStyles.get(linesOfCodeStatusResolver.getStatus(linesOfCode)));
+    private void writeStatisticsMetrics(ProjectReport projectReport, Workbook workbook, CellStyle[] statusCellStyles, String sheetName, String directoriesSheetName,
+            String churnSheetName, String branchesSheetName) {
+        writeStatisticsSheets(projectReport, projectReport.getStatistics(), workbook, statusCellStyles, sheetName, AUTHOR_HEADER);
+        if (projectReport.getDirectoryStatistics() != null) {
+            writeStatisticsSheets(projectReport, projectReport.getDirectoryStatistics(), workbook, statusCellStyles, directoriesSheetName, DIRECTORY_HEADER);
+        }
+        if (projectReport.getCommitMetrics() != null) {
+            writeChurnSheet(workbook.createSheet(createSheetName(workbook, churnSheetName)), projectReport.getStatistics(), projectReport.getCommitMetrics());
+        }
+        if (projectReport.getBranchMetrics() != null) {
+            writeBranchesSheet(workbook.createSheet(createSheetName(workbook, branchesSheetName)), projectReport.getBranchMetrics());
+        }
+    }
+
+    private void writeChurnSheet(Sheet worksheet, StatisticsView statistics, CommitMetricsTable commitMetrics) {
+        CommitMetric[] metrics = CommitMetric.values();
+        writeMetricsHeader(worksheet, AUTHOR_HEADER);
+        for (int authorId = 0; authorId < statistics.getAuthorCount(); authorId++) {
+            Row row = worksheet.createRow(authorId + 1);
+            row.createCell(0).setCellValue(statistics.getAuthorName(authorId));
+            for (CommitMetric metric : metrics) {
+                row.createCell(metric.ordinal() + 1).setCellValue(commitMetrics.get(authorId, metric));
+            }
+        }
+        Row total = worksheet.createRow(statistics.getAuthorCount() + 1);
+        total.createCell(0).setCellValue("Total");
+        for (CommitMetric metric : metrics) {
+            total.createCell(metric.ordinal() + 1).setCellValue(commitMetrics.getTotal(metric));
+        }
+    }
+
+    private void writeBranchesSheet(Sheet worksheet, Map<String, CommitMetrics> branchMetrics) {
+        writeMetricsHeader(worksheet, BRANCH_HEADER);
+        int rowIndex = 1;
+        for (Map.Entry<String, CommitMetrics> branch : branchMetrics.entrySet()) {
+            Row row = worksheet.createRow(rowIndex++);
+            row.createCell(0).setCellValue(branch.getKey());
+            for (CommitMetric metric : CommitMetric.values()) {
+                row.createCell(metric.ordinal() + 1).setCellValue(branch.getValue().get(metric));
+            }
+        }
+    }
+
+    private void writeMetricsHeader(Sheet worksheet, String rowHeader) {
+        Row header = worksheet.createRow(0);
+        header.createCell(0).setCellValue(rowHeader);
+        for (CommitMetric metric : CommitMetric.values()) {
+            String metricName = metric.name().replace('_', ' ').toLowerCase(Locale.ROOT);
+            header.createCell(metric.ordinal() + 1).setCellValue(Character.toUpperCase(metricName.charAt(0)) + metricName.substring(1));
+        }
+    }
+
+    private void writeStatisticsSheets(ProjectReport projectReport, StatisticsView reportStatistics, Workbook workbook, CellStyle[] statusCellStyles, String sheetName, String rowHeader) {
+        StatisticsView statistics = settings.getGranularity() == null ? reportStatistics : StatisticsMatrix.rollUp(reportStatistics, settings.getGranularity());
+        Granularity granularity = statistics.getGranularity();
+        long firstBucket = 0;
+        int bucketsCount = 0;
+        if (projectReport.getDateFrom() != null && projectReport.getDateTo() != null) {
+            long firstDay = projectReport.getDateFrom().toEpochDay();
+            long lastDay = projectReport.getDateTo().toEpochDay();
+            if (lastDay >= firstDay) {
+                firstBucket = granularity.toBucket(firstDay);
+                bucketsCount = (int) (granularity.toBucket(lastDay) - firstBucket + 1);
+            }
+        }
+        int sheetsCount = Math.max(1, (bucketsCount + MAX_DATE_COLUMNS - 1) / MAX_DATE_COLUMNS);
+        for (int sheetIndex = 0; sheetIndex < sheetsCount; sheetIndex++) {
+            int sheetFirstBucket = sheetIndex * MAX_DATE_COLUMNS;
+            int sheetBucketsCount = Math.min(bucketsCount - sheetFirstBucket, MAX_DATE_COLUMNS);
+            writeStatisticsSheet(workbook.createSheet(createSheetName(workbook, sheetName)), firstBucket + sheetFirstBucket, sheetBucketsCount, statistics, statusCellStyles, rowHeader);
+        }
+    }
+
+    private void writeStatisticsSheet(Sheet worksheet, long firstBucket, int bucketsCount, StatisticsView statistics, CellStyle[] statusCellStyles, String rowHeader) {
+        createStatisticsHeader(worksheet, firstBucket, bucketsCount, statistics.getGranularity(), rowHeader);
+        for (int authorId = 0; authorId < statistics.getAuthorCount(); authorId++) {
+            Row row = worksheet.createRow(authorId + 1);
+            row.createCell(0).setCellValue(statistics.getAuthorName(authorId));
+            for (int i = 0; i < bucketsCount; i++) {
+                long linesOfCode = statistics.getChangedLines(authorId, firstBucket + i);
+                Cell locCell = row.createCell(i + 1);
+                locCell.setCellStyle(statusCellStyles[linesOfCodeStatusResolver.getStatus(linesOfCode).ordinal()]);
                 locCell.setCellValue(linesOfCode);
-            });
-            row.createCell(columnIndex.getAndIncrement()).setCellValue(userStatistics.values().stream().mapToLong(Long::longValue).sum());
-        });
+            }
+            row.createCell(bucketsCount + 1).setCellValue(statistics.getTotalChangedLines(authorId));
+        }
+    }
+
+    private void createStatisticsHeader(Sheet worksheet, long firstBucket, int bucketsCount, Granularity granularity, String rowHeader) {
+        Row header = worksheet.createRow(0);
+        header.createCell(0).setCellValue(rowHeader);
+        for (int i = 0; i < bucketsCount; i++) {
+            header.createCell(i + 1).setCellValue(granularity.format(firstBucket + i));
+        }
+        header.createCell(bucketsCount + 1).setCellValue("Total");
     }
 
-    private void createStatisticsHeader(Sheet worksheet, List<LocalDate> datesInStatistics) {
+    private void writeAuthorsRollup(List<ProjectReport> projectReports, Workbook workbook) {
+        Map<String, long[]> authorTotals = new TreeMap<>();
+        for (int projectIndex = 0; projectIndex < projectReports.size(); projectIndex++) {
+            StatisticsView statistics = projectReports.get(projectIndex).getStatistics();
+            for (int authorId = 0; authorId < statistics.getAuthorCount(); authorId++) {
+                long[] totals = authorTotals.computeIfAbsent(statistics.getAuthorName(authorId), author -> new long[projectReports.size() + 1]);
+                totals[projectIndex] += statistics.getTotalChangedLines(authorId);
+                totals[projectReports.size()] += statistics.getTotalChangedLines(authorId);
+            }
+        }
+        Sheet worksheet = workbook.createSheet(AUTHORS_SHEET_NAME);
         Row header = worksheet.createRow(0);
-        header.createCell(0).setCellValue("Author");
-        AtomicInteger currentColumnIndex = new AtomicInteger();
-        datesInStatistics.stream().forEach(d -> {
-            header.createCell(currentColumnIndex.incrementAndGet()).setCellValue(d.toString());
-        });
-        header.createCell(currentColumnIndex.incrementAndGet()).setCellValue("Total");
+        header.createCell(0).setCellValue(AUTHOR_HEADER);
+        for (int projectIndex = 0; projectIndex < projectReports.size(); projectIndex++) {
+            header.createCell(projectIndex + 1).setCellValue(projectReports.get(projectIndex).getProjectName());
+        }
+        header.createCell(projectReports.size() + 1).setCellValue("Total");
+        int rowIndex = 1;
+        for (Map.Entry<String, long[]> author : authorTotals.entrySet()) {
+            Row row = worksheet.createRow(rowIndex++);
+            row.createCell(0).setCellValue(author.getKey());
+            long[] totals = author.getValue();
+            for (int i = 0; i < totals.length; i++) {
+                row.createCell(i + 1).setCellValue(totals[i]);
+            }
+        }
+    }
 
+    private String getProjectSheetName(ProjectReport projectReport) {
+        String projectName = projectReport.getProjectName().replaceAll("^[/\\s]+", "");
+        return projectName.isEmpty() ? STATISTICS_SHEET_NAME : projectName;
     }
 
-    private Sheet createStatisticsSheet(Workbook workbook) {
-        int classesSheetIndex = workbook.getSheetIndex(STATISTICS_SHEET_NAME);
-        if (classesSheetIndex >= 0) {
-            workbook.removeSheetAt(classesSheetIndex);
+    private String createSheetName(Workbook workbook, String baseName) {
+        String sheetName = WorkbookUtil.createSafeSheetName(baseName);
+        for (int index = 2; workbook.getSheet(sheetName) != null; index++) {
+            String suffix = " (" + index + ")";
+            sheetName = WorkbookUtil.createSafeSheetName(baseName.substring(0, Math.min(baseName.length(), MAX_SHEET_NAME_LENGTH - suffix.length()))) + suffix;
         }
-        return workbook.createSheet(STATISTICS_SHEET_NAME);
+        return sheetName;
     }
 
 }
@@ -0,0 +1,62 @@
+package com.shykhmat.vcsstatistics.excel;
+
+import com.shykhmat.vcsstatistics.domain.Granularity;
+
+/**
+ * Settings that control layout and memory usage of {@link ExcelWriter}.
+ */
+public class ExcelWriterSettings {
+    private static final int DEFAULT_ROW_WINDOW = 100;
+
+    private int rowWindow;
+    private boolean compressTempFiles;
+    private Granularity granularity;
+
+    public ExcelWriterSettings() {
+        rowWindow = DEFAULT_ROW_WINDOW;
+    }
+
+    /**
+     * @return amount of rows kept in memory, older rows are flushed to a
+     *         temporary file
+     */
+    public int getRowWindow() {
+        return rowWindow;
+    }
+
+    public void setRowWindow(int rowWindow) {
+        if (rowWindow < 1) {
+            throw new IllegalArgumentException("Row window should be positive, but was " + rowWindow);
+        }
+        this.rowWindow = rowWindow;
+    }
+
+    /**
+     * @return true if temporary files with flushed rows should be compressed
+     */
+    public boolean isCompressTempFiles() {
+        return compressTempFiles;
+    }
+
+    public void setCompressTempFiles(boolean compressTempFiles) {
+        this.compressTempFiles = compressTempFiles;
+    }
+
+    /**
+     * @return size of periods written as columns, null means that columns
+     *         have granularity of report statistics
+     */
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * @param granularity
+     *            - size of periods written as columns, statistics are merged
+     *            into them if they are aggregated by smaller periods; null to
+     *            use granularity of report statistics
+     */
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+}
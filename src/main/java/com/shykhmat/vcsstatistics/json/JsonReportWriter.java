@@ -0,0 +1,131 @@
+package com.shykhmat.vcsstatistics.json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.common.base.CaseFormat;
+import com.shykhmat.vcsstatistics.domain.CommitMetric;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+import com.shykhmat.vcsstatistics.domain.CommitMetricsTable;
+import com.shykhmat.vcsstatistics.domain.Granularity;
+import com.shykhmat.vcsstatistics.domain.ProjectReport;
+import com.shykhmat.vcsstatistics.domain.StatisticsView;
+import com.shykhmat.vcsstatistics.report.ReportWriter;
+import com.shykhmat.vcsstatistics.utils.JsonWriter;
+
+/**
+ * Class to write statistics report as JSON document. Only periods with changes
+ * are written for every author, periods are named according to granularity of
+ * statistics, e.g. "days" with "2020-01-31" keys or "months" with "2020-01"
+ * keys. Totals of commit metrics are written as "metrics" of every author and
+ * of the whole project, if they were collected, and of every analyzed branch
+ * as "branches", if branch statistics were collected.
+ */
+public class JsonReportWriter implements ReportWriter {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeReport(OutputStream output, ProjectReport projectReport) throws IOException {
+        writeMetrics(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)), projectReport);
+    }
+
+    /**
+     * Method to write {@link ProjectReport} as JSON.
+     *
+     * @param writer
+     *            - destination of JSON document, it is flushed but not closed
+     * @param projectReport
+     *            - report with project commit statistics
+     * @throws IOException
+     *             if report cannot be written
+     */
+    public void writeMetrics(Writer writer, ProjectReport projectReport) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        json.beginObject();
+        json.name("projectName").value(projectReport.getProjectName());
+        json.name("dateFrom").value(toString(projectReport.getDateFrom()));
+        json.name("dateTo").value(toString(projectReport.getDateTo()));
+        json.name("granularity").value(projectReport.getStatistics().getGranularity().name());
+        json.name("truncated").value(projectReport.isTruncated());
+        json.name("skippedCommits").beginArray();
+        for (String skippedCommit : projectReport.getSkippedCommits()) {
+            json.value(skippedCommit);
+        }
+        json.endArray();
+        CommitMetricsTable commitMetrics = projectReport.getCommitMetrics();
+        if (commitMetrics != null) {
+            json.name("metrics").beginObject();
+            for (CommitMetric metric : CommitMetric.values()) {
+                json.name(toMetricName(metric)).value(commitMetrics.getTotal(metric));
+            }
+            json.endObject();
+        }
+        if (projectReport.getBranchMetrics() != null) {
+            json.name("branches").beginArray();
+            for (Map.Entry<String, CommitMetrics> branch : projectReport.getBranchMetrics().entrySet()) {
+                json.beginObject();
+                json.name("name").value(branch.getKey());
+                json.name("metrics").beginObject();
+                for (CommitMetric metric : CommitMetric.values()) {
+                    json.name(toMetricName(metric)).value(branch.getValue().get(metric));
+                }
+                json.endObject();
+                json.endObject();
+            }
+            json.endArray();
+        }
+        json.name("authors");
+        writeStatistics(json, projectReport.getStatistics(), commitMetrics);
+        if (projectReport.getDirectoryStatistics() != null) {
+            json.name("directories");
+            writeStatistics(json, projectReport.getDirectoryStatistics(), null);
+        }
+        json.endObject();
+        json.flush();
+    }
+
+    private void writeStatistics(JsonWriter json, StatisticsView statistics, CommitMetricsTable commitMetrics) throws IOException {
+        Granularity granularity = statistics.getGranularity();
+        String periodsName = granularity.name().toLowerCase(Locale.ROOT) + "s";
+        json.beginArray();
+        for (int authorId = 0; authorId < statistics.getAuthorCount(); authorId++) {
+            json.beginObject();
+            json.name("name").value(statistics.getAuthorName(authorId));
+            json.name("total").value(statistics.getTotalChangedLines(authorId));
+            if (commitMetrics != null) {
+                json.name("metrics").beginObject();
+                for (CommitMetric metric : CommitMetric.values()) {
+                    json.name(toMetricName(metric)).value(commitMetrics.get(authorId, metric));
+                }
+                json.endObject();
+            }
+            json.name(periodsName).beginObject();
+            for (long bucket = statistics.getFirstDay(authorId); bucket <= statistics.getLastDay(authorId); bucket++) {
+                long changedLines = statistics.getChangedLines(authorId, bucket);
+                if (changedLines != 0) {
+                    json.name(granularity.format(bucket)).value(changedLines);
+                }
+            }
+            json.endObject();
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    private String toMetricName(CommitMetric metric) {
+        return CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, metric.name());
+    }
+
+    private String toString(LocalDate date) {
+        return date == null ? null : date.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.shykhmat.vcsstatistics.json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.shykhmat.vcsstatistics.domain.Granularity;
+import com.shykhmat.vcsstatistics.domain.ProjectReport;
+import com.shykhmat.vcsstatistics.domain.StatisticsView;
+import com.shykhmat.vcsstatistics.report.ReportWriter;
+import com.shykhmat.vcsstatistics.utils.JsonWriter;
+
+/**
+ * Class to write statistics report as newline delimited JSON: an object per
+ * line for every period with changes of every author or folder, e.g.
+ *
+ * <pre>
+ * {"project":"my_application","type":"author","name":"John Smith","period":"2020-01","changedLines":120}
+ * </pre>
+ *
+ * Lines are written while statistics are iterated, so memory usage does not
+ * depend on report size.
+ */
+public class NdjsonReportWriter implements ReportWriter {
+    private static final String AUTHOR_TYPE = "author";
+    private static final String DIRECTORY_TYPE = "directory";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeReport(OutputStream output, ProjectReport projectReport) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writeStatistics(writer, projectReport.getProjectName(), AUTHOR_TYPE, projectReport.getStatistics());
+        if (projectReport.getDirectoryStatistics() != null) {
+            writeStatistics(writer, projectReport.getProjectName(), DIRECTORY_TYPE, projectReport.getDirectoryStatistics());
+        }
+        writer.flush();
+    }
+
+    private void writeStatistics(Writer writer, String projectName, String type, StatisticsView statistics) throws IOException {
+        Granularity granularity = statistics.getGranularity();
+        for (int authorId = 0; authorId < statistics.getAuthorCount(); authorId++) {
+            // members that are the same for all periods of a row are escaped
+            // only once, period names and numbers never need escaping
+            String linePrefix = createLinePrefix(projectName, type, statistics.getAuthorName(authorId));
+            for (long bucket = statistics.getFirstDay(authorId); bucket <= statistics.getLastDay(authorId); bucket++) {
+                long changedLines = statistics.getChangedLines(authorId, bucket);
+                if (changedLines != 0) {
+                    writer.write(linePrefix);
+                    writer.write('"');
+                    writer.write(granularity.format(bucket));
+                    writer.write("\",\"changedLines\":");
+                    writer.write(Long.toString(changedLines));
+                    writer.write("}\n");
+                }
+            }
+        }
+    }
+
+    private String createLinePrefix(String projectName, String type, String name) throws IOException {
+        StringWriter linePrefix = new StringWriter();
+        JsonWriter json = new JsonWriter(linePrefix);
+        json.beginObject();
+        json.name("project").value(projectName);
+        json.name("type").value(type);
+        json.name("name").value(name);
+        json.name("period");
+        return linePrefix.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.shykhmat.vcsstatistics.report;
+
+import java.io.File;
+
+/**
+ * Formats of statistics reports.
+ */
+public enum ReportFormat {
+    /**
+     * Excel workbook with a column per period.
+     */
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    /**
+     * JSON document with changed lines per period of every author.
+     */
+    JSON("json", "application/json; charset=utf-8"),
+    /**
+     * JSON object per line for every period with changes of every author.
+     */
+    NDJSON("ndjson", "application/x-ndjson; charset=utf-8"),
+    /**
+     * Comma separated values with a line for every period with changes of
+     * every author.
+     */
+    CSV("csv", "text/csv; charset=utf-8"),
+    /**
+     * Compact binary file with dictionary encoded authors, delta encoded
+     * periods and varint encoded changed lines, see
+     * {@link com.shykhmat.vcsstatistics.columnar.ColumnarReportWriter}.
+     */
+    COLUMNAR("vcsc", "application/octet-stream");
+
+    private final String fileExtension;
+    private final String contentType;
+
+    ReportFormat(String fileExtension, String contentType) {
+        this.fileExtension = fileExtension;
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return extension of report files without leading dot
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * @return media type of reports, e.g. to be sent over HTTP
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Method to find report file.
+     *
+     * @param reportName
+     *            - name of the report, used as file name when report path is
+     *            a folder
+     * @param reportPath
+     *            - path to report file with extension of this format, or path
+     *            to a folder
+     * @return path to report file
+     */
+    public String resolveReportPath(String reportName, String reportPath) {
+        String extension = "." + fileExtension;
+        if (reportPath.endsWith(extension)) {
+            return reportPath;
+        }
+        String fileName = reportName;
+        if (!reportPath.endsWith(File.separator)) {
+            fileName = File.separator + fileName;
+        }
+        return reportPath + fileName + extension;
+    }
+}
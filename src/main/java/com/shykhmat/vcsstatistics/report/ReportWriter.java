@@ -0,0 +1,23 @@
+package com.shykhmat.vcsstatistics.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.shykhmat.vcsstatistics.domain.ProjectReport;
+
+/**
+ * Writer of {@link ProjectReport} in a specific {@link ReportFormat}.
+ */
+public interface ReportWriter {
+    /**
+     * Method to write report into a stream.
+     *
+     * @param output
+     *            - destination of the report, it is flushed but not closed
+     * @param projectReport
+     *            - report with project commit statistics
+     * @throws IOException
+     *             if report cannot be written
+     */
+    void writeReport(OutputStream output, ProjectReport projectReport) throws IOException;
+}
@@ -0,0 +1,86 @@
+package com.shykhmat.vcsstatistics.server;
+
+import java.io.File;
+import java.net.InetAddress;
+
+/**
+ * Settings of {@link VCSStatisticsServer}.
+ */
+public class ServerSettings {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MIN_DEFAULT_THREADS = 4;
+
+    private InetAddress host;
+    private int port;
+    private int threads;
+    private String projectsRoot;
+
+    public ServerSettings() {
+        // server has no authentication, so it is not reachable from other
+        // machines unless host is specified explicitly
+        host = InetAddress.getLoopbackAddress();
+        port = DEFAULT_PORT;
+        // requests mostly wait for calculations, so even a single processor
+        // should be able to accept several of them
+        threads = Math.max(MIN_DEFAULT_THREADS, Runtime.getRuntime().availableProcessors());
+        projectsRoot = new File("").getAbsolutePath();
+    }
+
+    /**
+     * @return address to listen for requests on, loopback address by default
+     */
+    public InetAddress getHost() {
+        return host;
+    }
+
+    public void setHost(InetAddress host) {
+        if (host == null) {
+            throw new IllegalArgumentException("Host should be specified");
+        }
+        this.host = host;
+    }
+
+    /**
+     * @return port to listen for requests
+     */
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        if (port < 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("Port should be between 0 and 65535, but was " + port);
+        }
+        this.port = port;
+    }
+
+    /**
+     * @return amount of threads handling requests
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Amount of threads should be positive, but was " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * @return folder that contains projects, project paths of requests are
+     *         resolved against it and are not allowed to leave it; working
+     *         directory by default
+     */
+    public String getProjectsRoot() {
+        return projectsRoot;
+    }
+
+    public void setProjectsRoot(String projectsRoot) {
+        if (projectsRoot == null || projectsRoot.isEmpty()) {
+            throw new IllegalArgumentException("Projects root should be specified");
+        }
+        this.projectsRoot = projectsRoot;
+    }
+}
@@ -0,0 +1,313 @@
+package com.shykhmat.vcsstatistics.server;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.shykhmat.vcsstatistics.api.VCSStatisticsApi;
+import com.shykhmat.vcsstatistics.collector.CollectorMetrics;
+import com.shykhmat.vcsstatistics.domain.ProjectReport;
+import com.shykhmat.vcsstatistics.domain.VCSType;
+import com.shykhmat.vcsstatistics.report.ReportFormat;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Long running HTTP service around {@link VCSStatisticsApi}. The same API
+ * instance serves all requests, so repositories, object caches and commit
+ * caches stay warm between requests when collector settings keep
+ * repositories open.
+ * <p>
+ * Endpoints:
+ * <ul>
+ * <li>GET /statistics?projectPath=...&amp;vcs=GIT&amp;dateFrom=yyyy-MM-dd&amp;dateTo=yyyy-MM-dd&amp;format=json|xlsx|ndjson|csv|vcsc
+ * - statistics of a project, JSON by default</li>
+ * <li>GET /metrics - collection metrics since server start as JSON</li>
+ * <li>GET /health - returns OK while server is running</li>
+ * </ul>
+ * Concurrent requests for the same project and date range are coalesced, so
+ * that statistics are calculated only once and shared between all of them.
+ */
+public class VCSStatisticsServer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VCSStatisticsServer.class);
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final String TEXT_CONTENT_TYPE = "text/plain; charset=utf-8";
+    private static final int STOP_DELAY_SECONDS = 1;
+
+    private final VCSStatisticsApi vcsStatisticsApi;
+    private final ServerSettings settings;
+    private final CollectorMetrics collectorMetrics;
+    private final Map<StatisticsRequest, CompletableFuture<ProjectReport>> calculationsInProgress;
+    private HttpServer server;
+    private ExecutorService requestExecutor;
+
+    /**
+     * @param vcsStatisticsApi
+     *            - API used to calculate statistics, server registers its own
+     *            collector listener on it
+     * @param settings
+     *            - server settings
+     */
+    public VCSStatisticsServer(VCSStatisticsApi vcsStatisticsApi, ServerSettings settings) {
+        this.vcsStatisticsApi = vcsStatisticsApi;
+        this.settings = settings;
+        collectorMetrics = new CollectorMetrics();
+        calculationsInProgress = new ConcurrentHashMap<>();
+        vcsStatisticsApi.setCollectorListener(collectorMetrics);
+    }
+
+    /**
+     * Method to start listening for requests.
+     *
+     * @throws IOException
+     *             if server cannot be started
+     */
+    public synchronized void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(settings.getHost(), settings.getPort()), 0);
+        requestExecutor = Executors.newFixedThreadPool(settings.getThreads(), new ThreadFactoryBuilder().setNameFormat("http-worker-%d").build());
+        server.setExecutor(requestExecutor);
+        server.createContext("/statistics", exchange -> handle(exchange, this::handleStatistics));
+        server.createContext("/metrics", exchange -> handle(exchange, this::handleMetrics));
+        server.createContext("/health", exchange -> handle(exchange, this::handleHealth));
+        server.start();
+        LOGGER.info("Statistics server is listening on {}:{}", settings.getHost().getHostAddress(), getPort());
+    }
+
+    /**
+     * Method to stop the server and release repositories kept open.
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(STOP_DELAY_SECONDS);
+        requestExecutor.shutdownNow();
+        RepositoryCache.clear();
+        server = null;
+        LOGGER.info("Statistics server was stopped");
+    }
+
+    /**
+     * @return port the server listens on, useful when it was started on port
+     *         0
+     */
+    public synchronized int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange, RequestHandler handler) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendText(exchange, 405, "Only GET requests are supported");
+                return;
+            }
+            handler.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (BadRequestException e) {
+            sendText(exchange, e.getStatus(), e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Cannot handle request {} because of {}", exchange.getRequestURI(), e);
+            if (exchange.getResponseCode() < 0) {
+                sendText(exchange, 500, "Internal server error");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStatistics(HttpExchange exchange, Map<String, String> parameters) throws IOException, BadRequestException {
+        StatisticsRequest request = new StatisticsRequest(resolveProjectPath(getRequiredParameter(parameters, "projectPath")), parseVcsType(getRequiredParameter(parameters, "vcs")),
+                parseDate(parameters, "dateFrom"), parseDate(parameters, "dateTo"));
+        ReportFormat format = parseReportFormat(parameters.getOrDefault("format", ReportFormat.JSON.getFileExtension()));
+        ProjectReport projectReport = calculateStatistics(request);
+        exchange.getResponseHeaders().set("Content-Type", format.getContentType());
+        if (format != ReportFormat.JSON) {
+            String fileName = projectReport.getProjectName().replaceAll("[^\\w.-]", "");
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + (fileName.isEmpty() ? "statistics" : fileName) + "." + format.getFileExtension() + "\"");
+        }
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream output = exchange.getResponseBody()) {
+            vcsStatisticsApi.writeReport(projectReport, format, output);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            collectorMetrics.writeJson(writer);
+        }
+    }
+
+    private void handleHealth(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        sendText(exchange, 200, "OK");
+    }
+
+    private ProjectReport calculateStatistics(StatisticsRequest request) throws BadRequestException {
+        CompletableFuture<ProjectReport> calculation = new CompletableFuture<>();
+        CompletableFuture<ProjectReport> calculationInProgress = calculationsInProgress.putIfAbsent(request, calculation);
+        if (calculationInProgress == null) {
+            try {
+                calculation.complete(vcsStatisticsApi.calculateStatistics(request.projectPath, request.vcsType, request.dateFrom, request.dateTo));
+            } catch (Exception e) {
+                calculation.completeExceptionally(e);
+            } finally {
+                calculationsInProgress.remove(request, calculation);
+            }
+        } else {
+            LOGGER.info("Waiting for statistics of project {} that are already being calculated", request.projectPath);
+            calculation = calculationInProgress;
+        }
+        try {
+            return calculation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BadRequestException(503, "Request was interrupted");
+        } catch (ExecutionException e) {
+            LOGGER.error("Cannot calculate statistics of project {} because of {}", request.projectPath, e.getCause());
+            // cause may contain paths of the server, so it is only logged
+            throw new BadRequestException(500, "Cannot calculate statistics");
+        }
+    }
+
+    private String resolveProjectPath(String projectPath) throws IOException, BadRequestException {
+        File projectsRoot = new File(settings.getProjectsRoot()).getCanonicalFile();
+        File project = new File(projectsRoot, projectPath).getCanonicalFile();
+        if (!project.toPath().startsWith(projectsRoot.toPath())) {
+            throw new BadRequestException(403, "Project path should be inside projects root");
+        }
+        return project.getPath();
+    }
+
+    private VCSType parseVcsType(String value) throws BadRequestException {
+        try {
+            return VCSType.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(400, "Unsupported Version Control System type " + value);
+        }
+    }
+
+    private ReportFormat parseReportFormat(String value) throws BadRequestException {
+        for (ReportFormat format : ReportFormat.values()) {
+            if (format.getFileExtension().equalsIgnoreCase(value) || format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new BadRequestException(400, "Unsupported format " + value);
+    }
+
+    private LocalDate parseDate(Map<String, String> parameters, String name) throws BadRequestException {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(400, "Parameter " + name + " should be a date in format yyyy-MM-dd, but was " + value);
+        }
+    }
+
+    private String getRequiredParameter(Map<String, String> parameters, String name) throws BadRequestException {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new BadRequestException(400, "Parameter " + name + " is required");
+        }
+        return value;
+    }
+
+    private Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            String name = separator < 0 ? parameter : parameter.substring(0, separator);
+            String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return parameters;
+    }
+
+    private void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", TEXT_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RequestHandler {
+        void handle(HttpExchange exchange, Map<String, String> parameters) throws IOException, BadRequestException;
+    }
+
+    private static class BadRequestException extends Exception {
+        private static final long serialVersionUID = -2403465813470963741L;
+
+        private final int status;
+
+        BadRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        int getStatus() {
+            return status;
+        }
+    }
+
+    private static class StatisticsRequest {
+        private final String projectPath;
+        private final VCSType vcsType;
+        private final LocalDate dateFrom;
+        private final LocalDate dateTo;
+
+        StatisticsRequest(String projectPath, VCSType vcsType, LocalDate dateFrom, LocalDate dateTo) {
+            this.projectPath = projectPath;
+            this.vcsType = vcsType;
+            this.dateFrom = dateFrom;
+            this.dateTo = dateTo;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof StatisticsRequest)) {
+                return false;
+            }
+            StatisticsRequest request = (StatisticsRequest) other;
+            return projectPath.equals(request.projectPath) && vcsType == request.vcsType && Objects.equals(dateFrom, request.dateFrom) && Objects.equals(dateTo, request.dateTo);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectPath, vcsType, dateFrom, dateTo);
+        }
+    }
+}
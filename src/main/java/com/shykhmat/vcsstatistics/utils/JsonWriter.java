@@ -0,0 +1,147 @@
+package com.shykhmat.vcsstatistics.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Minimal streaming JSON writer. Values are written straight into underlying
+ * {@link Writer}, so large documents do not have to be built in memory.
+ * Instance is not thread safe.
+ */
+public class JsonWriter {
+    private final Writer writer;
+    private final Deque<Boolean> hasElements;
+    private boolean afterName;
+
+    public JsonWriter(Writer writer) {
+        this.writer = writer;
+        hasElements = new ArrayDeque<>();
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * Method to write name of the next object member.
+     *
+     * @param name
+     *            - member name
+     * @return this writer
+     * @throws IOException
+     *             if name cannot be written
+     */
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        writeString(name);
+        writer.write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null) {
+            writer.write("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        writer.write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        separate();
+        writer.write(Double.isFinite(value) ? Double.toString(value) : "null");
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        writer.write(Boolean.toString(value));
+        return this;
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private JsonWriter open(char bracket) throws IOException {
+        separate();
+        writer.write(bracket);
+        hasElements.push(Boolean.FALSE);
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        hasElements.pop();
+        writer.write(bracket);
+        return this;
+    }
+
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (hasElements.isEmpty()) {
+            return;
+        }
+        if (hasElements.peek()) {
+            writer.write(',');
+        } else {
+            hasElements.pop();
+            hasElements.push(Boolean.TRUE);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            switch (character) {
+            case '"':
+                writer.write("\\\"");
+                break;
+            case '\\':
+                writer.write("\\\\");
+                break;
+            case '\n':
+                writer.write("\\n");
+                break;
+            case '\r':
+                writer.write("\\r");
+                break;
+            case '\t':
+                writer.write("\\t");
+                break;
+            default:
+                if (character < 0x20) {
+                    writer.write(String.format("\\u%04x", (int) character));
+                } else {
+                    writer.write(character);
+                }
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,76 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.shykhmat.vcsstatistics.domain.StatisticsMatrix;
+
+public class GitAuthorIndexTest {
+    private static final String TREE = "tree 4b825dc642cb6eb9a060e54bf8d69288fbee4904\n";
+    private static final String COMMITTER = "committer Committer <committer@example.com> 1500000000 +0000\n";
+
+    @Test
+    public void mapsSameIdentityToSameAuthor() {
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        GitAuthorIndex index = new GitAuthorIndex(statistics, new GitMailmap());
+        int authorId = index.resolve(commit("author First <first@example.com> 1500000000 +0200\n"));
+        // time and time zone are not a part of the identity
+        assertEquals(authorId, index.resolve(commit("author First <first@example.com> 1600000000 -0700\n")));
+        assertNotEquals(authorId, index.resolve(commit("author Second <second@example.com> 1500000000 +0000\n")));
+        assertEquals(2, statistics.getAuthorCount());
+        assertEquals("First", statistics.getAuthorName(authorId));
+    }
+
+    @Test
+    public void mergesIdentitiesOfSameName() {
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        GitAuthorIndex index = new GitAuthorIndex(statistics, new GitMailmap());
+        int authorId = index.resolve(commit("author First <first@example.com> 1500000000 +0000\n"));
+        assertEquals(authorId, index.resolve(commit("author First <first@home.example.com> 1500000000 +0000\n")));
+        assertEquals(1, statistics.getAuthorCount());
+    }
+
+    @Test
+    public void resolvesIdentitiesWithMailmap() {
+        GitMailmap mailmap = new GitMailmap();
+        mailmap.parse("Proper Name <old@example.com>\nProper Name <proper@example.com> nick <shared@example.com>");
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        GitAuthorIndex index = new GitAuthorIndex(statistics, mailmap);
+        int authorId = index.resolve(commit("author Old Name <old@example.com> 1500000000 +0000\n"));
+        assertEquals(authorId, index.resolve(commit("author Nick <shared@example.com> 1500000000 +0000\n")));
+        assertEquals(authorId, index.resolve(commit("author Proper Name <proper@example.com> 1500000000 +0000\n")));
+        assertNotEquals(authorId, index.resolve(commit("author Other <shared@example.com> 1500000000 +0000\n")));
+        assertEquals("Proper Name", statistics.getAuthorName(authorId));
+    }
+
+    @Test
+    public void usesCommitterOfCommitWithoutAuthor() {
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        GitAuthorIndex index = new GitAuthorIndex(statistics, new GitMailmap());
+        int authorId = index.resolve((TREE + COMMITTER + "\nmessage\n").getBytes(StandardCharsets.UTF_8));
+        assertEquals("Committer", statistics.getAuthorName(authorId));
+    }
+
+    @Test
+    public void keepsAuthorsWhenIndexGrows() {
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        GitAuthorIndex index = new GitAuthorIndex(statistics, new GitMailmap());
+        int[] authorIds = new int[1000];
+        for (int i = 0; i < authorIds.length; i++) {
+            authorIds[i] = index.resolve(commit("author Author " + i + " <author" + i + "@example.com> 1500000000 +0000\n"));
+        }
+        for (int i = authorIds.length - 1; i >= 0; i--) {
+            assertEquals(authorIds[i], index.resolve(commit("author Author " + i + " <author" + i + "@example.com> 1400000000 +0100\n")));
+            assertEquals("Author " + i, statistics.getAuthorName(authorIds[i]));
+        }
+        assertEquals(authorIds.length, statistics.getAuthorCount());
+    }
+
+    private static byte[] commit(String authorLine) {
+        return (TREE + authorLine + COMMITTER + "\nmessage\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
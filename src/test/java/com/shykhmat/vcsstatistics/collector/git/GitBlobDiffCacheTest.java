@@ -0,0 +1,161 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.Test;
+
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.domain.CommitMetric;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+
+public class GitBlobDiffCacheTest {
+    private static final ObjectId FIRST_ID = ObjectId.fromString("1111111111111111111111111111111111111111");
+    private static final ObjectId SECOND_ID = ObjectId.fromString("2222222222222222222222222222222222222222");
+    private static final ObjectId THIRD_ID = ObjectId.fromString("3333333333333333333333333333333333333333");
+
+    @Test
+    public void returnsCachedCountsOfSamePair() {
+        GitBlobDiffCache cache = GitBlobDiffCache.create(16);
+        assertNull(cache.get(FIRST_ID, SECOND_ID));
+        long[] counts = { 3, 4 };
+        cache.put(FIRST_ID, SECOND_ID, counts);
+        assertArrayEquals(counts, cache.get(FIRST_ID.copy(), SECOND_ID.copy()));
+        // pairs are ordered
+        assertNull(cache.get(SECOND_ID, FIRST_ID));
+        assertNull(cache.get(FIRST_ID, ObjectId.zeroId()));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedPairs() {
+        GitBlobDiffCache cache = GitBlobDiffCache.create(2);
+        cache.put(FIRST_ID, SECOND_ID, new long[] { 1, 0 });
+        cache.put(SECOND_ID, THIRD_ID, new long[] { 2, 0 });
+        // first pair is used, so the second pair is evicted by the third one
+        cache.get(FIRST_ID, SECOND_ID);
+        cache.put(FIRST_ID, THIRD_ID, new long[] { 3, 0 });
+        assertArrayEquals(new long[] { 1, 0 }, cache.get(FIRST_ID, SECOND_ID));
+        assertNull(cache.get(SECOND_ID, THIRD_ID));
+        assertArrayEquals(new long[] { 3, 0 }, cache.get(FIRST_ID, THIRD_ID));
+    }
+
+    @Test
+    public void disabledCacheDoesNotStoreCounts() {
+        GitBlobDiffCache cache = GitBlobDiffCache.disabled();
+        cache.put(FIRST_ID, SECOND_ID, new long[] { 1, 2 });
+        assertNull(cache.get(FIRST_ID, SECOND_ID));
+        assertFalse(cache.isEnabled());
+        assertTrue(GitBlobDiffCache.create(1).isEnabled());
+    }
+
+    @Test
+    public void reportsCachedFilesAsEvaluatedOnes() throws IOException {
+        try (InMemoryRepository repository = new InMemoryRepository(new DfsRepositoryDescription("test"))) {
+            byte[] text = "first\nsecond\n".getBytes(StandardCharsets.UTF_8);
+            byte[] changedText = "first\nchanged\nthird\n".getBytes(StandardCharsets.UTF_8);
+            byte[] binary = { 'b', 0, 'n' };
+            ObjectId base = commit(repository, null, text, text);
+            ObjectId change = commit(repository, base, changedText, binary);
+            ObjectId revert = commit(repository, change, text, text);
+            ObjectId reapply = commit(repository, revert, changedText, binary);
+            GitBlobDiffCache cache = GitBlobDiffCache.create(16);
+            CountingListener firstListener = new CountingListener();
+            CountingListener secondListener = new CountingListener();
+            try (RevWalk walk = new RevWalk(repository)) {
+                CommitMetrics firstMetrics = evaluate(repository, walk.parseCommit(change), cache, firstListener);
+                CommitMetrics secondMetrics = evaluate(repository, walk.parseCommit(reapply), cache, secondListener);
+                assertEquals(0, firstListener.cacheHits);
+                assertEquals(2, secondListener.cacheHits);
+                // binary content is cached as the same empty array, so the
+                // file is still counted and reported as binary on a hit
+                long[] binaryCounts = cache.get(blobId(text), blobId(binary));
+                assertEquals(0, binaryCounts.length);
+                assertSame(binaryCounts, cache.get(blobId(text), blobId(binary)));
+                for (CountingListener listener : new CountingListener[] { firstListener, secondListener }) {
+                    assertEquals(1, listener.comparedFiles);
+                    assertEquals(1, listener.binaryFiles);
+                }
+                for (CommitMetric metric : CommitMetric.values()) {
+                    assertEquals(metric.name(), firstMetrics.get(metric), secondMetrics.get(metric));
+                }
+                assertEquals(1, secondMetrics.get(CommitMetric.BINARY_FILES));
+                assertEquals(2, secondMetrics.get(CommitMetric.INSERTIONS));
+                assertEquals(1, secondMetrics.get(CommitMetric.DELETIONS));
+            }
+        }
+    }
+
+    private static CommitMetrics evaluate(InMemoryRepository repository, RevCommit commit, GitBlobDiffCache cache, CollectorListener listener) {
+        CommitMetrics metrics = new CommitMetrics();
+        try (GitCommitChangesEvaluator evaluator = new GitCommitChangesEvaluator(repository, new CollectorSettings(), GitCommitChangesCache.disabled(), cache, listener)) {
+            evaluator.evaluateCommitMetrics(commit, metrics, null);
+        }
+        return metrics;
+    }
+
+    private static ObjectId blobId(byte[] content) {
+        try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+            return formatter.idFor(Constants.OBJ_BLOB, content);
+        }
+    }
+
+    private static ObjectId commit(InMemoryRepository repository, ObjectId parent, byte[] textContent, byte[] otherContent) throws IOException {
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            TreeFormatter tree = new TreeFormatter();
+            tree.append("other.dat", FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, otherContent));
+            tree.append("text.txt", FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, textContent));
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(inserter.insert(tree));
+            if (parent != null) {
+                commit.setParentId(parent);
+            }
+            PersonIdent person = new PersonIdent("Author", "author@example.com");
+            commit.setAuthor(person);
+            commit.setCommitter(person);
+            commit.setMessage("commit");
+            ObjectId commitId = inserter.insert(commit);
+            inserter.flush();
+            return commitId;
+        }
+    }
+
+    private static class CountingListener implements CollectorListener {
+        private int comparedFiles;
+        private int binaryFiles;
+        private int cacheHits;
+
+        @Override
+        public void fileCompared() {
+            comparedFiles++;
+        }
+
+        @Override
+        public void binaryFileSkipped() {
+            binaryFiles++;
+        }
+
+        @Override
+        public void blobDiffCacheHit() {
+            cacheHits++;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.shykhmat.vcsstatistics.domain.CommitMetric;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+
+public class GitCommitChangesCacheTest {
+    private static final ObjectId FIRST_COMMIT = ObjectId.fromString("1111111111111111111111111111111111111111");
+    private static final ObjectId SECOND_COMMIT = ObjectId.fromString("2222222222222222222222222222222222222222");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsValuesOfPreviousRun() throws IOException {
+        File cacheFile = new File(folder.getRoot(), "cache/commit-changes.cache");
+        try (GitCommitChangesCache cache = GitCommitChangesCache.open(cacheFile, "settings")) {
+            cache.put(FIRST_COMMIT, metrics(5));
+        }
+        try (GitCommitChangesCache cache = GitCommitChangesCache.open(cacheFile, "settings")) {
+            cache.put(SECOND_COMMIT, metrics(7));
+        }
+        GitCommitChangesCache cache = GitCommitChangesCache.open(cacheFile, "settings");
+        assertInsertions(5, cache, FIRST_COMMIT);
+        assertInsertions(7, cache, SECOND_COMMIT);
+        assertEquals(1, folder.getRoot().listFiles().length);
+        assertEquals(1, cacheFile.getParentFile().listFiles().length);
+    }
+
+    @Test
+    public void doesNotAppendValuesToFileOfOtherSettings() throws IOException {
+        File cacheFile = new File(folder.getRoot(), "commit-changes.cache");
+        try (GitCommitChangesCache cache = GitCommitChangesCache.open(cacheFile, "settings")) {
+            cache.put(FIRST_COMMIT, metrics(5));
+        }
+        GitCommitChangesCache cache = GitCommitChangesCache.open(cacheFile, "settings");
+        try (GitCommitChangesCache otherCache = GitCommitChangesCache.open(cacheFile, "other settings")) {
+            otherCache.put(FIRST_COMMIT, metrics(9));
+        }
+        cache.put(SECOND_COMMIT, metrics(7));
+        cache.close();
+        GitCommitChangesCache otherCache = GitCommitChangesCache.open(cacheFile, "other settings");
+        assertFalse(otherCache.get(SECOND_COMMIT, new CommitMetrics()));
+        assertFalse(otherCache.get(FIRST_COMMIT, new CommitMetrics()));
+        cache = GitCommitChangesCache.open(cacheFile, "settings");
+        assertInsertions(5, cache, FIRST_COMMIT);
+        assertInsertions(7, cache, SECOND_COMMIT);
+    }
+
+    @Test
+    public void keepsFileCompleteWhenWrittenConcurrently() throws Exception {
+        File cacheFile = new File(folder.getRoot(), "commit-changes.cache");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                String settings = "settings " + i % 2;
+                long insertions = i % 2 + 1;
+                writes.add(executor.submit(() -> {
+                    try (GitCommitChangesCache cache = GitCommitChangesCache.open(cacheFile, settings)) {
+                        cache.put(FIRST_COMMIT, metrics(insertions));
+                    }
+                }));
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, folder.getRoot().listFiles().length);
+        GitCommitChangesCache firstCache = GitCommitChangesCache.open(cacheFile, "settings 0");
+        GitCommitChangesCache secondCache = GitCommitChangesCache.open(cacheFile, "settings 1");
+        CommitMetrics metrics = new CommitMetrics();
+        if (firstCache.get(FIRST_COMMIT, metrics)) {
+            assertEquals(1, metrics.get(CommitMetric.INSERTIONS));
+        } else {
+            assertInsertions(2, secondCache, FIRST_COMMIT);
+        }
+    }
+
+    private static void assertInsertions(long expected, GitCommitChangesCache cache, ObjectId commitId) {
+        CommitMetrics metrics = new CommitMetrics();
+        assertTrue(cache.get(commitId, metrics));
+        assertEquals(expected, metrics.get(CommitMetric.INSERTIONS));
+    }
+
+    private static CommitMetrics metrics(long insertions) {
+        CommitMetrics metrics = new CommitMetrics();
+        metrics.add(CommitMetric.COMMITS, 1);
+        metrics.add(CommitMetric.INSERTIONS, insertions);
+        return metrics;
+    }
+}
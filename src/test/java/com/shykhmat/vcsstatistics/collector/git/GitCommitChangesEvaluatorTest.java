@@ -0,0 +1,164 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.domain.CommitMetric;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+
+public class GitCommitChangesEvaluatorTest {
+    private static final String RENAMED_CONTENT = "1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n";
+    private static final byte[] BINARY_CONTENT = { 'a', 0, 'b' };
+    private static final byte[] CHANGED_BINARY_CONTENT = { 'a', 0, 'c' };
+
+    private InMemoryRepository repository;
+    private RevCommit rootCommit;
+    private RevCommit commit;
+
+    @Before
+    public void setUp() throws IOException {
+        repository = new InMemoryRepository(new DfsRepositoryDescription("test"));
+        repository.getConfig().setBoolean("diff", null, "renames", true);
+        Map<String, Object> files = new TreeMap<>();
+        files.put("a.txt", "first\nsecond\nthird\n");
+        files.put("b.txt", "removed\nfile\n");
+        files.put("old/c.txt", RENAMED_CONTENT);
+        files.put("image.bin", BINARY_CONTENT);
+        ObjectId root = commit(null, files);
+        files.put("a.txt", "first\nchanged\nthird\nadded\n");
+        files.remove("b.txt");
+        files.put("d.txt", "new\nfile\n");
+        files.put("new/c.txt", files.remove("old/c.txt"));
+        files.put("image.bin", CHANGED_BINARY_CONTENT);
+        ObjectId child = commit(root, files);
+        try (RevWalk walk = new RevWalk(repository)) {
+            rootCommit = walk.parseCommit(root);
+            commit = walk.parseCommit(child);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    public void countsLinesAndFilesOfCommitInSameDiff() {
+        CountingListener listener = new CountingListener();
+        CommitMetrics metrics = evaluate(new CollectorSettings(), listener, commit);
+        assertEquals(1, metrics.get(CommitMetric.COMMITS));
+        assertEquals(1 + 1 + 2, metrics.get(CommitMetric.INSERTIONS));
+        assertEquals(1 + 2, metrics.get(CommitMetric.DELETIONS));
+        assertEquals(1, metrics.get(CommitMetric.FILES_ADDED));
+        assertEquals(2, metrics.get(CommitMetric.FILES_MODIFIED));
+        assertEquals(1, metrics.get(CommitMetric.FILES_DELETED));
+        assertEquals(1, metrics.get(CommitMetric.FILES_RENAMED));
+        assertEquals(1, metrics.get(CommitMetric.BINARY_FILES));
+        assertEquals(metrics.get(CommitMetric.INSERTIONS), metrics.getChangedLines());
+        assertEquals(4, listener.comparedFiles);
+        assertEquals(1, listener.binaryFiles);
+    }
+
+    @Test
+    public void countsAllFilesOfRootCommitAsAdded() {
+        CommitMetrics metrics = evaluate(new CollectorSettings(), CollectorListener.NONE, rootCommit);
+        assertEquals(3 + 2 + 10, metrics.get(CommitMetric.INSERTIONS));
+        assertEquals(0, metrics.get(CommitMetric.DELETIONS));
+        assertEquals(4, metrics.get(CommitMetric.FILES_ADDED));
+        assertEquals(1, metrics.get(CommitMetric.BINARY_FILES));
+    }
+
+    @Test
+    public void countsStreamedFilesAsLoadedOnes() {
+        CollectorSettings settings = new CollectorSettings();
+        settings.setStreamingBlobSize(1);
+        CountingListener listener = new CountingListener();
+        CommitMetrics streamedMetrics = evaluate(settings, listener, commit);
+        CommitMetrics loadedMetrics = evaluate(new CollectorSettings(), CollectorListener.NONE, commit);
+        for (CommitMetric metric : CommitMetric.values()) {
+            assertEquals(metric.name(), loadedMetrics.get(metric), streamedMetrics.get(metric));
+        }
+        assertEquals(0, listener.comparedFiles);
+        assertEquals(4, listener.streamedFiles);
+        assertEquals(1, listener.binaryFiles);
+    }
+
+    private CommitMetrics evaluate(CollectorSettings settings, CollectorListener listener, RevCommit evaluatedCommit) {
+        CommitMetrics metrics = new CommitMetrics();
+        try (GitCommitChangesEvaluator evaluator = new GitCommitChangesEvaluator(repository, settings, GitCommitChangesCache.disabled(), GitBlobDiffCache.disabled(), listener)) {
+            evaluator.evaluateCommitMetrics(evaluatedCommit, metrics, null);
+        }
+        return metrics;
+    }
+
+    private ObjectId commit(ObjectId parent, Map<String, Object> files) throws IOException {
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            DirCache index = DirCache.newInCore();
+            DirCacheBuilder builder = index.builder();
+            for (Map.Entry<String, Object> file : files.entrySet()) {
+                Object content = file.getValue();
+                DirCacheEntry entry = new DirCacheEntry(file.getKey());
+                entry.setFileMode(FileMode.REGULAR_FILE);
+                entry.setObjectId(inserter.insert(Constants.OBJ_BLOB, content instanceof byte[] ? (byte[]) content : ((String) content).getBytes(StandardCharsets.UTF_8)));
+                builder.add(entry);
+            }
+            builder.finish();
+            CommitBuilder commitBuilder = new CommitBuilder();
+            commitBuilder.setTreeId(index.writeTree(inserter));
+            if (parent != null) {
+                commitBuilder.setParentId(parent);
+            }
+            PersonIdent person = new PersonIdent("Author", "author@example.com");
+            commitBuilder.setAuthor(person);
+            commitBuilder.setCommitter(person);
+            commitBuilder.setMessage("commit");
+            ObjectId commitId = inserter.insert(commitBuilder);
+            inserter.flush();
+            return commitId;
+        }
+    }
+
+    private static class CountingListener implements CollectorListener {
+        private int comparedFiles;
+        private int streamedFiles;
+        private int binaryFiles;
+
+        @Override
+        public void fileCompared() {
+            comparedFiles++;
+        }
+
+        @Override
+        public void largeFileStreamed() {
+            streamedFiles++;
+        }
+
+        @Override
+        public void binaryFileSkipped() {
+            binaryFiles++;
+        }
+    }
+}
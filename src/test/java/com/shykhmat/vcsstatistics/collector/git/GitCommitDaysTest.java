@@ -0,0 +1,126 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Test;
+
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.collector.CommitDatePolicy;
+
+public class GitCommitDaysTest {
+    private static final String TREE_ID = "4b825dc642cb6eb9a060e54bf8d69288fbee4904";
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    @Test
+    public void countsAuthorDateInTimeZoneOfAuthor() {
+        GitCommitDays days = new GitCommitDays(settings(CommitDatePolicy.AUTHOR, ZoneOffset.UTC));
+        // 23:30 UTC is already the next day at +02:00
+        assertDay("2020-01-02", days, commit("2020-01-01T23:30:00", "+0200", "2020-01-01T12:00:00", "+0000"));
+        // 03:00 UTC is still the previous day at -05:00
+        assertDay("2020-01-01", days, commit("2020-01-02T03:00:00", "-0500", "2020-01-02T12:00:00", "+0000"));
+        // offsets with minutes
+        assertDay("2020-01-02", days, commit("2020-01-01T18:30:00", "+0530", "2020-01-01T12:00:00", "+0000"));
+        assertDay("2020-01-01", days, commit("2020-01-01T18:29:59", "+0530", "2020-01-01T12:00:00", "+0000"));
+    }
+
+    @Test
+    public void countsCommitterDateInTimeZoneOfCommitter() {
+        GitCommitDays days = new GitCommitDays(settings(CommitDatePolicy.COMMITTER, ZoneOffset.UTC));
+        assertDay("2020-01-05", days, commit("2020-01-01T23:30:00", "+0200", "2020-01-05T23:59:59", "+0000"));
+        assertDay("2020-01-06", days, commit("2020-01-01T23:30:00", "+0200", "2020-01-05T23:00:00", "+0100"));
+        assertDay("2020-01-04", days, commit("2020-01-01T23:30:00", "+0200", "2020-01-05T00:30:00", "-0100"));
+    }
+
+    @Test
+    public void countsDatesBefore1970() {
+        GitCommitDays days = new GitCommitDays(settings(CommitDatePolicy.AUTHOR, ZoneOffset.UTC));
+        assertDay("1970-01-01", days, commit("1969-12-31T23:30:00", "+0100", "1970-01-01T12:00:00", "+0000"));
+        assertDay("1969-12-31", days, commit("1970-01-01T00:30:00", "-0100", "1970-01-01T12:00:00", "+0000"));
+        assertDay("1969-07-20", days, commit("1969-07-20T20:17:40", "+0000", "1970-01-01T12:00:00", "+0000"));
+    }
+
+    @Test
+    public void countsCommitDateInConfiguredTimeZone() {
+        GitCommitDays days = new GitCommitDays(settings(CommitDatePolicy.ZONE, ZoneId.of("Asia/Tokyo")));
+        // author date and offsets written in the commit are ignored
+        assertDay("2020-01-02", days, commit("2019-12-01T00:00:00", "-1200", "2020-01-01T15:00:00", "-0800"));
+        assertDay("2020-01-01", days, commit("2019-12-01T00:00:00", "+1200", "2020-01-01T14:59:59", "+0800"));
+    }
+
+    @Test
+    public void followsOffsetTransitionsOfConfiguredTimeZone() {
+        GitCommitDays days = new GitCommitDays(settings(CommitDatePolicy.ZONE, NEW_YORK));
+        long first = LocalDate.of(2019, 10, 20).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        long last = LocalDate.of(2020, 11, 10).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        // commits are walked from newest to oldest, every 37 minutes cross
+        // midnight and both offset transitions of a year at different times
+        for (long seconds = last; seconds >= first; seconds -= 37 * 60) {
+            RevCommit commit = commit(seconds, "+0000", seconds, "+0000");
+            assertEquals(Instant.ofEpochSecond(seconds).toString(), Instant.ofEpochSecond(seconds).atZone(NEW_YORK).toLocalDate().toEpochDay(), days.toEpochDay(commit, null));
+        }
+        // and in order of time, which moves the cached period forward
+        for (long seconds = first; seconds <= last; seconds += 41 * 60) {
+            RevCommit commit = commit(seconds, "+0000", seconds, "+0000");
+            assertEquals(Instant.ofEpochSecond(seconds).toString(), Instant.ofEpochSecond(seconds).atZone(NEW_YORK).toLocalDate().toEpochDay(), days.toEpochDay(commit, null));
+        }
+    }
+
+    @Test
+    public void coversAllOffsetsByEarliestSecond() {
+        LocalDate date = LocalDate.of(2020, 3, 8);
+        GitCommitDays zoneDays = new GitCommitDays(settings(CommitDatePolicy.ZONE, NEW_YORK));
+        assertEquals(date.atStartOfDay(NEW_YORK).toEpochSecond(), zoneDays.getEarliestSecond(date));
+        GitCommitDays authorDays = new GitCommitDays(settings(CommitDatePolicy.AUTHOR, NEW_YORK));
+        RevCommit commit = commit(authorDays.getEarliestSecond(date), "+9959", 0, "+0000");
+        assertEquals(date.toEpochDay(), authorDays.toEpochDay(commit, commit.getRawBuffer()));
+    }
+
+    @Test
+    public void takesDayFoundByFilter() {
+        GitCommitDays days = new GitCommitDays(settings(CommitDatePolicy.AUTHOR, ZoneOffset.UTC));
+        GitRevWalk.DatedCommit commit = new GitRevWalk.DatedCommit(RevCommit.parse(raw(0, "+0000", 0, "+0000")));
+        commit.setEpochDay(42);
+        assertEquals(42, days.toEpochDay(commit, null));
+    }
+
+    private static void assertDay(String expected, GitCommitDays days, RevCommit commit) {
+        assertEquals(LocalDate.parse(expected).toEpochDay(), days.toEpochDay(commit, days.requiresRawCommit() ? commit.getRawBuffer() : null));
+    }
+
+    private static CollectorSettings settings(CommitDatePolicy policy, ZoneId zone) {
+        CollectorSettings settings = new CollectorSettings();
+        settings.setCommitDatePolicy(policy);
+        settings.setCommitDateZone(zone);
+        return settings;
+    }
+
+    /**
+     * Method to create a commit, which dates are given as UTC date time.
+     */
+    private static RevCommit commit(String authorTime, String authorOffset, String commitTime, String commitOffset) {
+        return commit(toEpochSecond(authorTime), authorOffset, toEpochSecond(commitTime), commitOffset);
+    }
+
+    private static RevCommit commit(long authorSeconds, String authorOffset, long commitSeconds, String commitOffset) {
+        return RevCommit.parse(raw(authorSeconds, authorOffset, commitSeconds, commitOffset));
+    }
+
+    private static byte[] raw(long authorSeconds, String authorOffset, long commitSeconds, String commitOffset) {
+        return ("tree " + TREE_ID + "\n"
+                + "author Author <author@example.com> " + authorSeconds + " " + authorOffset + "\n"
+                + "committer Committer <committer@example.com> " + commitSeconds + " " + commitOffset + "\n"
+                + "\nmessage\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long toEpochSecond(String utcDateTime) {
+        return LocalDateTime.parse(utcDateTime).toEpochSecond(ZoneOffset.UTC);
+    }
+}
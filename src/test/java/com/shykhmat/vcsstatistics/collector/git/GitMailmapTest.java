@@ -0,0 +1,135 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.Files;
+
+public class GitMailmapTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void mapsEmailToProperName() {
+        GitMailmap mailmap = parse("Proper Name <commit@example.com>");
+        assertEquals("Proper Name", mailmap.resolveName("commit name", "commit@example.com"));
+        assertEquals("Proper Name", mailmap.resolveName("other name", "COMMIT@Example.com"));
+        assertEquals("other name", mailmap.resolveName("other name", "other@example.com"));
+    }
+
+    @Test
+    public void mapsEmailToProperNameAndEmail() {
+        GitMailmap mailmap = parse("Proper Name <proper@example.com> <commit@example.com>");
+        assertEquals("Proper Name", mailmap.resolveName("commit name", "commit@example.com"));
+        // email of the proper identity is not mapped by itself
+        assertEquals("commit name", mailmap.resolveName("commit name", "proper@example.com"));
+    }
+
+    @Test
+    public void keepsNameWhenOnlyEmailIsReplaced() {
+        GitMailmap mailmap = parse("<proper@example.com> <commit@example.com>");
+        assertEquals("commit name", mailmap.resolveName("commit name", "commit@example.com"));
+    }
+
+    @Test
+    public void prefersMappingOfNameAndEmail() {
+        GitMailmap mailmap = parse("Shared Account <shared@example.com>\n"
+                + "First Developer <first@example.com> First <shared@example.com>\n"
+                + "Second Developer <second@example.com> second <shared@example.com>");
+        assertEquals("First Developer", mailmap.resolveName("first", "shared@example.com"));
+        assertEquals("Second Developer", mailmap.resolveName("SECOND", "shared@example.com"));
+        assertEquals("Shared Account", mailmap.resolveName("Third", "shared@example.com"));
+        // name is mapped only together with its email
+        assertEquals("First", mailmap.resolveName("First", "first@example.com"));
+    }
+
+    @Test
+    public void overridesEarlierLines() {
+        GitMailmap mailmap = parse("Old Name <commit@example.com>\r\n"
+                + "Old Name <proper@example.com> Commit <commit@example.com>\r\n"
+                + "New Name <commit@example.com>\r\n"
+                + "Newer Name <proper@example.com> Commit <commit@example.com>\r\n");
+        assertEquals("New Name", mailmap.resolveName("someone", "commit@example.com"));
+        assertEquals("Newer Name", mailmap.resolveName("commit", "commit@example.com"));
+    }
+
+    @Test
+    public void skipsCommentsAndMalformedLines() {
+        GitMailmap mailmap = parse("# Commented Name <commit@example.com>\n"
+                + "\n"
+                + "   \n"
+                + "No Email\n"
+                + "Unclosed <commit@example.com\n"
+                + "<commit@example.com>\n");
+        assertTrue(mailmap.isEmpty());
+        assertEquals("commit name", mailmap.resolveName("commit name", "commit@example.com"));
+    }
+
+    @Test
+    public void changesFingerprintWithContent() {
+        GitMailmap empty = new GitMailmap();
+        GitMailmap first = parse("First <commit@example.com>");
+        GitMailmap second = parse("Second <commit@example.com>");
+        assertNotEquals(empty.getFingerprint(), first.getFingerprint());
+        assertNotEquals(first.getFingerprint(), second.getFingerprint());
+        assertEquals(first.getFingerprint(), parse("First <commit@example.com>").getFingerprint());
+        assertFalse(first.isEmpty());
+    }
+
+    @Test
+    public void loadsMailmapOfHeadAndAliasFile() throws IOException {
+        File aliasFile = folder.newFile("aliases");
+        Files.asCharSink(aliasFile, StandardCharsets.UTF_8).write("Alias Name <second@example.com>");
+        try (InMemoryRepository repository = new InMemoryRepository(new DfsRepositoryDescription("test"))) {
+            ObjectId head = commitMailmap(repository, "Repository Name <first@example.com>\nRepository Name <second@example.com>\n");
+            GitMailmap mailmap = GitMailmap.load(repository, head, aliasFile);
+            assertEquals("Repository Name", mailmap.resolveName("first", "first@example.com"));
+            // alias file overrides repository mailmap
+            assertEquals("Alias Name", mailmap.resolveName("second", "second@example.com"));
+            GitMailmap aliases = GitMailmap.load(repository, null, aliasFile);
+            assertEquals("first", aliases.resolveName("first", "first@example.com"));
+            assertTrue(GitMailmap.load(repository, null, null).isEmpty());
+        }
+    }
+
+    private static GitMailmap parse(String content) {
+        GitMailmap mailmap = new GitMailmap();
+        mailmap.parse(content);
+        return mailmap;
+    }
+
+    private static ObjectId commitMailmap(InMemoryRepository repository, String content) throws IOException {
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            TreeFormatter tree = new TreeFormatter();
+            tree.append(".mailmap", FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, content.getBytes(StandardCharsets.UTF_8)));
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(inserter.insert(tree));
+            PersonIdent person = new PersonIdent("Author", "author@example.com");
+            commit.setAuthor(person);
+            commit.setCommitter(person);
+            commit.setMessage("mailmap");
+            ObjectId commitId = inserter.insert(commit);
+            inserter.flush();
+            return commitId;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.shykhmat.vcsstatistics.collector.CollectorListener;
+import com.shykhmat.vcsstatistics.collector.CollectorSettings;
+import com.shykhmat.vcsstatistics.domain.CommitMetric;
+import com.shykhmat.vcsstatistics.domain.CommitMetrics;
+
+public class GitNativeOutputParserTest {
+    private static final String FILE_MODE = "100644";
+    private static final String GITLINK_MODE = "160000";
+    private static final String ZERO_ID = ObjectId.zeroId().name();
+    private static final String OLD_ID = "1111111111111111111111111111111111111111";
+    private static final String NEW_ID = "2222222222222222222222222222222222222222";
+
+    private InMemoryRepository repository;
+    private ObjectReader reader;
+    private RevWalk walk;
+    private CollectorSettings settings;
+    private CountingListener listener;
+
+    @Before
+    public void setUp() {
+        repository = new InMemoryRepository(new DfsRepositoryDescription("test"));
+        reader = repository.newObjectReader();
+        walk = new RevWalk(reader);
+        settings = new CollectorSettings();
+        listener = new CountingListener();
+    }
+
+    @After
+    public void tearDown() {
+        walk.close();
+        reader.close();
+        repository.close();
+    }
+
+    @Test
+    public void readsModifiedAddedAndDeletedFiles() throws IOException {
+        RevCommit commit = commit("a");
+        String output = commit.name() + "\0"
+                + raw(FILE_MODE, FILE_MODE, OLD_ID, NEW_ID, "M", "src/Main.java")
+                + raw("000000", FILE_MODE, ZERO_ID, NEW_ID, "A", "README")
+                + raw(FILE_MODE, "000000", OLD_ID, ZERO_ID, "D", "old.txt")
+                + "3\t1\tsrc/Main.java\0" + "10\t0\tREADME\0" + "0\t7\told.txt\0" + "\n";
+        CommitMetrics metrics = readCommits(output, 4096, commit)[0];
+        assertEquals(1, metrics.get(CommitMetric.COMMITS));
+        assertEquals(1, metrics.get(CommitMetric.FILES_MODIFIED));
+        assertEquals(1, metrics.get(CommitMetric.FILES_ADDED));
+        assertEquals(1, metrics.get(CommitMetric.FILES_DELETED));
+        assertEquals(13, metrics.get(CommitMetric.INSERTIONS));
+        assertEquals(8, metrics.get(CommitMetric.DELETIONS));
+        assertEquals(3, listener.comparedFiles);
+    }
+
+    @Test
+    public void readsRenamedAndCopiedFilesWithBothPaths() throws IOException {
+        // path filter excludes the old folder, so entries are counted only if
+        // the new path is used
+        settings.setPathFilters(Arrays.asList("!old"));
+        RevCommit commit = commit("b");
+        String output = commit.name() + "\0"
+                + raw(FILE_MODE, FILE_MODE, OLD_ID, NEW_ID, "R090", "old/A.java", "new/A.java")
+                + raw(FILE_MODE, FILE_MODE, OLD_ID, NEW_ID, "C075", "old/B.java", "new/B.java")
+                + raw(FILE_MODE, FILE_MODE, OLD_ID, NEW_ID, "M", "old/C.java")
+                + "2\t1\t\0old/A.java\0new/A.java\0" + "5\t0\t\0old/B.java\0new/B.java\0" + "1\t1\told/C.java\0" + "\n";
+        CommitMetrics metrics = readCommits(output, 4096, commit)[0];
+        assertEquals(1, metrics.get(CommitMetric.FILES_RENAMED));
+        assertEquals(1, metrics.get(CommitMetric.FILES_ADDED));
+        assertEquals(0, metrics.get(CommitMetric.FILES_MODIFIED));
+        assertEquals(7, metrics.get(CommitMetric.INSERTIONS));
+        assertEquals(1, metrics.get(CommitMetric.DELETIONS));
+    }
+
+    @Test
+    public void skipsGitlinks() throws IOException {
+        RevCommit commit = commit("c");
+        String output = commit.name() + "\0"
+                + raw(GITLINK_MODE, GITLINK_MODE, OLD_ID, NEW_ID, "M", "module")
+                + raw("000000", GITLINK_MODE, ZERO_ID, NEW_ID, "A", "added-module")
+                + raw(FILE_MODE, FILE_MODE, OLD_ID, NEW_ID, "M", "file.txt")
+                + "1\t1\tmodule\0" + "1\t0\tadded-module\0" + "4\t2\tfile.txt\0" + "\n";
+        CommitMetrics metrics = readCommits(output, 4096, commit)[0];
+        assertEquals(1, metrics.get(CommitMetric.FILES_MODIFIED));
+        assertEquals(0, metrics.get(CommitMetric.FILES_ADDED));
+        assertEquals(4, metrics.get(CommitMetric.INSERTIONS));
+        assertEquals(2, metrics.get(CommitMetric.DELETIONS));
+        assertEquals(1, listener.comparedFiles);
+    }
+
+    @Test
+    public void countsBinaryAndSkipsOversizedFiles() throws IOException {
+        settings.setMaxBlobSize(16);
+        String smallId = insertBlob(new byte[8]);
+        String largeId = insertBlob(new byte[32]);
+        RevCommit commit = commit("d");
+        String output = commit.name() + "\0"
+                + raw(FILE_MODE, FILE_MODE, smallId, smallId, "M", "image.png")
+                + raw("000000", FILE_MODE, ZERO_ID, smallId, "A", "icon.png")
+                + raw(FILE_MODE, FILE_MODE, smallId, largeId, "M", "data.bin")
+                + "-\t-\timage.png\0" + "-\t-\ticon.png\0" + "-\t-\tdata.bin\0" + "\n";
+        CommitMetrics metrics = readCommits(output, 4096, commit)[0];
+        assertEquals(2, metrics.get(CommitMetric.BINARY_FILES));
+        assertEquals(2, metrics.get(CommitMetric.FILES_MODIFIED));
+        assertEquals(1, metrics.get(CommitMetric.FILES_ADDED));
+        assertEquals(0, metrics.get(CommitMetric.INSERTIONS));
+        assertEquals(0, metrics.get(CommitMetric.DELETIONS));
+        assertEquals(2, listener.binaryFiles);
+        assertEquals(1, listener.oversizedFiles);
+        assertEquals(0, listener.comparedFiles);
+    }
+
+    @Test
+    public void readsCommitsCrossingBufferRefill() throws IOException {
+        RevCommit first = commit("e");
+        RevCommit second = commit("f");
+        RevCommit empty = commit("9");
+        String output = first.name() + "\0"
+                + raw(FILE_MODE, FILE_MODE, OLD_ID, NEW_ID, "R100", "a/very/long/old/path/File.java", "a/very/long/new/path/File.java")
+                + "0\t0\t\0a/very/long/old/path/File.java\0a/very/long/new/path/File.java\0" + "\n"
+                + empty.name() + "\0\n"
+                + second.name() + "\0"
+                + raw(FILE_MODE, FILE_MODE, OLD_ID, NEW_ID, "M", "File.java")
+                + "12\t34\tFile.java\0" + "\n";
+        CommitMetrics[] metrics = readCommits(output, 7, first, empty, second);
+        assertEquals(1, metrics[0].get(CommitMetric.FILES_RENAMED));
+        assertEquals(1, metrics[1].get(CommitMetric.COMMITS));
+        assertEquals(0, metrics[1].getChangedLines());
+        assertEquals(12, metrics[2].get(CommitMetric.INSERTIONS));
+        assertEquals(34, metrics[2].get(CommitMetric.DELETIONS));
+    }
+
+    @Test
+    public void failsOnOutputOfAnotherCommit() throws IOException {
+        RevCommit commit = commit("a");
+        try {
+            readCommits(commit("b").name() + "\0\n", 4096, commit);
+            fail("Output of another commit should not be accepted");
+        } catch (IOException e) {
+            assertEquals("Unexpected output of git for commit " + commit.name(), e.getMessage());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void failsOnNumstatEntryWithoutRawEntry() throws IOException {
+        RevCommit commit = commit("a");
+        readCommits(commit.name() + "\0" + "1\t1\tfile.txt\0" + "\n", 4096, commit);
+    }
+
+    private CommitMetrics[] readCommits(String output, int chunkSize, RevCommit... commits) throws IOException {
+        GitNativeOutputParser parser = new GitNativeOutputParser(new GitNulTokenReader(GitNulTokenReaderTest.stream(output, chunkSize), 16), reader, settings, listener);
+        CommitMetrics[] metrics = new CommitMetrics[commits.length];
+        for (int i = 0; i < commits.length; i++) {
+            GitPendingCommit pendingCommit = new GitPendingCommit(commits[i], null);
+            parser.readCommit(pendingCommit);
+            metrics[i] = pendingCommit.getMetrics();
+        }
+        return metrics;
+    }
+
+    private RevCommit commit(String digit) {
+        StringBuilder id = new StringBuilder();
+        for (int i = 0; i < Constants.OBJECT_ID_STRING_LENGTH; i++) {
+            id.append(digit);
+        }
+        return walk.lookupCommit(ObjectId.fromString(id.toString()));
+    }
+
+    private String insertBlob(byte[] content) throws IOException {
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            ObjectId id = inserter.insert(Constants.OBJ_BLOB, content);
+            inserter.flush();
+            return id.name();
+        }
+    }
+
+    private static String raw(String oldMode, String newMode, String oldId, String newId, String status, String... paths) {
+        StringBuilder entry = new StringBuilder(":").append(oldMode).append(' ').append(newMode).append(' ').append(oldId).append(' ').append(newId).append(' ').append(status).append('\0');
+        for (String path : paths) {
+            entry.append(path).append('\0');
+        }
+        return entry.toString();
+    }
+
+    private static class CountingListener implements CollectorListener {
+        private int comparedFiles;
+        private int binaryFiles;
+        private int oversizedFiles;
+
+        @Override
+        public void fileCompared() {
+            comparedFiles++;
+        }
+
+        @Override
+        public void binaryFileSkipped() {
+            binaryFiles++;
+        }
+
+        @Override
+        public void oversizedFileSkipped() {
+            oversizedFiles++;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class GitNulTokenReaderTest {
+
+    @Test
+    public void readsTokensAndLineBreaks() throws IOException {
+        GitNulTokenReader tokens = new GitNulTokenReader(stream("first\0second\0\nthird\0", 1024));
+        assertToken("first", tokens);
+        assertToken("second", tokens);
+        assertEquals('\n', tokens.peek());
+        tokens.skip();
+        assertToken("third", tokens);
+        assertEquals(-1, tokens.peek());
+        assertFalse(tokens.readToken());
+    }
+
+    @Test
+    public void readsTokensCrossingBufferRefill() throws IOException {
+        // every read returns 3 bytes and the buffer holds 8 bytes, so tokens
+        // are split between reads and compacted to the start of the buffer
+        GitNulTokenReader tokens = new GitNulTokenReader(stream("abc\0defgh\0ij\0\nklmnop\0", 3), 8);
+        assertToken("abc", tokens);
+        assertToken("defgh", tokens);
+        assertToken("ij", tokens);
+        assertEquals('\n', tokens.peek());
+        tokens.skip();
+        assertToken("klmnop", tokens);
+        assertFalse(tokens.readToken());
+    }
+
+    @Test
+    public void growsBufferForLongToken() throws IOException {
+        String longToken = "0123456789abcdefghijklmnopqrstuvwxyz";
+        GitNulTokenReader tokens = new GitNulTokenReader(stream("a\0" + longToken + "\0b\0", 5), 4);
+        assertToken("a", tokens);
+        assertToken(longToken, tokens);
+        assertToken("b", tokens);
+        assertFalse(tokens.readToken());
+    }
+
+    @Test
+    public void doesNotReturnUnterminatedToken() throws IOException {
+        GitNulTokenReader tokens = new GitNulTokenReader(stream("complete\0incomplete", 4), 8);
+        assertToken("complete", tokens);
+        assertFalse(tokens.readToken());
+    }
+
+    private static void assertToken(String expected, GitNulTokenReader tokens) throws IOException {
+        assertTrue(tokens.readToken());
+        assertEquals(expected, new String(tokens.getBuffer(), tokens.getTokenStart(), tokens.getTokenEnd() - tokens.getTokenStart(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Method to create a stream, that returns at most the given amount of
+     * bytes per read, as a pipe does.
+     */
+    static InputStream stream(String content, int chunkSize) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunkSize));
+            }
+        };
+    }
+}
@@ -0,0 +1,172 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.Test;
+
+public class GitPathTreeFilterTest {
+
+    @Test
+    public void includesAllPathsWithoutPatterns() {
+        assertSame(TreeFilter.ALL, GitPathTreeFilter.create(Collections.emptyList()));
+    }
+
+    @Test
+    public void includesAllPathsThatAreNotExcluded() {
+        GitPathTreeFilter filter = filter("!*.lock", "!node_modules");
+        assertTrue(filter.includesFile("src/Main.java"));
+        assertTrue(filter.includesFile("README"));
+        assertFalse(filter.includesFile("yarn.lock"));
+        assertFalse(filter.includesFile("web/app/package.lock"));
+        assertFalse(filter.includesFile("node_modules/lib/index.js"));
+        assertFalse(filter.includesFile("web/node_modules/lib/index.js"));
+        assertTrue(filter.includesFile("web/node_modules.txt"));
+    }
+
+    @Test
+    public void prefersExcludesOverIncludes() {
+        GitPathTreeFilter filter = filter("src/**", "*.java", "!src/generated", "!Legacy*.java");
+        assertTrue(filter.includesFile("src/Main.java"));
+        assertTrue(filter.includesFile("src/resources/config.xml"));
+        assertTrue(filter.includesFile("test/MainTest.java"));
+        assertFalse(filter.includesFile("src/generated/Parser.java"));
+        assertFalse(filter.includesFile("src/LegacyParser.java"));
+        assertFalse(filter.includesFile("test/LegacyParserTest.java"));
+        assertFalse(filter.includesFile("README"));
+        // order of patterns does not matter
+        GitPathTreeFilter reordered = filter("!src/generated", "!Legacy*.java", "*.java", "src/**");
+        assertFalse(reordered.includesFile("src/generated/Parser.java"));
+        assertTrue(reordered.includesFile("src/Main.java"));
+    }
+
+    @Test
+    public void matchesFolderGlobs() {
+        GitPathTreeFilter filter = filter("modules/*/src/**", "**/docs/**");
+        assertTrue(filter.includesFile("modules/core/src/Main.java"));
+        assertTrue(filter.includesFile("modules/core/src/main/java/Main.java"));
+        assertFalse(filter.includesFile("modules/core/test/MainTest.java"));
+        assertFalse(filter.includesFile("modules/core/nested/src/Main.java"));
+        assertFalse(filter.includesFile("modules/src/Main.java"));
+        assertTrue(filter.includesFile("docs/index.md"));
+        assertTrue(filter.includesFile("modules/core/docs/index.md"));
+        assertFalse(filter.includesFile("documents/index.md"));
+    }
+
+    @Test
+    public void anchorsPatternsWithSeparators() {
+        GitPathTreeFilter filter = filter("!/build", "!out/", "!dist/*.js");
+        assertFalse(filter.includesFile("build/classes/Main.class"));
+        assertTrue(filter.includesFile("modules/build/Main.java"));
+        assertFalse(filter.includesFile("out/Main.class"));
+        assertTrue(filter.includesFile("modules/out/Main.class"));
+        assertFalse(filter.includesFile("dist/app.js"));
+        assertTrue(filter.includesFile("dist/app.css"));
+        assertTrue(filter.includesFile("dist/maps/app.js"));
+    }
+
+    @Test
+    public void matchesSingleCharacterWithinName() {
+        GitPathTreeFilter filter = filter("file?.txt");
+        assertTrue(filter.includesFile("file1.txt"));
+        assertTrue(filter.includesFile("folder/fileA.txt"));
+        assertFalse(filter.includesFile("file10.txt"));
+        assertFalse(filter.includesFile("file.txt"));
+        assertFalse(filter.includesFile("file/.txt"));
+    }
+
+    @Test
+    public void recognizesPatterns() {
+        assertTrue(GitPathTreeFilter.isPattern("*.java"));
+        assertTrue(GitPathTreeFilter.isPattern("file?.txt"));
+        assertFalse(GitPathTreeFilter.isPattern("src/main"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyExcludePattern() {
+        GitPathTreeFilter.create(Arrays.asList("src/**", "!"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRootPattern() {
+        GitPathTreeFilter.create(Collections.singletonList("/"));
+    }
+
+    @Test
+    public void doesNotWalkFoldersWithoutIncludedPaths() throws IOException {
+        try (InMemoryRepository repository = new InMemoryRepository(new DfsRepositoryDescription("test"))) {
+            ObjectId tree = tree(repository, "README", "src/Main.java", "src/generated/Parser.java", "test/MainTest.java", "web/node_modules/lib/index.js", "web/app.js");
+            List<String> visitedPaths = new ArrayList<>();
+            List<String> files = new ArrayList<>();
+            TreeFilter recorder = new TreeFilter() {
+                @Override
+                public boolean include(TreeWalk walker) {
+                    visitedPaths.add(walker.getPathString());
+                    return true;
+                }
+
+                @Override
+                public boolean shouldBeRecursive() {
+                    return false;
+                }
+
+                @Override
+                public TreeFilter clone() {
+                    return this;
+                }
+            };
+            try (TreeWalk walk = new TreeWalk(repository)) {
+                walk.addTree(tree);
+                walk.setRecursive(true);
+                walk.setFilter(AndTreeFilter.create(GitPathTreeFilter.create(Arrays.asList("src/**", "web/**", "!generated", "!node_modules")), recorder));
+                while (walk.next()) {
+                    files.add(walk.getPathString());
+                }
+            }
+            assertEquals(Arrays.asList("src/Main.java", "web/app.js"), files);
+            assertEquals(Arrays.asList("src", "src/Main.java", "web", "web/app.js"), visitedPaths);
+        }
+    }
+
+    private static GitPathTreeFilter filter(String... patterns) {
+        return (GitPathTreeFilter) GitPathTreeFilter.create(Arrays.asList(patterns));
+    }
+
+    private static ObjectId tree(InMemoryRepository repository, String... paths) throws IOException {
+        DirCache index = DirCache.newInCore();
+        DirCacheBuilder builder = index.builder();
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            for (String path : paths) {
+                DirCacheEntry entry = new DirCacheEntry(path);
+                entry.setFileMode(FileMode.REGULAR_FILE);
+                entry.setObjectId(inserter.insert(Constants.OBJ_BLOB, path.getBytes(StandardCharsets.UTF_8)));
+                builder.add(entry);
+            }
+            builder.finish();
+            ObjectId tree = index.writeTree(inserter);
+            inserter.flush();
+            return tree;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.shykhmat.vcsstatistics.collector.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffAlgorithm.SupportedAlgorithm;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LineHashSequenceTest {
+    // lines, which 64-bit hashes differ, but their 32-bit hashes used by
+    // hash tables of diff algorithms are the same
+    private static final String COLLIDING_LINE = "line 49008\n";
+    private static final String OTHER_COLLIDING_LINE = "line 63175\n";
+
+    private InMemoryRepository repository;
+    private ObjectReader reader;
+
+    @Before
+    public void setUp() {
+        repository = new InMemoryRepository(new DfsRepositoryDescription("test"));
+        reader = repository.newObjectReader();
+    }
+
+    @After
+    public void tearDown() {
+        reader.close();
+        repository.close();
+    }
+
+    @Test
+    public void splitsLinesAsRawText() throws IOException {
+        assertLines("first\nsecond\n");
+        assertLines("first\nsecond");
+        assertLines("first\r\nsecond\r\n");
+        assertLines("\n\n\n");
+        assertLines("");
+        assertEquals(0, LineHashSequence.empty().size());
+    }
+
+    @Test
+    public void comparesLineEndingsAsRawText() throws IOException {
+        assertSameEdits("first\nsecond\nthird\n", "first\r\nsecond\r\nthird\r\n");
+        assertSameEdits("first\r\nsecond\r\nthird\r\n", "first\r\nchanged\nthird\r\n");
+        assertSameEdits("first\rsecond\n", "first\nsecond\n");
+    }
+
+    @Test
+    public void comparesLastLineWithoutSeparatorAsRawText() throws IOException {
+        assertSameEdits("first\nsecond\n", "first\nsecond");
+        assertSameEdits("first\nsecond", "first\nsecond\nthird");
+        assertSameEdits("first", "first\n");
+        assertSameEdits("", "first");
+    }
+
+    @Test
+    public void comparesLinesWithCollidingHashesAsRawText() throws IOException {
+        LineHashSequence lines = read(COLLIDING_LINE + OTHER_COLLIDING_LINE);
+        assertEquals(LineHashSequence.COMPARATOR.hash(lines, 0), LineHashSequence.COMPARATOR.hash(lines, 1));
+        assertFalse(LineHashSequence.COMPARATOR.equals(lines, 0, lines, 1));
+        assertSameEdits(COLLIDING_LINE, OTHER_COLLIDING_LINE);
+        assertSameEdits("a\n" + COLLIDING_LINE + "b\n" + OTHER_COLLIDING_LINE + "c\n", "a\n" + OTHER_COLLIDING_LINE + "b\n" + COLLIDING_LINE + "c\n");
+    }
+
+    @Test
+    public void comparesLongContentAsRawText() throws IOException {
+        StringBuilder oldContent = new StringBuilder();
+        StringBuilder newContent = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            oldContent.append("line ").append(i % 100).append('\n');
+            if (i % 7 != 0) {
+                newContent.append("line ").append(i % 100).append(i % 13 == 0 ? "\r\n" : "\n");
+            }
+        }
+        assertSameEdits(oldContent.toString(), newContent.toString());
+    }
+
+    @Test
+    public void detectsBinaryContentAsRawText() throws IOException {
+        byte[] binary = { 'a', '\n', 0, 'b' };
+        assertNull(LineHashSequence.read(reader, insert(binary)));
+        // zeros after the checked prefix do not make content binary
+        byte[] text = new byte[10000];
+        text[9000] = 0;
+        for (int i = 0; i < 9000; i++) {
+            text[i] = (byte) (i % 80 == 79 ? '\n' : 'x');
+        }
+        assertFalse(RawText.isBinary(text));
+        assertNotNull(LineHashSequence.read(reader, insert(text)));
+    }
+
+    private void assertLines(String content) throws IOException {
+        assertEquals(new RawText(bytes(content)).size(), read(content).size());
+    }
+
+    private void assertSameEdits(String oldContent, String newContent) throws IOException {
+        for (SupportedAlgorithm algorithm : SupportedAlgorithm.values()) {
+            DiffAlgorithm diffAlgorithm = DiffAlgorithm.getAlgorithm(algorithm);
+            assertEquals(algorithm.name(), diffAlgorithm.diff(RawTextComparator.DEFAULT, new RawText(bytes(oldContent)), new RawText(bytes(newContent))),
+                    diffAlgorithm.diff(LineHashSequence.COMPARATOR, read(oldContent), read(newContent)));
+        }
+    }
+
+    private LineHashSequence read(String content) throws IOException {
+        return LineHashSequence.read(reader, insert(bytes(content)));
+    }
+
+    private ObjectId insert(byte[] content) throws IOException {
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            ObjectId id = inserter.insert(Constants.OBJ_BLOB, content);
+            inserter.flush();
+            return id;
+        }
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
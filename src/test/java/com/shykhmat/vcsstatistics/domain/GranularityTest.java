@@ -0,0 +1,85 @@
+package com.shykhmat.vcsstatistics.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+
+import org.junit.Test;
+
+public class GranularityTest {
+    private static final LocalDate FIRST_DATE = LocalDate.of(-500, 1, 1);
+    private static final LocalDate LAST_DATE = LocalDate.of(2600, 12, 31);
+
+    @Test
+    public void findsBucketsAsJavaTime() {
+        LocalDate mondayOfEpoch = LocalDate.ofEpochDay(0).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        for (LocalDate date = FIRST_DATE; !date.isAfter(LAST_DATE); date = date.plusDays(1)) {
+            long epochDay = date.toEpochDay();
+            long epochMonth = (date.getYear() - 1970) * 12L + date.getMonthValue() - 1;
+            long epochWeek = Math.floorDiv(date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toEpochDay() - mondayOfEpoch.toEpochDay(), 7);
+            assertEquals(epochDay, Granularity.DAY.toBucket(epochDay));
+            assertEquals(date.toString(), epochWeek, Granularity.WEEK.toBucket(epochDay));
+            assertEquals(date.toString(), epochMonth, Granularity.MONTH.toBucket(epochDay));
+            assertEquals(date.toString(), Math.floorDiv(epochMonth, 3), Granularity.QUARTER.toBucket(epochDay));
+        }
+    }
+
+    @Test
+    public void findsFirstDaysOfBucketsAsJavaTime() {
+        for (LocalDate date = FIRST_DATE; !date.isAfter(LAST_DATE); date = date.plusDays(1)) {
+            long epochDay = date.toEpochDay();
+            LocalDate firstDayOfMonth = date.withDayOfMonth(1);
+            assertEquals(epochDay, Granularity.DAY.toFirstDay(Granularity.DAY.toBucket(epochDay)));
+            assertEquals(date.toString(), date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toEpochDay(), Granularity.WEEK.toFirstDay(Granularity.WEEK.toBucket(epochDay)));
+            assertEquals(date.toString(), firstDayOfMonth.toEpochDay(), Granularity.MONTH.toFirstDay(Granularity.MONTH.toBucket(epochDay)));
+            assertEquals(date.toString(), firstDayOfMonth.withMonth((date.get(IsoFields.QUARTER_OF_YEAR) - 1) * 3 + 1).toEpochDay(), Granularity.QUARTER.toFirstDay(Granularity.QUARTER.toBucket(epochDay)));
+        }
+    }
+
+    @Test
+    public void splitsBucketsAtBoundaries() {
+        assertBoundary(Granularity.WEEK, LocalDate.of(1970, 1, 4));
+        assertBoundary(Granularity.WEEK, LocalDate.of(1969, 12, 28));
+        assertBoundary(Granularity.MONTH, LocalDate.of(1969, 12, 31));
+        assertBoundary(Granularity.MONTH, LocalDate.of(1900, 2, 28));
+        assertBoundary(Granularity.MONTH, LocalDate.of(2000, 2, 29));
+        assertBoundary(Granularity.MONTH, LocalDate.of(-1, 12, 31));
+        assertBoundary(Granularity.QUARTER, LocalDate.of(1969, 12, 31));
+        assertBoundary(Granularity.QUARTER, LocalDate.of(1969, 9, 30));
+        assertBoundary(Granularity.QUARTER, LocalDate.of(0, 3, 31));
+    }
+
+    @Test
+    public void formatsBuckets() {
+        LocalDate date = LocalDate.of(1969, 12, 31);
+        assertEquals("1969-12-31", Granularity.DAY.format(Granularity.DAY.toBucket(date.toEpochDay())));
+        assertEquals("1970-W01", Granularity.WEEK.format(Granularity.WEEK.toBucket(date.toEpochDay())));
+        assertEquals("1969-12", Granularity.MONTH.format(Granularity.MONTH.toBucket(date.toEpochDay())));
+        assertEquals("1969-Q4", Granularity.QUARTER.format(Granularity.QUARTER.toBucket(date.toEpochDay())));
+        assertEquals("2020-W53", Granularity.WEEK.format(Granularity.WEEK.toBucket(LocalDate.of(2021, 1, 3).toEpochDay())));
+    }
+
+    @Test
+    public void rollsUpOnlyContainedBuckets() {
+        for (Granularity granularity : Granularity.values()) {
+            assertTrue(granularity.canRollUp(granularity));
+            assertTrue(granularity.canRollUp(Granularity.DAY));
+        }
+        assertTrue(Granularity.QUARTER.canRollUp(Granularity.MONTH));
+        assertFalse(Granularity.MONTH.canRollUp(Granularity.WEEK));
+        assertFalse(Granularity.QUARTER.canRollUp(Granularity.WEEK));
+        assertFalse(Granularity.WEEK.canRollUp(Granularity.MONTH));
+        assertFalse(Granularity.DAY.canRollUp(Granularity.WEEK));
+    }
+
+    private static void assertBoundary(Granularity granularity, LocalDate lastDayOfBucket) {
+        long bucket = granularity.toBucket(lastDayOfBucket.toEpochDay());
+        assertEquals(bucket + 1, granularity.toBucket(lastDayOfBucket.toEpochDay() + 1));
+        assertEquals(lastDayOfBucket.toEpochDay() + 1, granularity.toFirstDay(bucket + 1));
+    }
+}
@@ -0,0 +1,123 @@
+package com.shykhmat.vcsstatistics.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+public class StatisticsMatrixTest {
+
+    @Test
+    public void internsAuthorsOnce() {
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, statistics.internAuthor("author " + i));
+        }
+        assertEquals(42, statistics.internAuthor("author 42"));
+        assertEquals(100, statistics.getAuthorCount());
+        assertEquals("author 99", statistics.getAuthorName(99));
+        assertEquals(0, statistics.getTotalChangedLines(99));
+        assertEquals(0, statistics.getChangedLines(99, 0));
+    }
+
+    @Test
+    public void growsToLaterAndEarlierDays() {
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        int authorId = statistics.internAuthor("author");
+        statistics.add(authorId, 100, 1);
+        statistics.add(authorId, 100, 2);
+        statistics.add(authorId, 1000, 5);
+        statistics.add(authorId, -1000, 7);
+        statistics.add(authorId, 101, 11);
+        assertEquals(3, statistics.getChangedLines(authorId, 100));
+        assertEquals(11, statistics.getChangedLines(authorId, 101));
+        assertEquals(5, statistics.getChangedLines(authorId, 1000));
+        assertEquals(7, statistics.getChangedLines(authorId, -1000));
+        assertEquals(0, statistics.getChangedLines(authorId, 99));
+        assertEquals(0, statistics.getChangedLines(authorId, -1001));
+        assertEquals(0, statistics.getChangedLines(authorId, Long.MAX_VALUE));
+        assertEquals(26, statistics.getTotalChangedLines(authorId));
+        assertTrue(statistics.getFirstDay(authorId) <= -1000);
+        assertTrue(statistics.getLastDay(authorId) >= 1000);
+    }
+
+    @Test
+    public void keepsDaysOfEveryAuthorSeparately() {
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        int firstAuthorId = statistics.internAuthor("first");
+        int secondAuthorId = statistics.internAuthor("second");
+        for (int day = 0; day < 365; day++) {
+            statistics.add(firstAuthorId, day, day);
+            statistics.add(secondAuthorId, -day, 1);
+        }
+        assertEquals(364 * 365 / 2, statistics.getTotalChangedLines(firstAuthorId));
+        assertEquals(365, statistics.getTotalChangedLines(secondAuthorId));
+        assertEquals(200, statistics.getChangedLines(firstAuthorId, 200));
+        assertEquals(0, statistics.getChangedLines(firstAuthorId, -200));
+        assertEquals(1, statistics.getChangedLines(secondAuthorId, -200));
+        assertEquals(0, statistics.getChangedLines(secondAuthorId, 200));
+    }
+
+    @Test
+    public void slicesRangeOfDays() {
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        int firstAuthorId = statistics.internAuthor("first");
+        int secondAuthorId = statistics.internAuthor("second");
+        int thirdAuthorId = statistics.internAuthor("third");
+        statistics.add(firstAuthorId, 9, 1);
+        statistics.add(firstAuthorId, 10, 2);
+        statistics.add(firstAuthorId, 20, 3);
+        statistics.add(firstAuthorId, 21, 4);
+        statistics.add(secondAuthorId, 5, 5);
+        statistics.add(thirdAuthorId, 15, 6);
+        StatisticsMatrix slice = statistics.slice(10, 20);
+        // authors without changes in range are dropped
+        assertEquals(2, slice.getAuthorCount());
+        assertEquals("first", slice.getAuthorName(0));
+        assertEquals("third", slice.getAuthorName(1));
+        assertEquals(0, slice.getChangedLines(0, 9));
+        assertEquals(2, slice.getChangedLines(0, 10));
+        assertEquals(3, slice.getChangedLines(0, 20));
+        assertEquals(0, slice.getChangedLines(0, 21));
+        assertEquals(5, slice.getTotalChangedLines(0));
+        assertEquals(6, slice.getTotalChangedLines(1));
+        assertEquals(Granularity.DAY, slice.getGranularity());
+        // source is not changed
+        assertEquals(10, statistics.getTotalChangedLines(firstAuthorId));
+    }
+
+    @Test
+    public void rollsUpDaysIntoPeriods() {
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        int authorId = statistics.internAuthor("author");
+        statistics.add(authorId, LocalDate.of(1969, 12, 31).toEpochDay(), 1);
+        statistics.add(authorId, LocalDate.of(1970, 1, 1).toEpochDay(), 2);
+        statistics.add(authorId, LocalDate.of(1970, 3, 31).toEpochDay(), 3);
+        statistics.add(authorId, LocalDate.of(1970, 4, 1).toEpochDay(), 4);
+        StatisticsView months = StatisticsMatrix.rollUp(statistics, Granularity.MONTH);
+        assertEquals(Granularity.MONTH, months.getGranularity());
+        assertEquals(1, months.getChangedLines(0, -1));
+        assertEquals(2, months.getChangedLines(0, 0));
+        assertEquals(3, months.getChangedLines(0, 2));
+        assertEquals(4, months.getChangedLines(0, 3));
+        StatisticsView quarters = StatisticsMatrix.rollUp(months, Granularity.QUARTER);
+        assertEquals(1, quarters.getChangedLines(0, -1));
+        assertEquals(5, quarters.getChangedLines(0, 0));
+        assertEquals(4, quarters.getChangedLines(0, 1));
+        assertEquals(10, quarters.getTotalChangedLines(0));
+        StatisticsView weeks = StatisticsMatrix.rollUp(statistics, Granularity.WEEK);
+        // 1969-12-31 and 1970-01-01 are in the week starting 1969-12-29
+        assertEquals(3, weeks.getChangedLines(0, 0));
+        assertSame(statistics, StatisticsMatrix.rollUp(statistics, Granularity.DAY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void doesNotRollUpWeeksIntoMonths() {
+        StatisticsMatrix statistics = new StatisticsMatrix(Granularity.WEEK);
+        statistics.add(statistics.internAuthor("author"), 0, 1);
+        StatisticsMatrix.rollUp(statistics, Granularity.MONTH);
+    }
+}
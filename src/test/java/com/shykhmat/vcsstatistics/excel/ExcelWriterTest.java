@@ -0,0 +1,59 @@
+package com.shykhmat.vcsstatistics.excel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import com.shykhmat.vcsstatistics.domain.Granularity;
+import com.shykhmat.vcsstatistics.domain.LinesOfCodeStatusResolver;
+import com.shykhmat.vcsstatistics.domain.ProjectReport;
+import com.shykhmat.vcsstatistics.domain.StatisticsMatrix;
+
+public class ExcelWriterTest {
+    private static final LocalDate DATE_FROM = LocalDate.of(2020, 1, 30);
+    private static final LocalDate DATE_TO = LocalDate.of(2020, 2, 2);
+
+    @Test
+    public void writesColumnOfLastDay() throws IOException {
+        Sheet sheet = writeStatistics(new ExcelWriterSettings()).getSheetAt(0);
+        Row header = sheet.getRow(0);
+        assertEquals(6, header.getLastCellNum());
+        assertEquals("2020-01-30", header.getCell(1).getStringCellValue());
+        assertEquals("2020-02-02", header.getCell(4).getStringCellValue());
+        assertEquals("Total", header.getCell(5).getStringCellValue());
+        Row author = sheet.getRow(1);
+        assertEquals(3, author.getCell(1).getNumericCellValue(), 0);
+        assertEquals(7, author.getCell(4).getNumericCellValue(), 0);
+        assertEquals(10, author.getCell(5).getNumericCellValue(), 0);
+    }
+
+    @Test
+    public void writesColumnOfPeriodContainingLastDay() throws IOException {
+        ExcelWriterSettings settings = new ExcelWriterSettings();
+        settings.setGranularity(Granularity.MONTH);
+        Sheet sheet = writeStatistics(settings).getSheetAt(0);
+        Row header = sheet.getRow(0);
+        assertEquals(4, header.getLastCellNum());
+        assertEquals("2020-01", header.getCell(1).getStringCellValue());
+        assertEquals("2020-02", header.getCell(2).getStringCellValue());
+        assertEquals(7, sheet.getRow(1).getCell(2).getNumericCellValue(), 0);
+    }
+
+    private static XSSFWorkbook writeStatistics(ExcelWriterSettings settings) throws IOException {
+        StatisticsMatrix statistics = new StatisticsMatrix();
+        int authorId = statistics.internAuthor("author");
+        statistics.add(authorId, DATE_FROM.toEpochDay(), 3);
+        statistics.add(authorId, DATE_TO.toEpochDay(), 7);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new ExcelWriter(new LinesOfCodeStatusResolver(), settings).writeMetricsToExcel(output, new ProjectReport("project", DATE_FROM, DATE_TO, statistics));
+        return new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()));
+    }
+}